@@ -1,10 +1,23 @@
 package com.learnix.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import com.learnix.services.AdminService;
+import com.learnix.services.AttendanceArchiveService;
+import com.learnix.services.AttendanceService;
+import com.learnix.services.CourseSalesService;
+import com.learnix.services.EntitlementService;
+import com.learnix.services.ExamDraftService;
+import com.learnix.services.ExamTimerService;
+import com.learnix.services.ItemAnalysisService;
+import com.learnix.services.OnlineTestService;
+import com.learnix.services.PaymentExpiryService;
+import com.learnix.services.PaymentWebhookService;
+import com.learnix.services.StudentHelpService;
 
 @Component
 public class ScheduledTasks {
@@ -12,10 +25,164 @@ public class ScheduledTasks {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private ExamDraftService examDraftService;
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private ExamTimerService examTimerService;
+
+    @Autowired
+    private OnlineTestService onlineTestService;
+
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+
+    @Autowired
+    private PaymentExpiryService paymentExpiryService;
+
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @Autowired
+    private CourseSalesService courseSalesService;
+
+    @Autowired
+    private StudentHelpService studentHelpService;
+
     // Run every hour to check for events that have passed their event date/time by more than 24 hours
     @Scheduled(fixedRate = 3600000) // 3600000 ms = 1 hour
     public void deleteEventsPast24HoursAfterEventDate() {
         adminService.deleteEventsPast24HoursAfterEventDate();
     }
-}
 
+    // Clean up legacy duplicate attendance rows, then populate the counters on the first start
+    // after they were introduced
+    @EventListener(ApplicationReadyEvent.class)
+    public void initAttendanceCounters() {
+        try {
+            attendanceService.removeDuplicateRows();
+            attendanceService.rebuildCountersIfMissing();
+        } catch (Exception e) {
+            System.err.println("Error initialising attendance counters: " + e.getMessage());
+        }
+    }
+
+    // Reconcile attendance counters with the raw attendance rows every night
+    @Scheduled(cron = "${attendance.counters.rebuild-cron:0 30 2 * * *}")
+    public void rebuildAttendanceCounters() {
+        try {
+            attendanceService.rebuildCounters();
+        } catch (Exception e) {
+            System.err.println("Error rebuilding attendance counters: " + e.getMessage());
+        }
+    }
+
+    // Move closed months older than attendance.archive.hot-months into the archive (no-op unless enabled)
+    @Scheduled(cron = "${attendance.archive.cron:0 0 3 1 * *}")
+    public void archiveAttendance() {
+        try {
+            attendanceArchiveService.archiveClosedMonths();
+        } catch (Exception e) {
+            System.err.println("Error archiving attendance: " + e.getMessage());
+        }
+    }
+
+    // Write buffered exam autosaves to the draft table
+    @Scheduled(fixedDelayString = "${exam.autosave.flush-ms:3000}")
+    public void flushExamDrafts() {
+        try {
+            examDraftService.flush();
+        } catch (Exception e) {
+            System.err.println("Error flushing exam drafts: " + e.getMessage());
+        }
+    }
+
+    // Write buffered item-analysis counters of online tests
+    @Scheduled(fixedDelayString = "${exam.item-stats.flush-ms:5000}")
+    public void flushItemStats() {
+        try {
+            itemAnalysisService.flush();
+        } catch (Exception e) {
+            System.err.println("Error flushing item analysis counters: " + e.getMessage());
+        }
+    }
+
+    // Remove online test attempts stored twice before one attempt per student was enforced
+    @EventListener(ApplicationReadyEvent.class)
+    public void removeDuplicateSubmissions() {
+        try {
+            onlineTestService.removeDuplicateSubmissions();
+        } catch (Exception e) {
+            System.err.println("Error removing duplicate online test submissions: " + e.getMessage());
+        }
+    }
+
+    // Re-register exam warm-up/close timers after a restart; overdue tests close on the next tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadExamTimers() {
+        try {
+            examTimerService.loadAll();
+        } catch (Exception e) {
+            System.err.println("Error loading exam timers: " + e.getMessage());
+        }
+    }
+
+    // Apply stored payment gateway webhooks
+    @Scheduled(fixedDelayString = "${payment.webhook.process-ms:2000}")
+    public void processPaymentWebhooks() {
+        try {
+            paymentWebhookService.processPending();
+        } catch (Exception e) {
+            System.err.println("Error processing payment webhooks: " + e.getMessage());
+        }
+    }
+
+    // Expire checkouts left PENDING longer than payment.pending.ttl-minutes
+    @Scheduled(fixedDelayString = "${payment.pending.expiry-ms:900000}")
+    public void expireStalePayments() {
+        try {
+            paymentExpiryService.expireStalePayments();
+        } catch (Exception e) {
+            System.err.println("Error expiring stale payments: " + e.getMessage());
+        }
+    }
+
+    // Populate course entitlements from paid enrollments on the first start after they were introduced
+    @EventListener(ApplicationReadyEvent.class)
+    public void initCourseEntitlements() {
+        try {
+            entitlementService.backfillIfEmpty();
+        } catch (Exception e) {
+            System.err.println("Error initialising course entitlements: " + e.getMessage());
+        }
+    }
+
+    // Populate per-course sales aggregates on the first start after they were introduced
+    @EventListener(ApplicationReadyEvent.class)
+    public void initCourseSales() {
+        try {
+            courseSalesService.backfillIfEmpty();
+        } catch (Exception e) {
+            System.err.println("Error initialising course sales: " + e.getMessage());
+        }
+    }
+
+    // Upper-case help-desk statuses stored before the queue filtered on them
+    @EventListener(ApplicationReadyEvent.class)
+    public void initHelpStatuses() {
+        try {
+            studentHelpService.normalizeStatuses();
+        } catch (Exception e) {
+            System.err.println("Error normalizing help request statuses: " + e.getMessage());
+        }
+    }
+}
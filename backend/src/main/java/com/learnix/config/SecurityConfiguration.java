@@ -59,6 +59,7 @@ public class SecurityConfiguration {
                 .authorizeHttpRequests(requests -> requests
                 		.requestMatchers("/api/uploads/**", "/uploads/**").permitAll()
                 		.requestMatchers("/api/auth/**", "/h2-console/**", "/api/courses/**").permitAll()
+                		.requestMatchers("/api/payment/webhook").permitAll()
                         .requestMatchers("/api/student/**").hasRole("STUDENT")
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/teacher/**").hasRole("TEACHER")
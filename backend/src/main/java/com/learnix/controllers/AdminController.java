@@ -1,8 +1,10 @@
 package com.learnix.controllers;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -34,8 +36,10 @@ public class AdminController {
     public ResponseEntity<?> getAllStudents(
     		@RequestParam(required = false) String search,
     		@RequestParam(defaultValue = "name") String sortField,
-    		@RequestParam(defaultValue = "asc") String sortDirection) {
-        return adminService.getAllStudents(search, sortField, sortDirection);
+    		@RequestParam(defaultValue = "asc") String sortDirection,
+    		@RequestParam(required = false) Integer page,
+    		@RequestParam(required = false) Integer size) {
+        return adminService.getAllStudents(search, sortField, sortDirection, page, size);
     }
 
     @GetMapping("/teachers")
@@ -43,8 +47,10 @@ public class AdminController {
     public ResponseEntity<?> getAllTeachers(
     		@RequestParam(required = false) String search,
     		@RequestParam(defaultValue = "name") String sortField,
-    		@RequestParam(defaultValue = "asc") String sortDirection) {
-        return adminService.getAllTeachers(search, sortField, sortDirection);
+    		@RequestParam(defaultValue = "asc") String sortDirection,
+    		@RequestParam(required = false) Integer page,
+    		@RequestParam(required = false) Integer size) {
+        return adminService.getAllTeachers(search, sortField, sortDirection, page, size);
     }
 
     @PostMapping("/teachers")
@@ -188,8 +194,10 @@ public class AdminController {
 
     @GetMapping("/payments/course/{courseId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getCourseBuyers(@PathVariable Long courseId) {
-        return adminService.getCourseBuyers(courseId);
+    public ResponseEntity<?> getCourseBuyers(@PathVariable Long courseId,
+    		@RequestParam(required = false) Integer page,
+    		@RequestParam(required = false) Integer size) {
+        return adminService.getCourseBuyers(courseId, page, size);
     }
 
     // Online test reports
@@ -206,8 +214,11 @@ public class AdminController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> getAllStudentHelpRequests(
     		@RequestParam(required = false) String status,
-    		@RequestParam(required = false) String search) {
-        return studentHelpService.getAllHelpRequests(status, search);
+    		@RequestParam(required = false) String search,
+    		@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorCreatedAt,
+    		@RequestParam(required = false) Long cursorId,
+    		@RequestParam(required = false) Integer size) {
+        return studentHelpService.getAllHelpRequests(status, search, cursorCreatedAt, cursorId, size);
     }
 
     @PutMapping("/student-help/{id}/status")
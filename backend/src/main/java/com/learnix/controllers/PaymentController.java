@@ -3,15 +3,19 @@ package com.learnix.controllers;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.learnix.services.PaymentService;
+import com.learnix.services.PaymentWebhookService;
 
 @RestController
 @RequestMapping("/api/payment")
@@ -20,6 +24,9 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+
     // Create payment order
     @PostMapping("/create-order")
     @PreAuthorize("hasRole('STUDENT')")
@@ -44,5 +51,23 @@ public class PaymentController {
         boolean isPaid = paymentService.isPaymentCompleted(email, courseId);
         return ResponseEntity.ok(Map.of("isPaid", isPaid));
     }
-}
 
+    // Gateway webhook: verify the signature, store the event and acknowledge; applied asynchronously
+    @PostMapping("/webhook")
+    public ResponseEntity<?> paymentWebhook(
+            @RequestBody String body,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
+        if (!paymentWebhookService.isValidSignature(body, signature)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("status", "invalid signature"));
+        }
+        boolean stored;
+        try {
+            stored = paymentWebhookService.record(body, eventId);
+        } catch (IllegalArgumentException e) {
+            // Signed but not JSON: the gateway should not retry it
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("status", "malformed payload"));
+        }
+        return ResponseEntity.ok(Map.of("status", stored ? "accepted" : "duplicate"));
+    }
+}
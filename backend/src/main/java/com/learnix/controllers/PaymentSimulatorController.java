@@ -0,0 +1,33 @@
+package com.learnix.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.learnix.services.StubPaymentGateway;
+
+// Stands in for the checkout widget while the gateway simulator is active (payment-sim profile);
+// not registered against the live gateway.
+@RestController
+@RequestMapping("/api/payment/simulator")
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "stub")
+public class PaymentSimulatorController {
+
+    @Autowired
+    private StubPaymentGateway stubPaymentGateway;
+
+    // Pay an order: returns the ids and signature to post to /api/payment/verify
+    @PostMapping("/checkout")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> checkout(@RequestParam String orderId) {
+        Map<String, String> result = stubPaymentGateway.completeCheckout(orderId);
+        return ResponseEntity.ok(result);
+    }
+}
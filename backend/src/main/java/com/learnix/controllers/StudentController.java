@@ -142,6 +142,32 @@ public class StudentController {
         return onlineTestService.submitTest(testId, principal, request);
     }
 
+    @GetMapping("/tests/receipts/{receiptId}")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> getSubmissionReceipt(@PathVariable String receiptId, Principal principal) {
+        return onlineTestService.getSubmissionReceipt(receiptId, principal);
+    }
+
+    @PutMapping("/tests/{testId}/draft")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> autosaveTest(@PathVariable Long testId,
+                                          @RequestBody OnlineTestSubmissionRequest request,
+                                          Principal principal) {
+        return onlineTestService.autosaveAnswers(testId, principal, request);
+    }
+
+    @GetMapping("/tests/{testId}/draft")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> getTestDraft(@PathVariable Long testId, Principal principal) {
+        return onlineTestService.getDraftAnswers(testId, principal);
+    }
+
+    @GetMapping("/tests/{testId}/rank")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> getMyTestRank(@PathVariable Long testId, Principal principal) {
+        return onlineTestService.getMyRank(testId, principal);
+    }
+
     @GetMapping("/tests/results")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<?> getMyTestResults(Principal principal) {
@@ -1,6 +1,7 @@
 package com.learnix.controllers;
 
 import java.security.Principal;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +9,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -48,8 +50,10 @@ public class TeacherController {
     		Principal principal,
     		@RequestParam(required = false) String search,
     		@RequestParam(defaultValue = "name") String sortField,
-    		@RequestParam(defaultValue = "asc") String sortDirection) {
-        return teacherService.getMyStudents(principal, search, sortField, sortDirection);
+    		@RequestParam(defaultValue = "asc") String sortDirection,
+    		@RequestParam(required = false) Integer page,
+    		@RequestParam(required = false) Integer size) {
+        return teacherService.getMyStudents(principal, search, sortField, sortDirection, page, size);
     }
 
     @PostMapping("/attendance/mark")
@@ -164,4 +168,37 @@ public class TeacherController {
     public ResponseEntity<?> getTestSubmissions(@PathVariable Long testId, Principal principal) {
         return onlineTestService.getTestSubmissions(testId, principal);
     }
+
+    @GetMapping("/tests/{testId}/item-analysis")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<?> getItemAnalysis(@PathVariable Long testId, Principal principal) {
+        return onlineTestService.getItemAnalysis(testId, principal);
+    }
+
+    @GetMapping("/tests/{testId}/leaderboard")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<?> getLeaderboard(@PathVariable Long testId,
+                                            @RequestParam(defaultValue = "10") int limit,
+                                            Principal principal) {
+        return onlineTestService.getLeaderboard(testId, limit, principal);
+    }
+
+    @PutMapping("/tests/{testId}/questions/{questionId}/correct-option")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<?> updateCorrectOption(@PathVariable Long testId, @PathVariable Long questionId,
+                                                 @RequestBody Map<String, String> request, Principal principal) {
+        return onlineTestService.updateCorrectOption(testId, questionId, request.get("correctOption"), principal);
+    }
+
+    @PostMapping("/tests/{testId}/regrade")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<?> regradeTest(@PathVariable Long testId, Principal principal) {
+        return onlineTestService.regradeTest(testId, principal);
+    }
+
+    @GetMapping("/tests/{testId}/regrade")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<?> getRegradeProgress(@PathVariable Long testId, Principal principal) {
+        return onlineTestService.getRegradeProgress(testId, principal);
+    }
 }
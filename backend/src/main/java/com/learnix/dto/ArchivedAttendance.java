@@ -0,0 +1,19 @@
+package com.learnix.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Archived rows read for a request; complete is false when a month listed in the manifest
+// could not be read, so callers can tell the history is partial
+@Getter
+@AllArgsConstructor
+public class ArchivedAttendance {
+    private List<ArchivedAttendanceRow> rows;
+    private List<String> missingMonths;
+
+    public boolean isComplete() {
+        return missingMonths.isEmpty();
+    }
+}
@@ -0,0 +1,20 @@
+package com.learnix.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// One attendance record read back from a monthly archive file
+@Getter
+@AllArgsConstructor
+public class ArchivedAttendanceRow {
+    private Long id;
+    private Long studentId;
+    private Long teacherId;
+    private String teacherName;
+    private String courseTitle;
+    private LocalDate date;
+    private String status;
+    private String subject;
+}
@@ -0,0 +1,12 @@
+package com.learnix.dto;
+
+import java.time.LocalDateTime;
+
+// Read-only projection of an enrollment with just the student columns shown in course listings
+public interface CourseEnrollmentView {
+    Long getCourseId();
+    Long getStudentId();
+    String getName();
+    String getEmail();
+    LocalDateTime getEnrolledAt();
+}
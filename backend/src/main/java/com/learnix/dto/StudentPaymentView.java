@@ -0,0 +1,23 @@
+package com.learnix.dto;
+
+import java.time.LocalDateTime;
+
+// One row of a student's payment history (latest relevant payment per course) with the
+// history totals repeated on every row, as returned by PaymentRepository.findPaymentHistory
+public interface StudentPaymentView {
+    Long getId();
+    Double getAmount();
+    String getCurrency();
+    String getStatus();
+    String getTransactionId();
+    String getOrderId();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getPaidAt();
+    Long getCourseId();
+    String getCourseTitle();
+    String getCourseCategory();
+    Double getCoursePrice();
+    Double getTotalAmount();
+    Double getPaidAmount();
+    Double getPendingAmount();
+}
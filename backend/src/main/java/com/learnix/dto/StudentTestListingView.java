@@ -0,0 +1,20 @@
+package com.learnix.dto;
+
+import java.time.LocalDateTime;
+
+// One published test as listed to a student, with its question count and that student's submission (if any)
+public interface StudentTestListingView {
+    Long getId();
+    String getTitle();
+    String getSubject();
+    String getDescription();
+    Integer getMaxMarks();
+    String getTeacherName();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getStartTime();
+    LocalDateTime getEndTime();
+    Long getQuestionCount();
+    Long getSubmissionId();
+    Integer getScore();
+    LocalDateTime getSubmittedAt();
+}
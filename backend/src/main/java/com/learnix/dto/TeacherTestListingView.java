@@ -0,0 +1,17 @@
+package com.learnix.dto;
+
+import java.time.LocalDateTime;
+
+// One of a teacher's tests with its question and submission counts
+public interface TeacherTestListingView {
+    Long getId();
+    String getTitle();
+    String getSubject();
+    Integer getMaxMarks();
+    LocalDateTime getCreatedAt();
+    Boolean getPublished();
+    LocalDateTime getStartTime();
+    LocalDateTime getEndTime();
+    Long getQuestionCount();
+    Long getSubmissionCount();
+}
@@ -0,0 +1,20 @@
+package com.learnix.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Columns shown in the student/teacher directories; never carries password, OTP or audit fields
+@Getter
+@AllArgsConstructor
+public class UserDirectoryRow {
+    private Long id;
+    private String name;
+    private String email;
+    private String phoneNumber;
+    private String role;
+    private String profilePhoto;
+    private Boolean isApproved;
+    private LocalDateTime createdAt;
+}
@@ -7,8 +7,11 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -21,6 +24,9 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_attendance_student_date_subject",
+        columnNames = {"student_id", "date", "subject"}),
+        indexes = @Index(name = "idx_attendance_date", columnList = "date"))
 public class Attendance {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -42,8 +48,8 @@ public class Attendance {
     @Column(nullable = false)
     private String status; // "PRESENT" or "ABSENT"
 
-    @Column(nullable = true)
-    private String subject; // Subject name for which attendance is marked
+    @Column(nullable = false)
+    private String subject; // Subject name for which attendance is marked, "" when none was given
 }
 
 
@@ -0,0 +1,38 @@
+package com.learnix.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Manifest entry for one month of attendance moved out of the live table into a compressed file
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttendanceArchive {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 7)
+    private String month; // yyyy-MM
+
+    @Column(nullable = false)
+    private String fileName;
+
+    private Long rowCount;
+    private Long presentCount;
+
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,52 @@
+package com.learnix.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Where one student's rows for one subject sit inside a monthly archive file: each block is
+// its own gzip member, so a single student's rows can be read without inflating the whole
+// month, and its totals rebuild the attendance counters without reading the file at all
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_attendance_archive_block_month_student_subject",
+        columnNames = {"month", "student_id", "subject"}),
+        indexes = @Index(name = "idx_attendance_archive_block_student", columnList = "student_id"))
+public class AttendanceArchiveBlock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(nullable = false, length = 7)
+    private String month; // yyyy-MM
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(nullable = false)
+    private String subject; // trimmed, "" when none was given
+
+
+    @Column(nullable = false)
+    private Long blockOffset; // byte offset of the gzip member in the file
+
+    @Column(nullable = false)
+    private Long blockLength; // compressed length in bytes
+
+    private Long rowCount;
+    private Long presentCount;
+}
@@ -0,0 +1,73 @@
+package com.learnix.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Running PRESENT/total counters per student, maintained alongside Attendance writes with
+// atomic increments (AttendanceSummaryRepository.addCounts), so no version check is needed.
+// One row per (student, subject) plus one row with subject = ALL_SUBJECTS for the overall total.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_attendance_summary_student_subject",
+        columnNames = {"student_id", "subject"}))
+public class AttendanceSummary {
+    public static final String ALL_SUBJECTS = "*";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "student_id")
+    private Users student;
+
+    @Column(nullable = false)
+    private String subject; // subject name, "" for legacy rows without one, or ALL_SUBJECTS
+
+    @Builder.Default
+    private Long presentCount = 0L;
+
+    @Builder.Default
+    private Long totalCount = 0L;
+
+    private LocalDateTime updatedAt;
+
+    public void add(long total, long present) {
+        this.totalCount = this.totalCount + total;
+        this.presentCount = this.presentCount + present;
+    }
+
+    public long getAbsentCount() {
+        return totalCount - presentCount;
+    }
+
+    public int getPercentage() {
+        return totalCount == 0 ? 0 : (int) Math.round((presentCount * 100.0) / totalCount);
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
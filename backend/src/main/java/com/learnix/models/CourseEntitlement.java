@@ -0,0 +1,50 @@
+package com.learnix.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Paid access of a student (user id) to a course. A row exists only while access is granted,
+// and the (student, course) primary key makes every access check a single PK lookup.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(CourseEntitlement.Key.class)
+public class CourseEntitlement {
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    // Payment that granted access, if any
+    private Long paymentId;
+
+    private LocalDateTime grantedAt;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long studentId;
+        private Long courseId;
+    }
+}
@@ -0,0 +1,34 @@
+package com.learnix.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Running sales totals of a course, bumped by every confirmed payment so buyer reports and
+// payment statistics never have to aggregate the payment table.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CourseSales {
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Builder.Default
+    private long buyers = 0;
+
+    @Builder.Default
+    private double revenue = 0.0;
+
+    private LocalDateTime lastSaleAt;
+}
@@ -33,6 +33,10 @@ public class OnlineTest {
     private LocalDateTime startTime;
     private LocalDateTime endTime;
 
+    // Set by the exam timer once the end time passed and drafts were finalized
+    private Boolean closed = false;
+    private LocalDateTime closedAt;
+
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt = LocalDateTime.now();
 
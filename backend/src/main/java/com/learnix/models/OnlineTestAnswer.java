@@ -9,6 +9,8 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Entity
 @Data
@@ -18,13 +20,19 @@ public class OnlineTestAnswer {
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
 
+    // Associations stay out of equals/hashCode/toString: Hibernate hashes the answers at flush,
+    // which would otherwise initialize the question reference of every answer one by one
     @ManyToOne
     @JoinColumn(name = "submission_id")
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private OnlineTestSubmission submission;
 
     @ManyToOne
     @JoinColumn(name = "question_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private OnlineTestQuestion question;
 
     private String selectedOption;
@@ -0,0 +1,44 @@
+package com.learnix.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Autosaved answers of a test that is still in progress, one row per (test, student).
+// Plain ids instead of associations keep the periodic batch flush free of entity loads.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_online_test_draft_test_student",
+        columnNames = {"test_id", "student_id"}))
+public class OnlineTestDraft {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "test_id", nullable = false)
+    private Long testId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    // questionId=option pairs, e.g. "12=A,13=C"
+    @Column(columnDefinition = "TEXT")
+    private String answers;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,57 @@
+package com.learnix.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Running item-analysis counters of one online test question, kept up to date as submissions come in
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(indexes = @Index(name = "idx_item_stats_test", columnList = "test_id"))
+public class OnlineTestItemStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "test_id", nullable = false)
+    private Long testId;
+
+    @Column(name = "question_id", nullable = false, unique = true)
+    private Long questionId;
+
+    @Builder.Default
+    private Long responses = 0L;
+    @Builder.Default
+    private Long correctCount = 0L;
+    @Builder.Default
+    private Long optionA = 0L;
+    @Builder.Default
+    private Long optionB = 0L;
+    @Builder.Default
+    private Long optionC = 0L;
+    @Builder.Default
+    private Long optionD = 0L;
+    @Builder.Default
+    private Long blank = 0L;
+
+    // Sum of the total scores of students who answered this question correctly (for discrimination)
+    @Builder.Default
+    private Long correctScoreSum = 0L;
+
+    private LocalDateTime updatedAt;
+}
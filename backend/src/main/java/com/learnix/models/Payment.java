@@ -6,8 +6,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -16,6 +18,9 @@ import lombok.Setter;
 
 @Entity
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = {
+        @Index(name = "idx_payment_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_payment_course_status_paid", columnList = "course_id, status, paid_at") })
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -35,7 +40,7 @@ public class Payment {
     @Builder.Default
     private String currency = "INR";
     
-    private String status; // PENDING, SUCCESS, FAILED
+    private String status; // PENDING, SUCCESS, FAILED, CANCELLED, EXPIRED
     
     private LocalDateTime createdAt;
     private LocalDateTime paidAt;
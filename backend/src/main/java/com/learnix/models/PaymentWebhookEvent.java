@@ -0,0 +1,55 @@
+package com.learnix.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Payment gateway webhook, stored on receipt and applied later by the webhook worker.
+// The unique gateway event id makes redelivered events a no-op.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_payment_webhook_event_id", columnNames = "event_id"),
+        indexes = @Index(name = "idx_payment_webhook_status", columnList = "status"))
+public class PaymentWebhookEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, length = 100)
+    private String eventId;
+
+    private String eventType; // payment.captured, order.paid, payment.failed, ...
+
+    private String orderId;
+    private String paymentId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Builder.Default
+    private String status = "RECEIVED"; // RECEIVED, PROCESSED, IGNORED, FAILED
+
+    @Builder.Default
+    private Integer attempts = 0;
+
+    private String error;
+
+    private LocalDateTime receivedAt;
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,30 @@
+package com.learnix.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.learnix.models.AttendanceArchiveBlock;
+
+@Repository
+public interface AttendanceArchiveBlockRepository extends JpaRepository<AttendanceArchiveBlock, Long> {
+    List<AttendanceArchiveBlock> findByStudentIdInOrderByMonthAscStudentIdAscSubjectAsc(Collection<Long> studentIds);
+
+    // Archived totals per counter as [studentId, subject, total, present]
+    @Query("SELECT b.studentId, b.subject, SUM(b.rowCount), SUM(b.presentCount) FROM AttendanceArchiveBlock b "
+            + "GROUP BY b.studentId, b.subject")
+    List<Object[]> sumByStudentAndSubject();
+
+    @Query("SELECT b.studentId, b.subject, SUM(b.rowCount), SUM(b.presentCount) FROM AttendanceArchiveBlock b "
+            + "WHERE b.studentId IN :studentIds GROUP BY b.studentId, b.subject")
+    List<Object[]> sumByStudentAndSubject(@Param("studentIds") Collection<Long> studentIds);
+
+    @Modifying
+    @Query("DELETE FROM AttendanceArchiveBlock b WHERE b.month = :month")
+    int deleteByMonth(@Param("month") String month);
+}
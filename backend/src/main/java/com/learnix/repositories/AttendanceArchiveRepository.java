@@ -0,0 +1,16 @@
+package com.learnix.repositories;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.learnix.models.AttendanceArchive;
+
+@Repository
+public interface AttendanceArchiveRepository extends JpaRepository<AttendanceArchive, Long> {
+    Optional<AttendanceArchive> findByMonth(String month);
+    List<AttendanceArchive> findAllByOrderByMonthAsc();
+    List<AttendanceArchive> findByMonthGreaterThanEqualOrderByMonthAsc(String month);
+}
@@ -1,9 +1,14 @@
 package com.learnix.repositories;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.learnix.models.Attendance;
@@ -17,6 +22,44 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     List<Attendance> findByCourseAndDate(Course course, LocalDate date);
     List<Attendance> findByTeacher(Users teacher);
     List<Attendance> findByCourse(Course course);
+    List<Attendance> findByDateGreaterThanEqual(LocalDate from);
+    List<Attendance> findByDateBetween(LocalDate from, LocalDate to);
+    Optional<Attendance> findFirstByDateBeforeOrderByDateAsc(LocalDate before);
+    List<Attendance> findByDateAndSubjectAndStudentIdIn(LocalDate date, String subject, Collection<Long> studentIds);
+
+    // Raw totals used to rebuild AttendanceSummary: [studentId, subject, total, present]
+    @Query("SELECT a.student.id, a.subject, COUNT(a), SUM(CASE WHEN UPPER(a.status) = 'PRESENT' THEN 1 ELSE 0 END) "
+            + "FROM Attendance a GROUP BY a.student.id, a.subject")
+    List<Object[]> countByStudentAndSubject();
+
+    // The same totals for a set of students only
+    @Query("SELECT a.student.id, a.subject, COUNT(a), SUM(CASE WHEN UPPER(a.status) = 'PRESENT' THEN 1 ELSE 0 END) "
+            + "FROM Attendance a WHERE a.student.id IN :studentIds GROUP BY a.student.id, a.subject")
+    List<Object[]> countByStudentAndSubject(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT DISTINCT a.student.id FROM Attendance a")
+    List<Long> findStudentIds();
+
+    // One-off clean-up before the unique (student_id, date, subject) key can hold: rows written
+    // before subject became non-null, then every extra row of a (student, date, subject) slot
+    @Modifying
+    @Query("UPDATE Attendance a SET a.subject = '' WHERE a.subject IS NULL")
+    int fillMissingSubjects();
+
+    // Slots with more than one row as [studentId, date, subject, newest id]
+    @Query("SELECT a.student.id, a.date, a.subject, MAX(a.id) FROM Attendance a "
+            + "GROUP BY a.student.id, a.date, a.subject HAVING COUNT(a) > 1")
+    List<Object[]> findDuplicateSlots();
+
+    @Modifying
+    @Query("DELETE FROM Attendance a WHERE a.student.id = :studentId AND a.date = :date "
+            + "AND a.subject = :subject AND a.id <> :keepId")
+    int deleteDuplicates(@Param("studentId") Long studentId, @Param("date") LocalDate date,
+                         @Param("subject") String subject, @Param("keepId") Long keepId);
+
+    @Modifying
+    @Query("DELETE FROM Attendance a WHERE a.date BETWEEN :from AND :to")
+    int deleteByDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
 
 
@@ -0,0 +1,42 @@
+package com.learnix.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.learnix.models.AttendanceSummary;
+import com.learnix.models.Users;
+
+@Repository
+public interface AttendanceSummaryRepository extends JpaRepository<AttendanceSummary, Long> {
+    Optional<AttendanceSummary> findByStudentIdAndSubject(Long studentId, String subject);
+    List<AttendanceSummary> findByStudentIdAndSubjectNotOrderBySubjectAsc(Long studentId, String subject);
+    List<AttendanceSummary> findByStudentIdInAndSubjectIn(Collection<Long> studentIds, Collection<String> subjects);
+    List<AttendanceSummary> findBySubject(String subject);
+    List<AttendanceSummary> findByStudent(Users student);
+
+    @Query("SELECT DISTINCT s.student.id FROM AttendanceSummary s")
+    List<Long> findStudentIds();
+
+    // Atomic counter increment; the row must already exist (see AttendanceService.ensureCounterRows)
+    @Modifying
+    @Query("UPDATE AttendanceSummary s SET s.totalCount = s.totalCount + :total, s.presentCount = s.presentCount + :present, "
+            + "s.updatedAt = :now WHERE s.student.id = :studentId AND s.subject = :subject")
+    int addCounts(@Param("studentId") Long studentId, @Param("subject") String subject,
+                  @Param("total") long total, @Param("present") long present, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM AttendanceSummary s WHERE s.student.id IN :studentIds")
+    int deleteByStudentIdIn(@Param("studentIds") Collection<Long> studentIds);
+
+    // [total, present] summed over every student for one subject key
+    @Query("SELECT COALESCE(SUM(s.totalCount), 0), COALESCE(SUM(s.presentCount), 0) FROM AttendanceSummary s WHERE s.subject = :subject")
+    List<Object[]> sumBySubject(@Param("subject") String subject);
+}
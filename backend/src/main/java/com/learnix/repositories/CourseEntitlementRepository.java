@@ -0,0 +1,38 @@
+package com.learnix.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.learnix.models.Course;
+import com.learnix.models.CourseEntitlement;
+
+@Repository
+public interface CourseEntitlementRepository extends JpaRepository<CourseEntitlement, CourseEntitlement.Key> {
+
+    // Courses a student has paid access to, in one statement
+    @Query("SELECT c FROM Course c WHERE c.id IN "
+            + "(SELECT e.courseId FROM CourseEntitlement e WHERE e.studentId = :studentId)")
+    List<Course> findEntitledCourses(@Param("studentId") Long studentId);
+
+    // [studentId, courseId, paymentId, paidAt] for paid enrollments backed by a successful payment
+    @Query("SELECT p.student.id, p.course.id, MAX(p.id), MAX(p.paidAt) FROM Payment p, Enrollment e "
+            + "WHERE e.student = p.student AND e.course = p.course AND e.isPaid = true AND p.status = 'SUCCESS' "
+            + "GROUP BY p.student.id, p.course.id")
+    List<Object[]> findPaidAccessRows();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CourseEntitlement e WHERE e.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CourseEntitlement e WHERE e.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+}
@@ -2,6 +2,8 @@ package com.learnix.repositories;
 
 import java.util.List;
 
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
@@ -14,4 +16,9 @@ public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecif
 	List<Course> findByCategoryContainingIgnoreCase(String category);
     List<Course> findByTitleContainingIgnoreCase(String keyword);
     List<Course> findByTeacher(Users teacher);
+
+    // Fetch the teacher in the same statement instead of one select per distinct teacher
+    @Override
+    @EntityGraph(attributePaths = "teacher")
+    List<Course> findAll(Specification<Course> spec);
 }
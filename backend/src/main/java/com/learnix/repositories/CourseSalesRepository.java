@@ -0,0 +1,29 @@
+package com.learnix.repositories;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.learnix.models.CourseSales;
+
+@Repository
+public interface CourseSalesRepository extends JpaRepository<CourseSales, Long> {
+    long countByBuyersGreaterThan(long buyers);
+
+    // Plain insert: save() would merge an assigned id and could reset a row created concurrently
+    @Modifying
+    @Query("INSERT INTO CourseSales (courseId, buyers, revenue) VALUES (:courseId, 0, 0.0)")
+    int insertZeroRow(@Param("courseId") Long courseId);
+
+    // Atomic increment, so concurrent confirmations for one course never lose a sale
+    @Modifying
+    @Query("UPDATE CourseSales s SET s.buyers = s.buyers + 1, s.revenue = s.revenue + :amount, "
+            + "s.lastSaleAt = CASE WHEN s.lastSaleAt IS NULL OR s.lastSaleAt < :paidAt THEN :paidAt ELSE s.lastSaleAt END "
+            + "WHERE s.courseId = :courseId")
+    int recordSale(@Param("courseId") Long courseId, @Param("amount") double amount,
+                   @Param("paidAt") LocalDateTime paidAt);
+}
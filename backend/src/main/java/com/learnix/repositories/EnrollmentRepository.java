@@ -1,10 +1,15 @@
 package com.learnix.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.learnix.dto.CourseEnrollmentView;
 import com.learnix.models.Course;
 import com.learnix.models.Enrollment;
 import com.learnix.models.Users;
@@ -15,5 +20,15 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     List<Enrollment> findByStudent(Users student);
     List<Enrollment> findByCourse(Course course);
     Enrollment findByStudentAndCourse(Users student, Course course);
+
+    // Update half of the enrollment upsert; the row itself is created by PaymentService.ensureEnrollment
+    @Modifying
+    @Query("UPDATE Enrollment e SET e.isPaid = true WHERE e.student = :student AND e.course = :course")
+    int markPaid(@Param("student") Users student, @Param("course") Course course);
+
+    // All enrollments of the given courses in one statement, without loading Users entities
+    @Query("SELECT e.course.id AS courseId, s.id AS studentId, s.name AS name, s.email AS email, e.enrolledAt AS enrolledAt "
+            + "FROM Enrollment e JOIN e.student s WHERE e.course.id IN :courseIds ORDER BY e.enrolledAt ASC")
+    List<CourseEnrollmentView> findEnrollmentViewsByCourseIds(@Param("courseIds") Collection<Long> courseIds);
 }
 	
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.learnix.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.learnix.models.OnlineTestAnswer;
+
+@Repository
+public interface OnlineTestAnswerRepository extends JpaRepository<OnlineTestAnswer, Long> {
+
+    // Answers of one chunk of submissions as [submissionId, questionId, selectedOption], without loading entities
+    @Query("SELECT a.submission.id, a.question.id, a.selectedOption FROM OnlineTestAnswer a "
+            + "WHERE a.submission.id IN :submissionIds")
+    List<Object[]> findGradingRowsBySubmissionIds(@Param("submissionIds") Collection<Long> submissionIds);
+
+    // Re-mark every answer to one question against its (new) correct option
+    @Modifying
+    @Query("UPDATE OnlineTestAnswer a SET a.correct = CASE WHEN UPPER(a.selectedOption) = :correctOption "
+            + "THEN true ELSE false END WHERE a.question.id = :questionId")
+    int regradeQuestion(@Param("questionId") Long questionId, @Param("correctOption") String correctOption);
+
+    // Same, limited to submissions stored after a given id (late writers graded with the old key)
+    @Modifying
+    @Query("UPDATE OnlineTestAnswer a SET a.correct = CASE WHEN UPPER(a.selectedOption) = :correctOption "
+            + "THEN true ELSE false END WHERE a.question.id = :questionId AND a.submission.id > :afterId")
+    int regradeQuestionAfter(@Param("questionId") Long questionId, @Param("correctOption") String correctOption,
+                             @Param("afterId") Long afterId);
+}
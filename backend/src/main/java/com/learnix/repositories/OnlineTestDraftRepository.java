@@ -0,0 +1,36 @@
+package com.learnix.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.learnix.models.OnlineTestDraft;
+
+@Repository
+public interface OnlineTestDraftRepository extends JpaRepository<OnlineTestDraft, Long> {
+    Optional<OnlineTestDraft> findByTestIdAndStudentId(Long testId, Long studentId);
+    List<OnlineTestDraft> findByTestIdAndStudentIdIn(Long testId, Collection<Long> studentIds);
+    List<OnlineTestDraft> findByTestId(Long testId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OnlineTestDraft d WHERE d.testId = :testId AND d.studentId = :studentId")
+    int deleteByTestIdAndStudentId(@Param("testId") Long testId, @Param("studentId") Long studentId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OnlineTestDraft d WHERE d.testId = :testId")
+    int deleteByTestId(@Param("testId") Long testId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OnlineTestDraft d WHERE d.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+}
@@ -0,0 +1,40 @@
+package com.learnix.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.learnix.models.OnlineTestItemStats;
+
+@Repository
+public interface OnlineTestItemStatsRepository extends JpaRepository<OnlineTestItemStats, Long> {
+    List<OnlineTestItemStats> findByTestId(Long testId);
+    List<OnlineTestItemStats> findByQuestionIdIn(Collection<Long> questionIds);
+
+    @Query("SELECT s.questionId FROM OnlineTestItemStats s WHERE s.questionId IN :questionIds")
+    List<Long> findExistingQuestionIds(@Param("questionIds") Collection<Long> questionIds);
+
+    // Adds a flushed delta in place, so concurrent writers never lose each other's counts
+    @Modifying
+    @Query("UPDATE OnlineTestItemStats s SET s.optionA = s.optionA + :optionA, s.optionB = s.optionB + :optionB, "
+            + "s.optionC = s.optionC + :optionC, s.optionD = s.optionD + :optionD, s.blank = s.blank + :blank, "
+            + "s.correctCount = s.correctCount + :correctCount, s.responses = s.responses + :responses, "
+            + "s.correctScoreSum = s.correctScoreSum + :correctScoreSum, s.updatedAt = :now "
+            + "WHERE s.questionId = :questionId")
+    int addCounts(@Param("questionId") Long questionId, @Param("optionA") long optionA, @Param("optionB") long optionB,
+                  @Param("optionC") long optionC, @Param("optionD") long optionD, @Param("blank") long blank,
+                  @Param("correctCount") long correctCount, @Param("responses") long responses,
+                  @Param("correctScoreSum") long correctScoreSum, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OnlineTestItemStats s WHERE s.testId = :testId")
+    int deleteByTestId(@Param("testId") Long testId);
+}
@@ -0,0 +1,13 @@
+package com.learnix.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.learnix.models.OnlineTestQuestion;
+
+@Repository
+public interface OnlineTestQuestionRepository extends JpaRepository<OnlineTestQuestion, Long> {
+    List<OnlineTestQuestion> findByTestIdOrderByIdAsc(Long testId);
+}
@@ -4,8 +4,12 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.learnix.dto.StudentTestListingView;
+import com.learnix.dto.TeacherTestListingView;
 import com.learnix.models.OnlineTest;
 
 @Repository
@@ -13,5 +17,32 @@ public interface OnlineTestRepository extends JpaRepository<OnlineTest, Long> {
     List<OnlineTest> findByTeacherUserId(Long userId);
     Optional<OnlineTest> findByIdAndTeacherUserId(Long id, Long userId);
     List<OnlineTest> findByPublishedTrueOrderByCreatedAtDesc();
-}
 
+    // [id, updatedAt] of one test, to check a cached answer key without loading the test
+    @Query("SELECT t.id, t.updatedAt FROM OnlineTest t WHERE t.id = :id")
+    List<Object[]> findVersionRowsById(@Param("id") Long id);
+
+    // [id, startTime, endTime] of every published test that still has to be closed
+    @Query("SELECT t.id, t.startTime, t.endTime FROM OnlineTest t "
+            + "WHERE t.published = true AND (t.closed IS NULL OR t.closed = false) AND t.endTime IS NOT NULL")
+    List<Object[]> findOpenSchedules();
+
+    // Published tests with question counts and the given student's submission, in one statement
+    @Query("SELECT t.id AS id, t.title AS title, t.subject AS subject, t.description AS description, "
+            + "t.maxMarks AS maxMarks, u.name AS teacherName, t.createdAt AS createdAt, "
+            + "t.startTime AS startTime, t.endTime AS endTime, "
+            + "(SELECT COUNT(q) FROM OnlineTestQuestion q WHERE q.test = t) AS questionCount, "
+            + "s.id AS submissionId, s.score AS score, s.submittedAt AS submittedAt "
+            + "FROM OnlineTest t LEFT JOIN t.teacher tr LEFT JOIN tr.user u "
+            + "LEFT JOIN OnlineTestSubmission s ON s.test = t AND s.student.id = :studentId "
+            + "WHERE t.published = true ORDER BY t.createdAt DESC")
+    List<StudentTestListingView> findStudentListing(@Param("studentId") Long studentId);
+
+    // A teacher's tests with question and submission counts, in one statement
+    @Query("SELECT t.id AS id, t.title AS title, t.subject AS subject, t.maxMarks AS maxMarks, "
+            + "t.createdAt AS createdAt, t.published AS published, t.startTime AS startTime, t.endTime AS endTime, "
+            + "(SELECT COUNT(q) FROM OnlineTestQuestion q WHERE q.test = t) AS questionCount, "
+            + "(SELECT COUNT(s) FROM OnlineTestSubmission s WHERE s.test = t) AS submissionCount "
+            + "FROM OnlineTest t WHERE t.teacher.user.id = :userId")
+    List<TeacherTestListingView> findTeacherListing(@Param("userId") Long userId);
+}
@@ -1,9 +1,13 @@
 package com.learnix.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.learnix.models.OnlineTest;
@@ -16,5 +20,40 @@ public interface OnlineTestSubmissionRepository extends JpaRepository<OnlineTest
     Optional<OnlineTestSubmission> findByTestAndStudent(OnlineTest test, Student student);
     List<OnlineTestSubmission> findByTest(OnlineTest test);
     List<OnlineTestSubmission> findByStudent(Student student);
+
+    // [submissionId, score, totalCorrect] of every submission to a test
+    @Query("SELECT s.id, s.score, s.totalCorrect FROM OnlineTestSubmission s WHERE s.test.id = :testId ORDER BY s.id")
+    List<Object[]> findScoreRowsByTestId(@Param("testId") Long testId);
+
+    // The same rows in id order within (afterId, toId], one keyset chunk at a time
+    @Query("SELECT s.id, s.score, s.totalCorrect FROM OnlineTestSubmission s "
+            + "WHERE s.test.id = :testId AND s.id > :afterId AND s.id <= :toId ORDER BY s.id")
+    List<Object[]> findScoreRowsBetween(@Param("testId") Long testId, @Param("afterId") Long afterId,
+                                        @Param("toId") Long toId, Pageable pageable);
+
+    // Attempts stored more than once (before the unique key) as [testId, studentId, first id]
+    @Query("SELECT s.test.id, s.student.id, MIN(s.id) FROM OnlineTestSubmission s "
+            + "GROUP BY s.test.id, s.student.id HAVING COUNT(s) > 1")
+    List<Object[]> findDuplicateAttempts();
+
+    @Query("SELECT s.id FROM OnlineTestSubmission s WHERE s.test.id = :testId AND s.student.id = :studentId AND s.id <> :keepId")
+    List<Long> findLaterAttemptIds(@Param("testId") Long testId, @Param("studentId") Long studentId,
+                                   @Param("keepId") Long keepId);
+
+    @Query("SELECT COALESCE(MAX(s.id), 0) FROM OnlineTestSubmission s WHERE s.test.id = :testId")
+    Long findMaxIdByTestId(@Param("testId") Long testId);
+
+    long countByTestId(Long testId);
+
+    boolean existsByTestIdAndStudentId(Long testId, Long studentId);
+
+    // [studentId, score] of every submission to a test, earliest first
+    @Query("SELECT s.student.id, s.score FROM OnlineTestSubmission s WHERE s.test.id = :testId ORDER BY s.submittedAt, s.id")
+    List<Object[]> findRankRowsByTestId(@Param("testId") Long testId);
+
+    // [testId, studentId] of stored attempts among the given tests and students
+    @Query("SELECT s.test.id, s.student.id FROM OnlineTestSubmission s "
+            + "WHERE s.test.id IN :testIds AND s.student.id IN :studentIds")
+    List<Object[]> findAttempts(@Param("testIds") Collection<Long> testIds, @Param("studentIds") Collection<Long> studentIds);
 }
 
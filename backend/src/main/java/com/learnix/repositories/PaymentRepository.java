@@ -1,16 +1,25 @@
 package com.learnix.repositories;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.learnix.dto.StudentPaymentView;
 import com.learnix.models.Course;
 import com.learnix.models.Payment;
 import com.learnix.models.Users;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByRazorpayOrderId(String razorpayOrderId);
@@ -21,5 +30,76 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByStatusAndCreatedAtBetween(String status, LocalDateTime start, LocalDateTime end);
     List<Payment> findByStudentAndCourse(Users student, Course course);
     List<Payment> findByStatusAndCreatedAtAfter(String status, LocalDateTime date);
-}
 
+    // Every attempt of a student for a course, locked in id order, so concurrent confirmations of one
+    // order (browser verify, webhook) or of sibling orders run one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.student = :student AND p.course = :course ORDER BY p.id")
+    List<Payment> findAttemptsForUpdate(@Param("student") Users student, @Param("course") Course course);
+
+    // Cancel every other open attempt of the same student and course in one statement
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = 'CANCELLED' WHERE p.student = :student AND p.course = :course "
+            + "AND p.id <> :paymentId AND p.status IN ('PENDING', 'FAILED')")
+    int cancelOtherAttempts(@Param("student") Users student, @Param("course") Course course,
+                            @Param("paymentId") Long paymentId);
+
+    // Status is re-checked in the statement, so a payment confirmed after it was read is never downgraded
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = 'FAILED', "
+            + "p.razorpayPaymentId = COALESCE(:razorpayPaymentId, p.razorpayPaymentId) "
+            + "WHERE p.id = :id AND p.status = 'PENDING'")
+    int failPending(@Param("id") Long id, @Param("razorpayPaymentId") String razorpayPaymentId);
+
+    // [currency (INR when unset), transactions, totalRevenue, yearlyRevenue, monthlyRevenue] of successful payments,
+    // all periods in one pass
+    @Query("SELECT COALESCE(p.currency, 'INR'), COUNT(p), COALESCE(SUM(p.amount), 0.0), "
+            + "COALESCE(SUM(CASE WHEN p.createdAt >= :startOfYear THEN p.amount ELSE 0.0 END), 0.0), "
+            + "COALESCE(SUM(CASE WHEN p.createdAt >= :startOfMonth THEN p.amount ELSE 0.0 END), 0.0) "
+            + "FROM Payment p WHERE p.status = 'SUCCESS' GROUP BY COALESCE(p.currency, 'INR')")
+    List<Object[]> findRevenueByCurrency(@Param("startOfYear") LocalDateTime startOfYear,
+                                         @Param("startOfMonth") LocalDateTime startOfMonth);
+
+    // Next keyset page of PENDING payments created before the cutoff
+    @Query("SELECT p.id FROM Payment p WHERE p.status = 'PENDING' AND p.createdAt < :cutoff AND p.id > :afterId "
+            + "ORDER BY p.id")
+    List<Long> findStalePendingIds(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    // Status is re-checked so a payment confirmed since the page was read is left alone
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = 'EXPIRED' WHERE p.id IN :ids AND p.status = 'PENDING'")
+    int expirePending(@Param("ids") Collection<Long> ids);
+
+    // One page of a course's buyers, newest first: [studentId, name, email, paidAt, amount, razorpayPaymentId]
+    @Query("SELECT s.id, s.name, s.email, p.paidAt, p.amount, p.razorpayPaymentId FROM Payment p JOIN p.student s "
+            + "WHERE p.course.id = :courseId AND p.status = 'SUCCESS' ORDER BY p.paidAt DESC, p.id DESC")
+    List<Object[]> findBuyerRows(@Param("courseId") Long courseId, Pageable pageable);
+
+    // [courseId, buyers, revenue, lastSaleAt] of every course with a successful payment
+    @Query("SELECT p.course.id, COUNT(p), COALESCE(SUM(p.amount), 0.0), MAX(p.paidAt) FROM Payment p "
+            + "WHERE p.status = 'SUCCESS' AND p.course IS NOT NULL GROUP BY p.course.id")
+    List<Object[]> findCourseSalesRows();
+
+    // Payment history of a student: every SUCCESS payment of a course that has one, otherwise the
+    // latest PENDING payment, otherwise the latest FAILED one. The window totals over the
+    // selected rows come back on each row, so the summary costs no extra query.
+    @Query(value = "SELECT r.id AS id, r.amount AS amount, r.currency AS currency, r.status AS status, "
+            + "r.razorpay_payment_id AS transactionId, r.razorpay_order_id AS orderId, "
+            + "r.created_at AS createdAt, r.paid_at AS paidAt, r.course_id AS courseId, "
+            + "r.course_title AS courseTitle, r.course_category AS courseCategory, r.course_price AS coursePrice, "
+            + "COALESCE(SUM(r.amount) OVER (), 0) AS totalAmount, "
+            + "COALESCE(SUM(CASE WHEN r.status = 'SUCCESS' THEN r.amount ELSE 0 END) OVER (), 0) AS paidAmount, "
+            + "COALESCE(SUM(CASE WHEN r.status <> 'SUCCESS' THEN r.amount ELSE 0 END) OVER (), 0) AS pendingAmount "
+            + "FROM (SELECT p.id, p.amount, p.currency, p.status, p.razorpay_payment_id, p.razorpay_order_id, "
+            + "p.created_at, p.paid_at, p.course_id, c.title AS course_title, c.category AS course_category, "
+            + "c.price AS course_price, "
+            + "MAX(CASE WHEN p.status = 'SUCCESS' THEN 1 ELSE 0 END) OVER (PARTITION BY p.course_id) AS has_success, "
+            + "ROW_NUMBER() OVER (PARTITION BY p.course_id "
+            + "ORDER BY CASE WHEN p.status = 'PENDING' THEN 0 ELSE 1 END, p.created_at DESC, p.id DESC) AS rn "
+            + "FROM payment p JOIN course c ON c.id = p.course_id "
+            + "WHERE p.student_id = :studentId AND p.status IN ('SUCCESS', 'PENDING', 'FAILED')) r "
+            + "WHERE (r.has_success = 1 AND r.status = 'SUCCESS') OR (r.has_success = 0 AND r.rn = 1) "
+            + "ORDER BY r.created_at DESC, r.id DESC", nativeQuery = true)
+    List<StudentPaymentView> findPaymentHistory(@Param("studentId") Long studentId);
+}
@@ -0,0 +1,15 @@
+package com.learnix.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.learnix.models.PaymentWebhookEvent;
+
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+    boolean existsByEventId(String eventId);
+    List<PaymentWebhookEvent> findByStatusOrderByIdAsc(String status, Pageable pageable);
+}
@@ -3,15 +3,29 @@ package com.learnix.repositories;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.learnix.models.StudentHelp;
 import com.learnix.models.Users;
 
 @Repository
-public interface StudentHelpRepository extends JpaRepository<StudentHelp, Long> {
+public interface StudentHelpRepository extends JpaRepository<StudentHelp, Long>, JpaSpecificationExecutor<StudentHelp> {
     List<StudentHelp> findByStudent(Users student);
     List<StudentHelp> findAllByOrderByCreatedAtDesc();
     List<StudentHelp> findByStatusOrderByCreatedAtDesc(String status);
+
+    // [status, count] for the queue header, answered from the status index
+    @Query("SELECT h.status, COUNT(h) FROM StudentHelp h GROUP BY h.status")
+    List<Object[]> countByStatus();
+
+    // Upper-case statuses written before they were normalized; rows already upper-case are skipped
+    @Modifying
+    @Transactional
+    @Query("UPDATE StudentHelp h SET h.status = UPPER(h.status) WHERE h.status <> UPPER(h.status)")
+    int upperCaseStatuses();
 }
 
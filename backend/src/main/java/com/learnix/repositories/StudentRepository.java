@@ -1,6 +1,12 @@
 package com.learnix.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.learnix.models.Student;
@@ -9,4 +15,12 @@ import com.learnix.models.Users;
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
     Student findByUser(Users user);
+
+    // Student profile id for a login email, without loading the user or the profile
+    @Query("SELECT s.id FROM Student s WHERE s.user.email = :email AND UPPER(s.user.role) = 'STUDENT'")
+    Optional<Long> findIdByUserEmail(@Param("email") String email);
+
+    // [studentId, name] for a set of student profiles
+    @Query("SELECT s.id, s.user.name FROM Student s WHERE s.id IN :ids")
+    List<Object[]> findNamesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,12 +1,29 @@
 package com.learnix.repositories;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.learnix.dto.UserDirectoryRow;
 import com.learnix.models.Users;
 
 @Repository
 public interface UserRepository extends JpaRepository<Users, Long>, JpaSpecificationExecutor<Users> {
 	Users findByEmail(String email);
+
+    long countByRoleIgnoreCase(String role);
+
+    // Directory listing: same filter as UserSpecification.hasRole + keywordLike, projected to display columns
+    @Query(value = "SELECT new com.learnix.dto.UserDirectoryRow(u.id, u.name, u.email, u.phoneNumber, u.role, "
+            + "u.profilePhoto, u.isApproved, u.createdAt) FROM Users u "
+            + "WHERE LOWER(u.role) = :role AND (:keyword IS NULL OR LOWER(u.name) LIKE :keyword "
+            + "OR LOWER(u.email) LIKE :keyword OR LOWER(u.phoneNumber) LIKE :keyword)",
+            countQuery = "SELECT COUNT(u) FROM Users u "
+            + "WHERE LOWER(u.role) = :role AND (:keyword IS NULL OR LOWER(u.name) LIKE :keyword "
+            + "OR LOWER(u.email) LIKE :keyword OR LOWER(u.phoneNumber) LIKE :keyword)")
+    Page<UserDirectoryRow> findDirectory(@Param("role") String role, @Param("keyword") String keyword, Pageable pageable);
 }
@@ -8,6 +8,8 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,8 +17,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import com.learnix.dto.ArchivedAttendance;
 import com.learnix.models.Announcement;
 import com.learnix.models.Attendance;
+import com.learnix.models.AttendanceSummary;
 import com.learnix.models.Course;
 import com.learnix.models.Enrollment;
 import com.learnix.models.Grade;
@@ -32,6 +36,7 @@ import com.learnix.repositories.CourseRepository;
 import com.learnix.repositories.EnrollmentRepository;
 import com.learnix.repositories.GradeRepository;
 import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.OnlineTestDraftRepository;
 import com.learnix.repositories.OnlineTestSubmissionRepository;
 import com.learnix.repositories.StudentHelpRepository;
 import com.learnix.repositories.StudentRepository;
@@ -99,26 +104,47 @@ public class AdminService {
 
     @Autowired
     private OnlineTestSubmissionRepository onlineTestSubmissionRepository;
+
+    @Autowired
+    private OnlineTestDraftRepository onlineTestDraftRepository;
     
     @Autowired
     private OnlineTestRepository onlineTestRepository;
 
-    // Get all students
-    public ResponseEntity<?> getAllStudents(String search, String sortField, String sortDirection) {
-        try {
-            Specification<Users> baseSpec = SpecificationUtils.and(
-                    UserSpecification.hasRole("STUDENT"),
-                    UserSpecification.keywordLike(search));
+    @Autowired
+    private AttendanceService attendanceService;
 
-            long total = userRepository.count(UserSpecification.hasRole("STUDENT"));
-            List<Users> filtered = userRepository.findAll(
-                    SpecificationUtils.and(baseSpec, UserSpecification.sortBy(sortField, sortDirection)));
-            
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("items", filtered);
-            payload.put("total", total);
-            payload.put("matched", filtered.size());
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ExamPaperCache examPaperCache;
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private ExamDraftService examDraftService;
+
+    @Autowired
+    private EntitlementService entitlementService;
 
+    @Autowired
+    private CourseSalesService courseSalesService;
+
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
+    // Get all students
+    public ResponseEntity<?> getAllStudents(String search, String sortField, String sortDirection, Integer page, Integer size) {
+        try {
+            Map<String, Object> payload = userDirectoryService.getDirectory("STUDENT", search, sortField, sortDirection, page, size);
             return universalResponse("Students fetched successfully", payload, HttpStatus.OK);
         } catch (Exception e) {
         	return universalResponse("Error fetching students: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -126,21 +152,9 @@ public class AdminService {
     }
 
     // Get all teachers
-    public ResponseEntity<?> getAllTeachers(String search, String sortField, String sortDirection) {
+    public ResponseEntity<?> getAllTeachers(String search, String sortField, String sortDirection, Integer page, Integer size) {
         try {
-            Specification<Users> baseSpec = SpecificationUtils.and(
-                    UserSpecification.hasRole("TEACHER"),
-                    UserSpecification.keywordLike(search));
-            
-            long total = userRepository.count(UserSpecification.hasRole("TEACHER"));
-            List<Users> filtered = userRepository.findAll(
-                    SpecificationUtils.and(baseSpec, UserSpecification.sortBy(sortField, sortDirection)));
-            
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("items", filtered);
-            payload.put("total", total);
-            payload.put("matched", filtered.size());
-
+            Map<String, Object> payload = userDirectoryService.getDirectory("TEACHER", search, sortField, sortDirection, page, size);
             return universalResponse("Teachers fetched successfully", payload, HttpStatus.OK);
         } catch (Exception e) {
         	return universalResponse("Error fetching teachers: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -177,6 +191,7 @@ public class AdminService {
                 teacherRecord.setAddress(address.trim());
             }
             teacherRepository.save(teacherRecord);
+            userDirectoryService.evictTotalCount("TEACHER");
 
             return universalResponse("Teacher created successfully", savedTeacher, HttpStatus.CREATED);
         } catch (Exception e) {
@@ -209,13 +224,10 @@ public class AdminService {
                     })
                     .count();
 
-            // Calculate average attendance
-            List<Attendance> allAttendances = attendanceRepository.findAll();
-            long totalPresent = allAttendances.stream()
-                .filter(a -> "PRESENT".equalsIgnoreCase(a.getStatus()))
-                .count();
-            double avgAttendance = allAttendances.isEmpty() ? 0.0 :
-                (totalPresent * 100.0) / allAttendances.size();
+            // Calculate average attendance from the maintained counters (includes archived months)
+            long[] attendanceTotals = attendanceService.getOverallTotals();
+            double avgAttendance = attendanceTotals[0] == 0 ? 0.0 :
+                (attendanceTotals[1] * 100.0) / attendanceTotals[0];
 
             Map<String, Object> stats = new HashMap<>();
             stats.put("totalStudents", totalStudents);
@@ -231,6 +243,7 @@ public class AdminService {
             stats.put("totalRevenue", revenueStats.get("totalRevenue"));
             stats.put("monthlyRevenue", revenueStats.get("monthlyRevenue"));
             stats.put("yearlyRevenue", revenueStats.get("yearlyRevenue"));
+            stats.put("revenueByCurrency", revenueStats.get("revenueByCurrency"));
 
             return universalResponse("Statistics fetched successfully", stats, HttpStatus.OK);
         } catch (Exception e) {
@@ -278,7 +291,10 @@ public class AdminService {
             }
 
             // Calculate attendance trends (monthly average attendance)
-            List<Attendance> allAttendances = attendanceRepository.findAll();
+            // Only the trend window is read from the live table; archived months come from their manifest totals
+            java.time.YearMonth trendStart = currentYearMonth.minusMonths(5);
+            List<Attendance> recentAttendances = attendanceRepository.findByDateGreaterThanEqual(trendStart.atDay(1));
+            Map<String, long[]> archivedTotals = attendanceArchiveService.getMonthlyTotals(trendStart);
             List<Map<String, Object>> attendanceTrends = new ArrayList<>();
             for (int i = 5; i >= 0; i--) {
                 java.time.YearMonth targetYearMonth = currentYearMonth.minusMonths(i);
@@ -286,7 +302,7 @@ public class AdminService {
                 int targetYear = targetYearMonth.getYear();
                 
                 // Filter attendances for this month
-                List<Attendance> monthAttendances = allAttendances.stream()
+                List<Attendance> monthAttendances = recentAttendances.stream()
                     .filter(a -> a.getDate() != null)
                     .filter(a -> {
                         java.time.LocalDate attendanceDate = a.getDate();
@@ -296,11 +312,13 @@ public class AdminService {
                     .collect(Collectors.toList());
                 
                 // Calculate average attendance percentage for this month
+                long[] archived = archivedTotals.getOrDefault(targetYearMonth.toString(), new long[] { 0L, 0L });
+                long monthTotal = monthAttendances.size() + archived[0];
                 long presentCount = monthAttendances.stream()
                     .filter(a -> "PRESENT".equalsIgnoreCase(a.getStatus()))
-                    .count();
-                double attendancePercent = monthAttendances.isEmpty() ? 0.0 :
-                    (presentCount * 100.0) / monthAttendances.size();
+                    .count() + archived[1];
+                double attendancePercent = monthTotal == 0 ? 0.0 :
+                    (presentCount * 100.0) / monthTotal;
                 
                 Map<String, Object> trend = new HashMap<>();
                 trend.put("month", getMonthName(i));
@@ -334,11 +352,9 @@ public class AdminService {
             }
 
             // Calculate overall average attendance
-            long totalPresent = allAttendances.stream()
-                .filter(a -> "PRESENT".equalsIgnoreCase(a.getStatus()))
-                .count();
-            double avgAttendance = allAttendances.isEmpty() ? 0.0 :
-                (totalPresent * 100.0) / allAttendances.size();
+            long[] attendanceTotals = attendanceService.getOverallTotals();
+            double avgAttendance = attendanceTotals[0] == 0 ? 0.0 :
+                (attendanceTotals[1] * 100.0) / attendanceTotals[0];
 
             analytics.put("courseDistribution", courseDistribution);
             analytics.put("enrollmentTrends", enrollmentTrends);
@@ -492,10 +508,13 @@ public class AdminService {
 
             // Step 1: Delete all OnlineTestSubmission records (uses Student entity)
             if (studentRecord != null) {
+                onlineTestDraftRepository.deleteByStudentId(studentRecord.getId());
                 var testSubmissions = onlineTestSubmissionRepository.findByStudent(studentRecord);
                 if (testSubmissions != null && !testSubmissions.isEmpty()) {
                     onlineTestSubmissionRepository.deleteAll(testSubmissions);
                 }
+                leaderboardService.removeStudent(studentRecord.getId());
+                examDraftService.forgetStudent(studentRecord.getId());
             }
 
             // Step 2: Delete all CourseProgress records
@@ -526,12 +545,14 @@ public class AdminService {
             if (enrollments != null && !enrollments.isEmpty()) {
                 enrollmentRepository.deleteAll(enrollments);
             }
+            entitlementService.revokeStudent(student.getId());
 
-            // Step 6: Delete all Attendance records
+            // Step 6: Delete all Attendance records and their counters
             var attendances = attendanceRepository.findByStudent(student);
             if (attendances != null && !attendances.isEmpty()) {
                 attendanceRepository.deleteAll(attendances);
             }
+            attendanceService.deleteSummaries(student);
 
             // Step 7: Delete all Grade records
             var grades = gradeRepository.findByStudent(student);
@@ -546,6 +567,7 @@ public class AdminService {
 
             // Step 9: Finally delete the Users entity
             userRepository.delete(student);
+            userDirectoryService.evictTotalCount("STUDENT");
             
             return universalResponse("Student deleted successfully", null, HttpStatus.OK);
         } catch (Exception e) {
@@ -597,6 +619,10 @@ public class AdminService {
             List<Attendance> attendances = attendanceRepository.findByTeacher(teacher);
             if (attendances != null && !attendances.isEmpty()) {
                 attendanceRepository.deleteAll(attendances);
+                // Counters of the affected students no longer match the raw rows
+                attendanceService.rebuildCounters(attendances.stream()
+                        .map(a -> a.getStudent().getId())
+                        .collect(Collectors.toSet()));
             }
             
             // Step 6: Delete all OnlineTest records and their submissions for this teacher
@@ -611,6 +637,11 @@ public class AdminService {
                         }
                         // Delete the test (which will cascade delete questions)
                         onlineTestRepository.delete(test);
+                        answerKeyCache.evict(test.getId());
+                        examPaperCache.evict(test.getId());
+                        onlineTestDraftRepository.deleteByTestId(test.getId());
+                        itemAnalysisService.deleteForTest(test.getId());
+                        leaderboardService.evict(test.getId());
                     }
                 }
             }
@@ -622,6 +653,7 @@ public class AdminService {
             
             // Step 8: Delete the Users record
             userRepository.delete(teacher);
+            userDirectoryService.evictTotalCount("TEACHER");
             
             return universalResponse("Teacher deleted successfully", null, HttpStatus.OK);
         } catch (Exception e) {
@@ -738,6 +770,7 @@ public class AdminService {
             List<Users> students = userRepository.findAll().stream()
                     .filter(u -> "STUDENT".equalsIgnoreCase(u.getRole()))
                     .collect(Collectors.toList());
+            Map<Long, AttendanceSummary> summaries = attendanceService.getOverallSummaries();
 
             List<Map<String, Object>> performers = students.stream()
                     .map(student -> {
@@ -746,15 +779,10 @@ public class AdminService {
                         performer.put("name", student.getName());
                         performer.put("email", student.getEmail());
                         
-                        // Calculate attendance percentage
-                        List<Attendance> attendances = attendanceRepository.findByStudent(student);
-                        long presentCount = attendances.stream()
-                                .filter(a -> "PRESENT".equalsIgnoreCase(a.getStatus()))
-                                .count();
-                        double attendancePercent = attendances.isEmpty() ? 0.0 :
-                            (presentCount * 100.0) / attendances.size();
+                        // Attendance percentage from the maintained counters
+                        AttendanceSummary summary = summaries.get(student.getId());
                         // Store as Integer to avoid ClassCastException in comparator
-                        performer.put("attendance", (int) Math.round(attendancePercent));
+                        performer.put("attendance", summary != null ? summary.getPercentage() : 0);
                         
                         // Get course name if enrolled
                         List<Enrollment> enrollments = enrollmentRepository.findByStudent(student);
@@ -808,13 +836,8 @@ public class AdminService {
 
             List<Attendance> attendanceList = attendanceRepository.findByStudent(student);
             
-            // Calculate statistics
-            long presentCount = attendanceList.stream()
-                    .filter(a -> "PRESENT".equalsIgnoreCase(a.getStatus()))
-                    .count();
-            long absentCount = attendanceList.size() - presentCount;
-            double attendancePercent = attendanceList.isEmpty() ? 0.0 :
-                    (presentCount * 100.0) / attendanceList.size();
+            // Statistics come from the maintained counters
+            AttendanceSummary summary = attendanceService.getSummary(student);
 
             // Build attendance records with teacher and class info
             List<Map<String, Object>> records = attendanceList.stream()
@@ -864,14 +887,37 @@ public class AdminService {
                         record.put("className", className);
                         return record;
                     })
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            // Archived months are older than anything still live, so they go after the live records
+            ArchivedAttendance archived = attendanceArchiveService.findForStudent(student.getId());
+            archived.getRows().stream()
+                    .sorted((a, b) -> b.getDate().compareTo(a.getDate()))
+                    .forEach(row -> {
+                        Map<String, Object> record = new HashMap<>();
+                        record.put("id", row.getId());
+                        record.put("date", row.getDate().toString());
+                        record.put("status", row.getStatus());
+                        record.put("teacherName", row.getTeacherName() != null ? row.getTeacherName() : "Unknown");
+                        if (row.getSubject() != null && !row.getSubject().trim().isEmpty()) {
+                            record.put("className", row.getSubject());
+                        } else if (row.getCourseTitle() != null) {
+                            record.put("className", row.getCourseTitle());
+                        } else {
+                            record.put("className", "General");
+                        }
+                        records.add(record);
+                    });
 
             Map<String, Object> data = new HashMap<>();
             data.put("records", records);
-            data.put("total", attendanceList.size());
-            data.put("present", presentCount);
-            data.put("absent", absentCount);
-            data.put("attendancePercent", Math.round(attendancePercent));
+            data.put("total", summary.getTotalCount());
+            data.put("present", summary.getPresentCount());
+            data.put("absent", summary.getAbsentCount());
+            data.put("attendancePercent", summary.getPercentage());
+            // Some archived months could not be read, so the record list is partial
+            data.put("incomplete", !archived.isComplete());
+            data.put("missingMonths", archived.getMissingMonths());
 
             return universalResponse("Student attendance fetched successfully", data, HttpStatus.OK);
         } catch (Exception e) {
@@ -887,20 +933,26 @@ public class AdminService {
             	return universalResponse("Student not found", null, HttpStatus.NOT_FOUND);
             }
 
-            List<Attendance> attendanceList = attendanceRepository.findByStudent(student);
-            
-            // Calculate statistics
-            long presentCount = attendanceList.stream()
-                    .filter(a -> "PRESENT".equalsIgnoreCase(a.getStatus()))
-                    .count();
-            double attendancePercent = attendanceList.isEmpty() ? 0.0 :
-                    (presentCount * 100.0) / attendanceList.size();
+            // Primary-key lookups on the maintained counters instead of loading every record
+            AttendanceSummary summary = attendanceService.getSummary(student);
+            List<Map<String, Object>> subjects = attendanceService.getSubjectSummaries(student).stream()
+                    .map(s -> {
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("subject", s.getSubject().isEmpty() ? "General" : s.getSubject());
+                        row.put("total", s.getTotalCount());
+                        row.put("present", s.getPresentCount());
+                        row.put("absent", s.getAbsentCount());
+                        row.put("attendancePercent", s.getPercentage());
+                        return row;
+                    })
+                    .collect(Collectors.toList());
 
             Map<String, Object> data = new HashMap<>();
-            data.put("attendancePercent", Math.round(attendancePercent));
-            data.put("total", attendanceList.size());
-            data.put("present", presentCount);
-            data.put("absent", attendanceList.size() - presentCount);
+            data.put("attendancePercent", summary.getPercentage());
+            data.put("total", summary.getTotalCount());
+            data.put("present", summary.getPresentCount());
+            data.put("absent", summary.getAbsentCount());
+            data.put("subjects", subjects);
 
             return universalResponse("Student attendance summary fetched successfully", data, HttpStatus.OK);
         } catch (Exception e) {
@@ -1342,40 +1394,50 @@ public class AdminService {
         }
     }
 
-    // Get students who bought a specific course
-    public ResponseEntity<?> getCourseBuyers(Long courseId) {
+    // Get students who bought a specific course, newest purchase first. When size is given the
+    // result is paged (and page/size/totalPages are added); without it every buyer is returned.
+    public ResponseEntity<?> getCourseBuyers(Long courseId, Integer page, Integer size) {
         try {
             Optional<Course> courseOpt = courseRepository.findById(courseId);
             if (courseOpt.isEmpty()) {
             	return universalResponse("Course not found", null, HttpStatus.NOT_FOUND);
             }
+            if ((page != null && page < 0) || (size != null && (size < 1 || size > 200))) {
+            	return universalResponse("Page must be >= 0 and size between 1 and 200", null, HttpStatus.BAD_REQUEST);
+            }
 
             Course course = courseOpt.get();
-            List<com.learnix.models.Payment> payments = paymentRepository.findByCourse(course);
-            
-            List<Map<String, Object>> buyers = payments.stream()
-                    .filter(payment -> payment.getStatus() != null && "SUCCESS".equalsIgnoreCase(payment.getStatus()))
-                    .map(payment -> {
+            Pageable pageable = size != null ? PageRequest.of(page != null ? page : 0, size) : Pageable.unpaged();
+            List<Map<String, Object>> buyers = paymentRepository.findBuyerRows(courseId, pageable)
+                    .stream()
+                    .map(row -> {
                         Map<String, Object> buyer = new HashMap<>();
-                        Users student = payment.getStudent();
-                        if (student != null) {
-                            buyer.put("id", student.getId());
-                            buyer.put("name", student.getName());
-                            buyer.put("email", student.getEmail());
-                            buyer.put("rollNumber", "ST00" + student.getId());
-                            buyer.put("paidAt", payment.getPaidAt());
-                            buyer.put("amount", payment.getAmount());
-                            buyer.put("transactionId", payment.getRazorpayPaymentId());
-                        }
+                        buyer.put("id", row[0]);
+                        buyer.put("name", row[1]);
+                        buyer.put("email", row[2]);
+                        buyer.put("rollNumber", "ST00" + row[0]);
+                        buyer.put("paidAt", row[3]);
+                        buyer.put("amount", row[4]);
+                        buyer.put("transactionId", row[5]);
                         return buyer;
                     })
-                    .filter(buyer -> !buyer.isEmpty())
                     .collect(Collectors.toList());
 
+            // Totals come from the maintained aggregates, not from counting payments
+            var sales = courseSalesService.getSales(courseId);
+            long buyerCount = sales.map(s -> s.getBuyers()).orElse(0L);
+
             Map<String, Object> data = new HashMap<>();
             data.put("courseId", course.getId());
             data.put("courseTitle", course.getTitle());
-            data.put("buyerCount", buyers.size());
+            data.put("buyerCount", buyerCount);
+            data.put("revenue", sales.map(s -> s.getRevenue()).orElse(0.0));
+            data.put("lastSaleAt", sales.map(s -> s.getLastSaleAt()).orElse(null));
+            if (pageable.isPaged()) {
+                data.put("page", pageable.getPageNumber());
+                data.put("size", pageable.getPageSize());
+                data.put("totalPages", (buyerCount + size - 1) / size);
+            }
             data.put("buyers", buyers);
 
             return universalResponse("Course buyers fetched successfully", data, HttpStatus.OK);
@@ -1424,14 +1486,7 @@ public class AdminService {
     
     private Map<String, Object> buildPaymentStatistics(List<Map<String, Object>> paymentRecords) {
     	long totalCourses = courseRepository.count();
-        long soldCourses = paymentRecords.stream()
-                .map(record -> safeMap(record.get("course")))
-                .filter(course -> course != null)
-                .map(course -> course.get("id"))
-                .filter(id -> id instanceof Long)
-                .map(id -> (Long) id)
-                .distinct()
-                .count();
+        long soldCourses = courseSalesService.countSoldCourses();
         
         double totalAmount = paymentRecords.stream()
                 .mapToDouble(record -> {
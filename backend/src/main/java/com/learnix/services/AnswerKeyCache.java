@@ -0,0 +1,215 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+
+// Answer keys of online tests, loaded once per test version so a burst of submissions
+// at closing time grades against memory instead of reloading every question row
+@Component
+public class AnswerKeyCache {
+
+    private static final int MAX_ENTRIES = 500;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    private final Map<Long, AnswerKey> keys = new ConcurrentHashMap<>();
+
+    // Cached key for the test, reloaded when the test was modified since it was built
+    public AnswerKey get(OnlineTest test) {
+        AnswerKey cached = keys.get(test.getId());
+        if (cached != null && cached.isVersion(test.getUpdatedAt())) {
+            return cached;
+        }
+        if (keys.size() >= MAX_ENTRIES) {
+            evictClosed();
+        }
+        // Loaded outside the map so a slow query never holds a map bin lock; concurrent misses may
+        // each load, and merge() keeps whichever key is newer
+        AnswerKey loaded = AnswerKey.of(test, questionRepository.findByTestIdOrderByIdAsc(test.getId()));
+        AnswerKey kept = keys.merge(test.getId(), loaded, (current, candidate) -> current.isNewerThan(candidate) ? current : candidate);
+        return kept.isVersion(test.getUpdatedAt()) ? kept : loaded;
+    }
+
+    // Key by id alone for hot paths that do not load the test (autosave, queued submit); null if the
+    // test does not exist. The cached key is checked against the test's updatedAt with one
+    // single-column lookup, so edits are picked up without loading the test or its questions.
+    public AnswerKey get(Long testId) {
+        AnswerKey cached = keys.get(testId);
+        if (cached != null) {
+            List<Object[]> rows = onlineTestRepository.findVersionRowsById(testId);
+            if (rows.isEmpty()) {
+                keys.remove(testId);
+                return null;
+            }
+            if (cached.isVersion((LocalDateTime) rows.get(0)[1])) {
+                return cached;
+            }
+        }
+        return onlineTestRepository.findById(testId).map(test -> get(test)).orElse(null);
+    }
+
+    // Key for autosave, which only needs the question ids and the exam window. Every change to a
+    // running test (answer-key fix, closing, deletion) evicts its key, so a cached key is used
+    // without the version lookup; a miss loads it like get(Long).
+    public AnswerKey getCached(Long testId) {
+        AnswerKey cached = keys.get(testId);
+        return cached != null ? cached : get(testId);
+    }
+
+    public void evict(Long testId) {
+        if (testId != null) {
+            keys.remove(testId);
+        }
+    }
+
+    // Tests past their end time no longer take submissions
+    private void evictClosed() {
+        LocalDateTime now = LocalDateTime.now();
+        keys.values().removeIf(key -> key.endTime != null && key.endTime.isBefore(now));
+        if (keys.size() >= MAX_ENTRIES) {
+            keys.clear();
+        }
+    }
+
+    // Immutable answer key: question ids in ascending order with the correct option of each
+    // stored as a byte (0..3 for A..D)
+    public static final class AnswerKey {
+        public static final byte NO_ANSWER = -1;
+        private static final String[] OPTIONS = { "A", "B", "C", "D" };
+
+        private final long[] questionIds;
+        private final byte[] correct;
+        private final LocalDateTime version;
+        private final boolean published;
+        private final int maxMarks;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+
+        private AnswerKey(long[] questionIds, byte[] correct, LocalDateTime version, boolean published,
+                int maxMarks, LocalDateTime startTime, LocalDateTime endTime) {
+            this.questionIds = questionIds;
+            this.correct = correct;
+            this.version = version;
+            this.published = published;
+            this.maxMarks = maxMarks;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        static AnswerKey of(OnlineTest test, List<OnlineTestQuestion> questions) {
+            long[] ids = new long[questions.size()];
+            byte[] correct = new byte[questions.size()];
+            for (int i = 0; i < questions.size(); i++) {
+                OnlineTestQuestion question = questions.get(i);
+                ids[i] = question.getId();
+                correct[i] = optionIndex(question.getCorrectOption());
+            }
+            return new AnswerKey(ids, correct, columnPrecision(test.getUpdatedAt()),
+                    Boolean.TRUE.equals(test.getPublished()) && !Boolean.TRUE.equals(test.getClosed()),
+                    test.getMaxMarks() != null ? test.getMaxMarks() : 0, test.getStartTime(), test.getEndTime());
+        }
+
+        // Same window as OnlineTestService.isTestCurrentlyActive; no schedule means always open
+        public boolean isOpen(LocalDateTime now) {
+            if (!published) {
+                return false;
+            }
+            if (startTime == null || endTime == null) {
+                return true;
+            }
+            return !now.isBefore(startTime) && now.isBefore(endTime);
+        }
+
+        public int getMaxMarks() {
+            return maxMarks;
+        }
+
+        public int size() {
+            return questionIds.length;
+        }
+
+        public long questionId(int index) {
+            return questionIds[index];
+        }
+
+        // Position of the question in this key, or -1 if it does not belong to the test
+        public int indexOf(Long questionId) {
+            return questionId == null ? -1 : Arrays.binarySearch(questionIds, questionId);
+        }
+
+        public boolean isCorrect(int index, byte selected) {
+            return selected != NO_ANSWER && correct[index] == selected;
+        }
+
+        public String correctOption(int index) {
+            return optionLetter(correct[index]);
+        }
+
+        // Number of correct answers in a selection array laid out like this key
+        public int countCorrect(byte[] selected) {
+            int count = 0;
+            for (int i = 0; i < correct.length; i++) {
+                if (selected[i] != NO_ANSWER && selected[i] == correct[i]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // Selection array with every question unanswered
+        public byte[] emptySelection() {
+            byte[] selected = new byte[questionIds.length];
+            Arrays.fill(selected, NO_ANSWER);
+            return selected;
+        }
+
+        boolean isVersion(LocalDateTime updatedAt) {
+            return Objects.equals(version, columnPrecision(updatedAt));
+        }
+
+        // updatedAt is stored with microseconds; a just-saved entity still holds nanoseconds and
+        // must not look like a different version than the same row read back. The database rounds
+        // the fraction (H2, and MySQL by default), so the key rounds it the same way.
+        private static LocalDateTime columnPrecision(LocalDateTime updatedAt) {
+            return updatedAt != null ? updatedAt.plusNanos(500).truncatedTo(ChronoUnit.MICROS) : null;
+        }
+
+        boolean isNewerThan(AnswerKey other) {
+            return version != null && (other.version == null || version.isAfter(other.version));
+        }
+
+        // "A".."D" (any case, surrounding spaces ignored) to 0..3, anything else to NO_ANSWER
+        public static byte optionIndex(String option) {
+            if (option == null) {
+                return NO_ANSWER;
+            }
+            String trimmed = option.trim();
+            if (trimmed.length() != 1) {
+                return NO_ANSWER;
+            }
+            char c = Character.toUpperCase(trimmed.charAt(0));
+            return c >= 'A' && c <= 'D' ? (byte) (c - 'A') : NO_ANSWER;
+        }
+
+        public static String optionLetter(byte index) {
+            return index >= 0 && index < OPTIONS.length ? OPTIONS[index] : "";
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.learnix.services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.dto.ArchivedAttendance;
+import com.learnix.dto.ArchivedAttendanceRow;
+import com.learnix.models.Attendance;
+import com.learnix.models.AttendanceArchive;
+import com.learnix.models.AttendanceArchiveBlock;
+import com.learnix.repositories.AttendanceArchiveBlockRepository;
+import com.learnix.repositories.AttendanceArchiveRepository;
+import com.learnix.repositories.AttendanceRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Moves closed months of attendance out of the live table into one gzip file per month.
+// The live table then only holds the last few months, so marking and per-class reads stay
+// on a small index; archived months are still readable through this service, per student
+// through the AttendanceArchiveBlock index. The files are the only copy of archived rows, so
+// attendance.archive.dir must be an absolute path on persistent storage when enabled.
+@Service
+public class AttendanceArchiveService {
+
+    // Blocks are per (student, subject); reads merge them back into per-student date order
+    private static final Comparator<ArchivedAttendanceRow> ROW_ORDER = Comparator
+            .comparing(ArchivedAttendanceRow::getStudentId)
+            .thenComparing(ArchivedAttendanceRow::getDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ArchivedAttendanceRow::getId);
+
+    private static final String HEADER = "id\tstudentId\tteacherId\tteacherName\tcourseTitle\tdate\tstatus\tsubject";
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceArchiveRepository attendanceArchiveRepository;
+
+    @Autowired
+    private AttendanceArchiveBlockRepository attendanceArchiveBlockRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${attendance.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${attendance.archive.hot-months:12}")
+    private int hotMonths;
+
+    @Value("${attendance.archive.dir:}")
+    private String archiveDir;
+
+    @PostConstruct
+    public void checkArchiveDir() {
+        if (enabled && (archiveDir.isBlank() || !Paths.get(archiveDir).isAbsolute())) {
+            throw new IllegalStateException("attendance.archive.dir must be an absolute path on persistent storage "
+                    + "when attendance.archive.enabled=true, got '" + archiveDir + "'");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // First month that stays in the live table (current month counts as one)
+    public YearMonth getHotFrom() {
+        return YearMonth.now().minusMonths(Math.max(hotMonths, 1) - 1L);
+    }
+
+    // Archives every month older than the hot window, oldest first, one transaction per month
+    public int archiveClosedMonths() {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDate cutoff = getHotFrom().atDay(1);
+        int archived = 0;
+        Optional<Attendance> oldest;
+        while ((oldest = attendanceRepository.findFirstByDateBeforeOrderByDateAsc(cutoff)).isPresent()) {
+            YearMonth month = YearMonth.from(oldest.get().getDate());
+            transactionTemplate.executeWithoutResult(status -> archiveMonth(month));
+            archived++;
+        }
+        return archived;
+    }
+
+    // Archived rows of one student, oldest month first
+    public ArchivedAttendance findForStudent(Long studentId) {
+        return findForStudents(List.of(studentId));
+    }
+
+    // Only the blocks of the given students are inflated; months where none of them has rows
+    // are skipped. Rows come back by month, then student, then date.
+    public ArchivedAttendance findForStudents(Collection<Long> studentIds) {
+        Map<String, List<AttendanceArchiveBlock>> blocksByMonth = attendanceArchiveBlockRepository
+                .findByStudentIdInOrderByMonthAscStudentIdAscSubjectAsc(new HashSet<>(studentIds)).stream()
+                .collect(Collectors.groupingBy(AttendanceArchiveBlock::getMonth, LinkedHashMap::new, Collectors.toList()));
+
+        List<ArchivedAttendanceRow> rows = new ArrayList<>();
+        List<String> missingMonths = new ArrayList<>();
+        for (AttendanceArchive archive : attendanceArchiveRepository.findAllByOrderByMonthAsc()) {
+            List<AttendanceArchiveBlock> blocks = blocksByMonth.get(archive.getMonth());
+            if (blocks == null) continue;
+            List<ArchivedAttendanceRow> monthRows = new ArrayList<>();
+            if (!readBlocks(archive.getMonth(), resolve(archive.getFileName()), blocks, monthRows::add)) {
+                missingMonths.add(archive.getMonth());
+            }
+            monthRows.sort(ROW_ORDER);
+            rows.addAll(monthRows);
+        }
+        return new ArchivedAttendance(rows, missingMonths);
+    }
+
+    // studentId -> subject -> {total, present} over every archived month, summed from the block
+    // index without reading any file; null means every student
+    public Map<Long, Map<String, long[]>> getStudentTotals(Collection<Long> studentIds) {
+        List<Object[]> sums = studentIds == null
+                ? attendanceArchiveBlockRepository.sumByStudentAndSubject()
+                : attendanceArchiveBlockRepository.sumByStudentAndSubject(studentIds);
+        Map<Long, Map<String, long[]>> totals = new HashMap<>();
+        for (Object[] row : sums) {
+            totals.computeIfAbsent((Long) row[0], id -> new HashMap<>()).put((String) row[1], new long[] {
+                    row[2] != null ? ((Number) row[2]).longValue() : 0L,
+                    row[3] != null ? ((Number) row[3]).longValue() : 0L });
+        }
+        return totals;
+    }
+
+    // month (yyyy-MM) -> {total, present} for archived months from the given one onwards
+    public Map<String, long[]> getMonthlyTotals(YearMonth from) {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (AttendanceArchive archive : attendanceArchiveRepository.findByMonthGreaterThanEqualOrderByMonthAsc(from.toString())) {
+            totals.put(archive.getMonth(), new long[] {
+                    archive.getRowCount() != null ? archive.getRowCount() : 0L,
+                    archive.getPresentCount() != null ? archive.getPresentCount() : 0L });
+        }
+        return totals;
+    }
+
+    private void archiveMonth(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.atEndOfMonth();
+        AttendanceArchive archive = attendanceArchiveRepository.findByMonth(month.toString())
+                .orElseGet(() -> AttendanceArchive.builder()
+                        .month(month.toString())
+                        .fileName("attendance-" + month + ".tsv.gz")
+                        .build());
+
+        // Rows already in the file (a previous run for this month) are kept, live rows win on id
+        Map<Long, ArchivedAttendanceRow> rows = new LinkedHashMap<>();
+        Path target = resolve(archive.getFileName());
+        if (archive.getId() != null && !readFile(archive.getMonth(), target, row -> rows.put(row.getId(), row))) {
+            // Rewriting now would drop the rows only the lost file held
+            throw new IllegalStateException("Attendance archive for " + month + " is missing, not re-archiving it");
+        }
+        for (Attendance attendance : attendanceRepository.findByDateBetween(from, to)) {
+            rows.put(attendance.getId(), toRow(attendance));
+        }
+
+        long present = rows.values().stream().filter(r -> "PRESENT".equalsIgnoreCase(r.getStatus())).count();
+        List<AttendanceArchiveBlock> blocks = writeFile(target, rows.values());
+
+        archive.setRowCount((long) rows.size());
+        archive.setPresentCount(present);
+        archive.setArchivedAt(LocalDateTime.now());
+        attendanceArchiveRepository.save(archive);
+        attendanceArchiveBlockRepository.deleteByMonth(month.toString());
+        blocks.forEach(block -> block.setMonth(month.toString()));
+        attendanceArchiveBlockRepository.saveAll(blocks);
+        attendanceRepository.deleteByDateBetween(from, to);
+    }
+
+    private ArchivedAttendanceRow toRow(Attendance attendance) {
+        return new ArchivedAttendanceRow(
+                attendance.getId(),
+                attendance.getStudent().getId(),
+                attendance.getTeacher() != null ? attendance.getTeacher().getId() : null,
+                attendance.getTeacher() != null ? attendance.getTeacher().getName() : null,
+                attendance.getCourse() != null ? attendance.getCourse().getTitle() : null,
+                attendance.getDate(),
+                attendance.getStatus(),
+                attendance.getSubject());
+    }
+
+    // Written to a temp file first so a crash never leaves a half-written archive behind.
+    // The header is one gzip member and every (student, subject)'s rows (by date) another, so
+    // the file still reads as one stream while each block can be inflated on its own. Each
+    // block carries its totals, which is all the counter rebuild needs.
+    private List<AttendanceArchiveBlock> writeFile(Path target, Collection<ArchivedAttendanceRow> rows) {
+        Map<Long, TreeMap<String, List<ArchivedAttendanceRow>>> byStudent = rows.stream()
+                .sorted(Comparator.comparing(ArchivedAttendanceRow::getDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(ArchivedAttendanceRow::getId))
+                .collect(Collectors.groupingBy(ArchivedAttendanceRow::getStudentId, TreeMap::new,
+                        Collectors.groupingBy(row -> subjectKey(row.getSubject()), TreeMap::new, Collectors.toList())));
+        List<AttendanceArchiveBlock> blocks = new ArrayList<>();
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                long offset = writeMember(out, List.of(HEADER));
+                for (Map.Entry<Long, TreeMap<String, List<ArchivedAttendanceRow>>> student : byStudent.entrySet()) {
+                    for (Map.Entry<String, List<ArchivedAttendanceRow>> subject : student.getValue().entrySet()) {
+                        offset += writeBlock(out, student.getKey(), subject.getKey(), subject.getValue(), offset, blocks);
+                    }
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write attendance archive " + target, e);
+        }
+        return blocks;
+    }
+
+    // One block's gzip member at the given offset; returns its compressed length
+    private long writeBlock(OutputStream out, Long studentId, String subject, List<ArchivedAttendanceRow> rows,
+            long offset, List<AttendanceArchiveBlock> blocks) throws IOException {
+        List<String> lines = new ArrayList<>(rows.size());
+        long present = 0;
+        for (ArchivedAttendanceRow row : rows) {
+            lines.add(String.join("\t",
+                    escape(row.getId()),
+                    escape(row.getStudentId()),
+                    escape(row.getTeacherId()),
+                    escape(row.getTeacherName()),
+                    escape(row.getCourseTitle()),
+                    escape(row.getDate()),
+                    escape(row.getStatus()),
+                    escape(row.getSubject())));
+            if ("PRESENT".equalsIgnoreCase(row.getStatus())) {
+                present++;
+            }
+        }
+        long length = writeMember(out, lines);
+        blocks.add(AttendanceArchiveBlock.builder()
+                .studentId(studentId)
+                .subject(subject)
+                .blockOffset(offset)
+                .blockLength(length)
+                .rowCount((long) lines.size())
+                .presentCount(present)
+                .build());
+        return length;
+    }
+
+    // One gzip member holding the given lines; returns its compressed length
+    private long writeMember(OutputStream out, List<String> lines) throws IOException {
+        ByteArrayOutputStream member = new ByteArrayOutputStream();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(member), StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+        member.writeTo(out);
+        return member.size();
+    }
+
+    // A file listed in the manifest but missing on disk is reported, not skipped silently;
+    // returns false so the caller can flag its result as incomplete
+    private boolean readFile(String month, Path file, Consumer<ArchivedAttendanceRow> consumer) {
+        if (!Files.exists(file)) {
+            System.err.println("ERROR: attendance archive for " + month + " is missing: " + file);
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            readLines(in, true, consumer);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read attendance archive " + file, e);
+        }
+    }
+
+    // Inflates only the listed blocks, seeking to each one
+    private boolean readBlocks(String month, Path file, List<AttendanceArchiveBlock> blocks,
+            Consumer<ArchivedAttendanceRow> consumer) {
+        if (!Files.exists(file)) {
+            System.err.println("ERROR: attendance archive for " + month + " is missing: " + file);
+            return false;
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            for (AttendanceArchiveBlock block : blocks) {
+                ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(block.getBlockLength()));
+                channel.position(block.getBlockOffset());
+                while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    // keep reading until the block is complete
+                }
+                readLines(new ByteArrayInputStream(buffer.array(), 0, buffer.position()), false, consumer);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("ERROR: attendance archive for " + month + " is unreadable: " + file + " (" + e.getMessage() + ")");
+            return false;
+        }
+    }
+
+    private void readLines(InputStream in, boolean skipHeader, Consumer<ArchivedAttendanceRow> consumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8));
+        String line;
+        if (skipHeader) {
+            reader.readLine();
+        }
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) continue;
+            String[] f = line.split("\t", -1);
+            String teacherId = unescape(f[2]);
+            String date = unescape(f[5]);
+            consumer.accept(new ArchivedAttendanceRow(
+                    Long.valueOf(unescape(f[0])),
+                    Long.valueOf(unescape(f[1])),
+                    teacherId != null ? Long.valueOf(teacherId) : null,
+                    unescape(f[3]),
+                    unescape(f[4]),
+                    date != null ? LocalDate.parse(date) : null,
+                    unescape(f[6]),
+                    unescape(f[7])));
+        }
+    }
+
+    private Path resolve(String fileName) {
+        Path dir = Paths.get(archiveDir);
+        if (!dir.isAbsolute()) {
+            throw new IllegalStateException("attendance.archive.dir is not an absolute path: '" + archiveDir + "'");
+        }
+        return dir.resolve(fileName);
+    }
+
+    // Same key as the attendance counters use
+    private String subjectKey(String subject) {
+        return subject != null ? subject.trim() : "";
+    }
+
+    // \N marks null; backslash, tab and newline are escaped so each record stays on one line
+    private String escape(Object value) {
+        if (value == null) {
+            return "\\N";
+        }
+        return value.toString().replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private String unescape(String value) {
+        if ("\\N".equals(value)) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,409 @@
+package com.learnix.services;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.dto.AttendanceDTO.AttendanceEntry;
+import com.learnix.models.Attendance;
+import com.learnix.models.AttendanceSummary;
+import com.learnix.models.Users;
+import com.learnix.repositories.AttendanceRepository;
+import com.learnix.repositories.AttendanceSummaryRepository;
+import com.learnix.repositories.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+
+@Service
+public class AttendanceService {
+
+    private static final int REBUILD_CHUNK = 500;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceSummaryRepository attendanceSummaryRepository;
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Counter rows for first-seen students are inserted in their own transaction
+    private TransactionTemplate newTransaction;
+
+    // Marking holds the read lock, counter rebuilds the write lock
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Upsert a whole class for one (date, subject) in a single transaction.
+    // Students are resolved with one query, existing rows with another, and all
+    // inserts/updates go out as one JDBC batch (see hibernate.jdbc.batch_size).
+    // Returns the students whose status became ABSENT so the caller can notify them;
+    // resubmitting the same sheet returns an empty list.
+    public List<Users> recordAttendance(Users teacher, String subject, LocalDate date, List<AttendanceEntry> entries) {
+        // Held until the commit so a counter rebuild never recounts between the row write and its delta
+        rebuildLock.readLock().lock();
+        try {
+            return transactionTemplate.execute(status -> upsertSheet(teacher, subject, date, entries));
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private List<Users> upsertSheet(Users teacher, String subject, LocalDate date, List<AttendanceEntry> entries) {
+        // A missing subject is stored as "" so the unique key also covers it (NULLs never collide)
+        subject = subjectKey(subject);
+        // Last entry wins if a student appears twice in the same request
+        Map<Long, String> statusByStudent = new LinkedHashMap<>();
+        if (entries != null) {
+            for (AttendanceEntry entry : entries) {
+                if (entry == null || entry.getStudentId() == null) continue;
+                String status = "PRESENT".equalsIgnoreCase(entry.getStatus()) ? "PRESENT" : "ABSENT";
+                statusByStudent.put(entry.getStudentId(), status);
+            }
+        }
+        if (statusByStudent.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Users> students = userRepository.findAllById(statusByStudent.keySet()).stream()
+                .collect(Collectors.toMap(Users::getId, Function.identity()));
+        if (students.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Attendance> existing = attendanceRepository
+                .findByDateAndSubjectAndStudentIdIn(date, subject, students.keySet()).stream()
+                .collect(Collectors.toMap(a -> a.getStudent().getId(), Function.identity(), (a, b) -> a));
+
+        List<Attendance> toSave = new ArrayList<>();
+        List<Users> newlyAbsent = new ArrayList<>();
+        // studentId -> {totalDelta, presentDelta}
+        Map<Long, long[]> counterDeltas = new HashMap<>();
+
+        for (Map.Entry<Long, String> entry : statusByStudent.entrySet()) {
+            Users student = students.get(entry.getKey());
+            if (student == null) continue;
+
+            String status = entry.getValue();
+            boolean present = "PRESENT".equals(status);
+            Attendance attendance = existing.get(student.getId());
+
+            if (attendance == null) {
+                attendance = Attendance.builder()
+                        .student(student)
+                        .course(null)  // TODO: Link course when available
+                        .teacher(teacher)
+                        .date(date)
+                        .status(status)
+                        .subject(subject)
+                        .build();
+                counterDeltas.put(student.getId(), new long[] { 1, present ? 1 : 0 });
+            } else if (status.equalsIgnoreCase(attendance.getStatus())) {
+                // Same mark as before, nothing to write
+                continue;
+            } else {
+                attendance.setStatus(status);
+                attendance.setTeacher(teacher);
+                counterDeltas.put(student.getId(), new long[] { 0, present ? 1 : -1 });
+            }
+
+            if (!present) {
+                newlyAbsent.add(student);
+            }
+            toSave.add(attendance);
+        }
+
+        if (!toSave.isEmpty()) {
+            attendanceRepository.saveAll(toSave);
+            applyCounterDeltas(subject, counterDeltas, students);
+        }
+        return newlyAbsent;
+    }
+
+    // Overall counters for a student; an empty summary if nothing was recorded yet
+    public AttendanceSummary getSummary(Users student) {
+        return attendanceSummaryRepository.findByStudentIdAndSubject(student.getId(), AttendanceSummary.ALL_SUBJECTS)
+                .orElseGet(() -> AttendanceSummary.builder()
+                        .student(student)
+                        .subject(AttendanceSummary.ALL_SUBJECTS)
+                        .build());
+    }
+
+    public List<AttendanceSummary> getSubjectSummaries(Users student) {
+        return attendanceSummaryRepository.findByStudentIdAndSubjectNotOrderBySubjectAsc(
+                student.getId(), AttendanceSummary.ALL_SUBJECTS);
+    }
+
+    // studentId -> overall counters, for listings that rank many students at once
+    public Map<Long, AttendanceSummary> getOverallSummaries() {
+        return attendanceSummaryRepository.findBySubject(AttendanceSummary.ALL_SUBJECTS).stream()
+                .collect(Collectors.toMap(s -> s.getStudent().getId(), Function.identity(), (a, b) -> a));
+    }
+
+    // {total, present} across all students, for institute-wide averages
+    public long[] getOverallTotals() {
+        List<Object[]> rows = attendanceSummaryRepository.sumBySubject(AttendanceSummary.ALL_SUBJECTS);
+        if (rows.isEmpty() || rows.get(0) == null) {
+            return new long[] { 0L, 0L };
+        }
+        Object[] row = rows.get(0);
+        return new long[] {
+                row[0] != null ? ((Number) row[0]).longValue() : 0L,
+                row[1] != null ? ((Number) row[1]).longValue() : 0L };
+    }
+
+    public void deleteSummaries(Users student) {
+        rebuildLock.writeLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    attendanceSummaryRepository.deleteByStudentIdIn(List.of(student.getId())));
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    // Reconciliation: recompute every counter from the raw Attendance rows plus the archived
+    // months (rows of students deleted since archiving are skipped). Students are rebuilt in
+    // chunks, each under the write lock, so marking only waits for one chunk at a time and
+    // never sees a half-rebuilt student. The archive job runs on the same scheduler thread,
+    // so no month moves into the archive while the nightly rebuild runs.
+    public int rebuildCounters() {
+        Map<Long, Map<String, long[]>> archived = archivedCounts(null);
+        Set<Long> studentIds = new TreeSet<>(attendanceRepository.findStudentIds());
+        studentIds.addAll(archived.keySet());
+        studentIds.addAll(attendanceSummaryRepository.findStudentIds());
+
+        List<Long> ids = new ArrayList<>(studentIds);
+        int rows = 0;
+        for (int from = 0; from < ids.size(); from += REBUILD_CHUNK) {
+            rows += rebuildChunk(ids.subList(from, Math.min(from + REBUILD_CHUNK, ids.size())), archived);
+        }
+        return rows;
+    }
+
+    // Rebuild only the given students, e.g. after rows of a deleted teacher were removed
+    public int rebuildCounters(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return 0;
+        }
+        Set<Long> ids = new TreeSet<>(studentIds);
+        return rebuildChunk(new ArrayList<>(ids), archivedCounts(ids));
+    }
+
+    private int rebuildChunk(List<Long> studentIds, Map<Long, Map<String, long[]>> archived) {
+        rebuildLock.writeLock().lock();
+        try {
+            return transactionTemplate.execute(status -> {
+                attendanceSummaryRepository.deleteByStudentIdIn(studentIds);
+
+                Map<String, AttendanceSummary> rebuilt = new LinkedHashMap<>();
+                for (Object[] row : attendanceRepository.countByStudentAndSubject(studentIds)) {
+                    long total = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+                    long present = row[3] != null ? ((Number) row[3]).longValue() : 0L;
+                    accumulate(rebuilt, (Long) row[0], (String) row[1], total, present);
+                }
+                for (Long studentId : studentIds) {
+                    archived.getOrDefault(studentId, Map.of()).forEach((subject, counts) ->
+                            accumulate(rebuilt, studentId, subject, counts[0], counts[1]));
+                }
+
+                Set<Long> existing = userRepository.findAllById(studentIds).stream()
+                        .map(Users::getId)
+                        .collect(Collectors.toSet());
+                List<AttendanceSummary> toSave = rebuilt.values().stream()
+                        .filter(s -> existing.contains(s.getStudent().getId()))
+                        .collect(Collectors.toList());
+                attendanceSummaryRepository.saveAll(toSave);
+                return toSave.size();
+            });
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    // studentId -> subject -> {total, present} over the archived months; null means every student.
+    // Summed from the archive's block index, so the nightly rebuild never inflates archive files.
+    private Map<Long, Map<String, long[]>> archivedCounts(Set<Long> studentIds) {
+        return attendanceArchiveService.getStudentTotals(studentIds);
+    }
+
+    // Legacy rows from before the unique (student_id, date, subject) key: NULL subjects become ""
+    // and only the newest row of each slot is kept. ddl-auto=update never tightens an existing
+    // column, so NOT NULL and the key are applied here; once both exist the clean-up is skipped.
+    // Counters are rebuilt when rows were removed.
+    public int removeDuplicateRows() {
+        if (legacyCleanupDone()) {
+            return 0;
+        }
+        int removed = transactionTemplate.execute(status -> {
+            attendanceRepository.fillMissingSubjects();
+            int deleted = 0;
+            for (Object[] slot : attendanceRepository.findDuplicateSlots()) {
+                deleted += attendanceRepository.deleteDuplicates((Long) slot[0], (LocalDate) slot[1], (String) slot[2], (Long) slot[3]);
+            }
+            return deleted;
+        });
+        // DDL commits implicitly on MySQL, so it runs after the clean-up has committed
+        jdbcTemplate.execute("ALTER TABLE attendance MODIFY subject VARCHAR(255) NOT NULL");
+        if (!jdbcTemplate.execute((ConnectionCallback<Boolean>) this::hasSlotKey)) {
+            jdbcTemplate.execute("ALTER TABLE attendance ADD CONSTRAINT uk_attendance_student_date_subject "
+                    + "UNIQUE (student_id, date, subject)");
+        }
+        if (removed > 0) {
+            rebuildCounters();
+        }
+        return removed;
+    }
+
+    private boolean legacyCleanupDone() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            try (ResultSet column = con.getMetaData().getColumns(con.getCatalog(), con.getSchema(), "attendance", "subject")) {
+                if (!column.next() || column.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls) {
+                    return false;
+                }
+            }
+            return hasSlotKey(con);
+        });
+    }
+
+    // Any unique index over exactly (student_id, date, subject), whatever the database named it
+    private boolean hasSlotKey(Connection con) throws SQLException {
+        Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+        try (ResultSet index = con.getMetaData().getIndexInfo(con.getCatalog(), con.getSchema(), "attendance", true, false)) {
+            while (index.next()) {
+                if (index.getString("INDEX_NAME") != null && index.getString("COLUMN_NAME") != null) {
+                    uniqueIndexes.computeIfAbsent(index.getString("INDEX_NAME"), k -> new HashSet<>())
+                            .add(index.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return uniqueIndexes.containsValue(Set.of("student_id", "date", "subject"));
+    }
+
+    // First start after the counters were introduced: build them once from existing rows
+    public void rebuildCountersIfMissing() {
+        if (attendanceSummaryRepository.count() == 0 && attendanceRepository.count() > 0) {
+            rebuildCounters();
+        }
+    }
+
+    // Atomic increments per (student, subject) and (student, ALL_SUBJECTS), in student id order
+    // so two sheets sharing students lock the counter rows in the same order
+    private void applyCounterDeltas(String subject, Map<Long, long[]> deltas, Map<Long, Users> students) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        String key = subjectKey(subject);
+        List<String> subjects = List.of(AttendanceSummary.ALL_SUBJECTS, key);
+        ensureCounterRows(deltas.keySet(), subjects, students);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, long[]> delta : new TreeMap<>(deltas).entrySet()) {
+            for (String subjectKey : subjects) {
+                attendanceSummaryRepository.addCounts(delta.getKey(), subjectKey, delta.getValue()[0], delta.getValue()[1], now);
+            }
+        }
+    }
+
+    // Zero rows for counters seen for the first time, committed on their own so the increments
+    // above always find a row. A concurrent sheet may insert the same row first; that is fine.
+    private void ensureCounterRows(Set<Long> studentIds, List<String> subjects, Map<Long, Users> students) {
+        Set<String> present = attendanceSummaryRepository.findByStudentIdInAndSubjectIn(studentIds, subjects).stream()
+                .map(s -> counterKey(s.getStudent().getId(), s.getSubject()))
+                .collect(Collectors.toSet());
+        List<AttendanceSummary> missing = new ArrayList<>();
+        for (Long studentId : studentIds) {
+            for (String subject : subjects) {
+                if (!present.contains(counterKey(studentId, subject))) {
+                    missing.add(newSummary(students.get(studentId), subject));
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> attendanceSummaryRepository.saveAll(missing));
+        } catch (DataIntegrityViolationException e) {
+            for (AttendanceSummary summary : missing) {
+                try {
+                    newTransaction.executeWithoutResult(status -> attendanceSummaryRepository.save(
+                            newSummary(summary.getStudent(), summary.getSubject())));
+                } catch (DataIntegrityViolationException ignored) {
+                    // Inserted by a concurrent sheet
+                }
+            }
+        }
+    }
+
+    private void accumulate(Map<String, AttendanceSummary> summaries, Long studentId, String subject,
+            long total, long present) {
+        String subjectKey = subjectKey(subject);
+        Users student = userRepository.getReferenceById(studentId);
+        summaries.computeIfAbsent(counterKey(studentId, subjectKey), k -> newSummary(student, subjectKey))
+                .add(total, present);
+        summaries.computeIfAbsent(counterKey(studentId, AttendanceSummary.ALL_SUBJECTS),
+                k -> newSummary(student, AttendanceSummary.ALL_SUBJECTS))
+                .add(total, present);
+    }
+
+    private AttendanceSummary newSummary(Users student, String subject) {
+        return AttendanceSummary.builder()
+                .student(student)
+                .subject(subject)
+                .build();
+    }
+
+    // Subjects compare case-insensitively, matching the column collation behind the unique key
+    private String counterKey(Long studentId, String subject) {
+        return studentId + "|" + subject.toLowerCase(Locale.ROOT);
+    }
+
+    private String subjectKey(String subject) {
+        return subject != null ? subject.trim() : "";
+    }
+}
@@ -16,7 +16,6 @@ import com.learnix.models.Users;
 import com.learnix.repositories.CourseContentRepository;
 import com.learnix.repositories.CourseProgressRepository;
 import com.learnix.repositories.CourseRepository;
-import com.learnix.repositories.EnrollmentRepository;
 import com.learnix.repositories.UserRepository;
 import com.learnix.responseWrapper.MyResponseWrapper;
 
@@ -36,7 +35,7 @@ public class CourseProgressService {
     private UserRepository userRepository;
 
     @Autowired
-    private EnrollmentRepository enrollmentRepository;
+    private EntitlementService entitlementService;
 
     @Autowired
     private MyResponseWrapper responseWrapper;
@@ -63,8 +62,7 @@ public class CourseProgressService {
             CourseContent content = contentOpt.get();
 
             // Check if student is enrolled
-            var enrollment = enrollmentRepository.findByStudentAndCourse(student, course);
-            if (enrollment == null || !Boolean.TRUE.equals(enrollment.getIsPaid())) {
+            if (!entitlementService.hasAccess(student.getId(), course.getId())) {
                 return universalResponse("Student is not enrolled in this course", null, HttpStatus.FORBIDDEN);
             }
 
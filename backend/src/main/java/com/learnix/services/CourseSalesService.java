@@ -0,0 +1,97 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.models.CourseSales;
+import com.learnix.repositories.CourseSalesRepository;
+import com.learnix.repositories.PaymentRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Per-course sales aggregates (buyers, revenue, last sale), maintained by confirmPayment.
+@Service
+public class CourseSalesService {
+
+    @Autowired
+    private CourseSalesRepository salesRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Called inside the payment transaction, so the sale only counts if the payment commits
+    public void recordSale(Long courseId, Double amount, LocalDateTime paidAt) {
+        if (courseId == null) {
+            return;
+        }
+        ensureRow(courseId);
+        salesRepository.recordSale(courseId, amount != null ? amount : 0.0,
+                paidAt != null ? paidAt : LocalDateTime.now());
+    }
+
+    public Optional<CourseSales> getSales(Long courseId) {
+        return salesRepository.findById(courseId);
+    }
+
+    public long countSoldCourses() {
+        return salesRepository.countByBuyersGreaterThan(0);
+    }
+
+    // Payments of a deleted course are detached, so its totals go with it
+    public void deleteForCourse(Long courseId) {
+        if (salesRepository.existsById(courseId)) {
+            salesRepository.deleteById(courseId);
+        }
+    }
+
+    // Fill the aggregates from successful payments on the first start after they were introduced
+    public int backfillIfEmpty() {
+        if (salesRepository.count() > 0) {
+            return 0;
+        }
+        List<CourseSales> rows = new ArrayList<>();
+        for (Object[] row : paymentRepository.findCourseSalesRows()) {
+            rows.add(CourseSales.builder()
+                    .courseId((Long) row[0])
+                    .buyers(((Number) row[1]).longValue())
+                    .revenue(((Number) row[2]).doubleValue())
+                    .lastSaleAt((LocalDateTime) row[3])
+                    .build());
+        }
+        salesRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    // Zero row created in its own transaction; a concurrent first sale of the same course may win the insert.
+    // confirmPayment calls it before taking its locks, recordSale only finds the row there.
+    public void ensureRow(Long courseId) {
+        if (salesRepository.existsById(courseId)) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> salesRepository.insertZeroRow(courseId));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently; recordSale updates that row
+        }
+    }
+}
@@ -37,6 +37,12 @@ public class CourseService {
     @Autowired
     private CourseContentRepository courseContentRepository;
 
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @Autowired
+    private CourseSalesService courseSalesService;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -157,6 +163,8 @@ public class CourseService {
             if (!enrollments.isEmpty()) {
                 enrollmentRepository.deleteAll(enrollments);
             }
+            entitlementService.revokeCourse(course.getId());
+            courseSalesService.deleteForCourse(course.getId());
 
             // Detach payments to preserve revenue history
             var payments = paymentRepository.findByCourse(course);
@@ -246,10 +254,8 @@ public class CourseService {
         if (studentEmail != null) {
             var studentOpt = userRepository.findByEmail(studentEmail);
             if (studentOpt != null && "STUDENT".equalsIgnoreCase(studentOpt.getRole())) {
-                var enrollmentOpt = enrollmentRepository.findByStudentAndCourse(studentOpt, courseOpt.get());
-
                 // If not enrolled/paid, return read-only preview of course content (no video URLs)
-                if (enrollmentOpt == null || !Boolean.TRUE.equals(enrollmentOpt.getIsPaid())) {
+                if (!entitlementService.hasAccess(studentOpt.getId(), courseId)) {
                     var previewList = courseContentRepository.findByCourseOrderByOrderIndexAsc(courseOpt.get());
                     List<Map<String, Object>> preview = previewList.stream().map(content -> {
                         Map<String, Object> m = new HashMap<>();
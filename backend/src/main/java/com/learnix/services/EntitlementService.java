@@ -0,0 +1,129 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.learnix.models.Course;
+import com.learnix.models.CourseEntitlement;
+import com.learnix.repositories.CourseEntitlementRepository;
+
+// Paid course access. The CourseEntitlement table is the source of truth and is written when a
+// payment is confirmed; hasAccess answers from a bounded in-memory map (positive and negative
+// answers) and falls back to one primary-key lookup.
+@Service
+public class EntitlementService {
+
+    private static final int MAX_ENTRIES = 10000;
+
+    @Autowired
+    private CourseEntitlementRepository entitlementRepository;
+
+    private final Map<CourseEntitlement.Key, Boolean> access = new ConcurrentHashMap<>();
+
+    // Bumped before every eviction, so a read that overlapped one can tell its answer may be stale
+    private final AtomicLong evictions = new AtomicLong();
+
+    public boolean hasAccess(Long studentId, Long courseId) {
+        if (studentId == null || courseId == null) {
+            return false;
+        }
+        CourseEntitlement.Key key = new CourseEntitlement.Key(studentId, courseId);
+        Boolean cached = access.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (access.size() >= MAX_ENTRIES) {
+            access.clear();
+        }
+        long seen = evictions.get();
+        boolean granted = entitlementRepository.existsById(key);
+        // A grant committed meanwhile has already put true; do not overwrite it with this read
+        access.putIfAbsent(key, granted);
+        // A revoke evicted between the lookup and the put: the row read may predate its delete.
+        // Checked after the put, so either this removes the entry or the eviction sees it.
+        if (evictions.get() != seen) {
+            access.remove(key, granted);
+        }
+        return granted;
+    }
+
+    public List<Course> getEntitledCourses(Long studentId) {
+        return entitlementRepository.findEntitledCourses(studentId);
+    }
+
+    // Called inside the payment transaction; the cache only learns about it once that commits
+    public void grant(Long studentId, Long courseId, Long paymentId) {
+        CourseEntitlement entitlement = entitlementRepository.findById(new CourseEntitlement.Key(studentId, courseId))
+                .orElseGet(() -> CourseEntitlement.builder()
+                        .studentId(studentId)
+                        .courseId(courseId)
+                        .build());
+        entitlement.setPaymentId(paymentId);
+        entitlement.setGrantedAt(LocalDateTime.now());
+        entitlementRepository.save(entitlement);
+        afterCommit(() -> access.put(new CourseEntitlement.Key(studentId, courseId), true));
+    }
+
+    // Evicted now and again after commit, in case a read re-cached the old row in between
+    public void revokeStudent(Long studentId) {
+        entitlementRepository.deleteByStudentId(studentId);
+        Runnable evict = () -> {
+            evictions.incrementAndGet();
+            access.keySet().removeIf(key -> studentId.equals(key.getStudentId()));
+        };
+        evict.run();
+        afterCommit(evict);
+    }
+
+    public void revokeCourse(Long courseId) {
+        entitlementRepository.deleteByCourseId(courseId);
+        Runnable evict = () -> {
+            evictions.incrementAndGet();
+            access.keySet().removeIf(key -> courseId.equals(key.getCourseId()));
+        };
+        evict.run();
+        afterCommit(evict);
+    }
+
+    // Fill the table from paid enrollments on the first start after it was introduced
+    public int backfillIfEmpty() {
+        if (entitlementRepository.count() > 0) {
+            return 0;
+        }
+        List<CourseEntitlement> rows = new ArrayList<>();
+        for (Object[] row : entitlementRepository.findPaidAccessRows()) {
+            rows.add(CourseEntitlement.builder()
+                    .studentId((Long) row[0])
+                    .courseId((Long) row[1])
+                    .paymentId((Long) row[2])
+                    .grantedAt(row[3] != null ? (LocalDateTime) row[3] : LocalDateTime.now())
+                    .build());
+        }
+        entitlementRepository.saveAll(rows);
+        evictions.incrementAndGet();
+        access.clear();
+        return rows.size();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.models.OnlineTestDraft;
+import com.learnix.repositories.OnlineTestDraftRepository;
+import com.learnix.repositories.StudentRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Write-behind buffer for autosaved exam answers. Autosaves only touch memory (the student is
+// resolved once per exam session); a scheduled flush (see ScheduledTasks) writes everything
+// buffered since the last run in one batch.
+// The buffer is only locked while a flush drains it; the batch being written stays visible
+// to readers as inFlight until it has committed, and a reader that overlapped a commit retries.
+@Service
+public class ExamDraftService {
+
+    @Autowired
+    private OnlineTestDraftRepository draftRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final int MAX_SESSIONS = 50000;
+
+    // (testId, studentId) -> questionId -> option; "" clears a previous answer
+    private final Map<DraftKey, Map<Long, String>> pending = new ConcurrentHashMap<>();
+    // Batch of the running flush, readable until it has committed
+    private volatile Map<DraftKey, Map<Long, String>> inFlight = Map.of();
+    // Bumped whenever a flush finishes, so readers can tell they raced with its commit
+    private final AtomicLong flushes = new AtomicLong();
+    // Write lock: moving deltas between pending and inFlight. Read lock: overlaying both.
+    private final ReadWriteLock bufferLock = new ReentrantReadWriteLock();
+    // Serialises the database writers (flush, discard) without blocking autosaves or reads
+    private final ReentrantLock persistLock = new ReentrantLock();
+
+    // (testId, user email) -> student id of an exam in progress, dropped when the test closes
+    private final Map<SessionKey, Long> sessions = new ConcurrentHashMap<>();
+
+    private record DraftKey(Long testId, Long studentId) {}
+
+    private record SessionKey(Long testId, String email) {}
+
+    // Student behind an autosaving principal; only the first autosave of an exam session
+    // goes to the database
+    public Optional<Long> sessionStudentId(Long testId, String email) {
+        SessionKey key = new SessionKey(testId, email);
+        Long cached = sessions.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Long> studentId = studentRepository.findIdByUserEmail(email);
+        if (studentId.isPresent()) {
+            if (sessions.size() >= MAX_SESSIONS) {
+                sessions.clear();
+            }
+            sessions.put(key, studentId.get());
+        }
+        return studentId;
+    }
+
+    // A deleted student's sessions go with them
+    public void forgetStudent(Long studentId) {
+        sessions.values().removeIf(studentId::equals);
+    }
+
+    // Merge an answer delta into the buffer; no database access
+    public void record(Long testId, Long studentId, Map<Long, String> delta) {
+        pending.compute(new DraftKey(testId, studentId), (key, current) -> {
+            Map<Long, String> answers = current != null ? current : new HashMap<>();
+            answers.putAll(delta);
+            return answers;
+        });
+    }
+
+    // Saved answers (questionId -> option) including whatever is still buffered
+    public Map<Long, String> getDraft(Long testId, Long studentId) {
+        DraftKey key = new DraftKey(testId, studentId);
+        while (true) {
+            long seen = flushes.get();
+            Map<Long, String> answers = draftRepository.findByTestIdAndStudentId(testId, studentId)
+                    .map(draft -> decode(draft.getAnswers()))
+                    .orElseGet(LinkedHashMap::new);
+            bufferLock.readLock().lock();
+            try {
+                Map<Long, String> writing = inFlight.get(key);
+                if (writing != null) {
+                    apply(answers, writing);
+                }
+                pending.computeIfPresent(key, (k, delta) -> {
+                    apply(answers, delta);
+                    return delta;
+                });
+            } finally {
+                bufferLock.readLock().unlock();
+            }
+            // A flush that finished meanwhile may have cleared inFlight after the row was read
+            if (flushes.get() == seen) {
+                return answers;
+            }
+        }
+    }
+
+    // Drop the draft once the test has been submitted
+    public void discard(Long testId, Long studentId) {
+        DraftKey key = new DraftKey(testId, studentId);
+        persistLock.lock();
+        try {
+            bufferLock.writeLock().lock();
+            try {
+                pending.remove(key);
+            } finally {
+                bufferLock.writeLock().unlock();
+            }
+            draftRepository.deleteByTestIdAndStudentId(testId, studentId);
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    // All drafts of a test (studentId -> answers), flushed first so nothing buffered is missed
+    public Map<Long, Map<Long, String>> getDrafts(Long testId) {
+        persistLock.lock();
+        try {
+            flush();
+            Map<Long, Map<Long, String>> drafts = new HashMap<>();
+            for (OnlineTestDraft draft : draftRepository.findByTestId(testId)) {
+                drafts.put(draft.getStudentId(), decode(draft.getAnswers()));
+            }
+            return drafts;
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    // Drop every draft of a test once it is closed
+    public void discardTest(Long testId) {
+        persistLock.lock();
+        try {
+            bufferLock.writeLock().lock();
+            try {
+                pending.keySet().removeIf(key -> testId.equals(key.testId()));
+            } finally {
+                bufferLock.writeLock().unlock();
+            }
+            sessions.keySet().removeIf(key -> testId.equals(key.testId()));
+            draftRepository.deleteByTestId(testId);
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    // Persist everything buffered since the last flush; returns the number of drafts written.
+    // Autosaves and reads only wait for the in-memory hand-over, never for the transaction.
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        persistLock.lock();
+        try {
+            Map<DraftKey, Map<Long, String>> batch = new HashMap<>();
+            bufferLock.writeLock().lock();
+            try {
+                for (DraftKey key : new ArrayList<>(pending.keySet())) {
+                    Map<Long, String> delta = pending.remove(key);
+                    if (delta != null) {
+                        batch.put(key, delta);
+                    }
+                }
+                inFlight = batch;
+            } finally {
+                bufferLock.writeLock().unlock();
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            boolean written = false;
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(batch));
+                written = true;
+                return batch.size();
+            } finally {
+                bufferLock.writeLock().lock();
+                try {
+                    if (!written) {
+                        // Put the batch back underneath anything recorded meanwhile so the next run retries it
+                        batch.forEach((key, delta) -> pending.compute(key, (k, current) -> {
+                            Map<Long, String> answers = new HashMap<>(delta);
+                            if (current != null) {
+                                answers.putAll(current);
+                            }
+                            return answers;
+                        }));
+                    }
+                    inFlight = Map.of();
+                    flushes.incrementAndGet();
+                } finally {
+                    bufferLock.writeLock().unlock();
+                }
+            }
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Error flushing exam drafts on shutdown: " + e.getMessage());
+        }
+    }
+
+    private void persist(Map<DraftKey, Map<Long, String>> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<DraftKey>> keysByTest = batch.keySet().stream()
+                .collect(Collectors.groupingBy(DraftKey::testId));
+
+        List<OnlineTestDraft> toSave = new ArrayList<>(batch.size());
+        for (Map.Entry<Long, List<DraftKey>> entry : keysByTest.entrySet()) {
+            List<Long> studentIds = entry.getValue().stream().map(DraftKey::studentId).collect(Collectors.toList());
+            Map<Long, OnlineTestDraft> existing = draftRepository.findByTestIdAndStudentIdIn(entry.getKey(), studentIds)
+                    .stream()
+                    .collect(Collectors.toMap(OnlineTestDraft::getStudentId, Function.identity(), (a, b) -> a));
+
+            for (DraftKey key : entry.getValue()) {
+                OnlineTestDraft draft = existing.get(key.studentId());
+                if (draft == null) {
+                    draft = OnlineTestDraft.builder()
+                            .testId(key.testId())
+                            .studentId(key.studentId())
+                            .build();
+                }
+                Map<Long, String> answers = decode(draft.getAnswers());
+                apply(answers, batch.get(key));
+                draft.setAnswers(encode(answers));
+                draft.setUpdatedAt(now);
+                toSave.add(draft);
+            }
+        }
+        draftRepository.saveAll(toSave);
+    }
+
+    private void apply(Map<Long, String> answers, Map<Long, String> delta) {
+        delta.forEach((questionId, option) -> {
+            if (option == null || option.isEmpty()) {
+                answers.remove(questionId);
+            } else {
+                answers.put(questionId, option);
+            }
+        });
+    }
+
+    private String encode(Map<Long, String> answers) {
+        return answers.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    private Map<Long, String> decode(String encoded) {
+        Map<Long, String> answers = new LinkedHashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return answers;
+        }
+        for (String pair : encoded.split(",")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                answers.put(Long.valueOf(pair.substring(0, eq)), pair.substring(eq + 1));
+            }
+        }
+        return answers;
+    }
+}
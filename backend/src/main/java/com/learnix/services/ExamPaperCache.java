@@ -0,0 +1,128 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+
+// Answer-free question list of each test, serialized to JSON once per test version.
+// Everyone opening the test at exam start gets the same bytes spliced into their response
+// instead of rebuilding and re-serializing the question maps per student.
+@Component
+public class ExamPaperCache {
+
+    private static final int MAX_ENTRIES = 500;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, Paper> papers = new ConcurrentHashMap<>();
+
+    // Cached paper for the test, rebuilt when the test was modified since it was serialized
+    public Paper get(OnlineTest test) {
+        Paper cached = papers.get(test.getId());
+        if (cached != null && cached.isVersion(test.getUpdatedAt())) {
+            return cached;
+        }
+        if (papers.size() >= MAX_ENTRIES) {
+            evictClosed();
+        }
+        // Loaded and serialized outside the map so a slow query never holds a map bin lock;
+        // concurrent misses may each build, and merge() keeps whichever paper is newer
+        Paper built = build(test, questionRepository.findByTestIdOrderByIdAsc(test.getId()));
+        Paper kept = papers.merge(test.getId(), built, (current, candidate) -> current.isNewerThan(candidate) ? current : candidate);
+        return kept.isVersion(test.getUpdatedAt()) ? kept : built;
+    }
+
+    public void evict(Long testId) {
+        if (testId != null) {
+            papers.remove(testId);
+        }
+    }
+
+    private void evictClosed() {
+        LocalDateTime now = LocalDateTime.now();
+        papers.values().removeIf(paper -> paper.endTime != null && paper.endTime.isBefore(now));
+        if (papers.size() >= MAX_ENTRIES) {
+            papers.clear();
+        }
+    }
+
+    private Paper build(OnlineTest test, List<OnlineTestQuestion> questions) {
+        List<Map<String, Object>> rows = new ArrayList<>(questions.size());
+        for (OnlineTestQuestion q : questions) {
+            Map<String, Object> options = new LinkedHashMap<>();
+            options.put("A", q.getOptionA());
+            options.put("B", q.getOptionB());
+            options.put("C", q.getOptionC());
+            options.put("D", q.getOptionD());
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", q.getId());
+            row.put("questionText", q.getQuestionText());
+            row.put("options", options);
+            rows.add(row);
+        }
+        try {
+            String json = objectMapper.writeValueAsString(rows);
+            return new Paper(new SerializedString(json), questions.size(), columnPrecision(test.getUpdatedAt()), test.getEndTime());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize questions of test " + test.getId(), e);
+        }
+    }
+
+    public static final class Paper {
+        // SerializedString keeps the UTF-8 encoding, so writing it out is a plain byte copy
+        private final SerializedString questionsJson;
+        private final int questionCount;
+        private final LocalDateTime version;
+        private final LocalDateTime endTime;
+
+        private Paper(SerializedString questionsJson, int questionCount, LocalDateTime version, LocalDateTime endTime) {
+            this.questionsJson = questionsJson;
+            this.questionCount = questionCount;
+            this.version = version;
+            this.endTime = endTime;
+        }
+
+        // Written verbatim by Jackson when placed in a response payload
+        public RawValue questions() {
+            return new RawValue(questionsJson);
+        }
+
+        public int getQuestionCount() {
+            return questionCount;
+        }
+
+        boolean isVersion(LocalDateTime updatedAt) {
+            return Objects.equals(version, columnPrecision(updatedAt));
+        }
+
+        boolean isNewerThan(Paper other) {
+            return version != null && (other.version == null || version.isAfter(other.version));
+        }
+    }
+
+    // Same precision as the stored updatedAt, as in AnswerKeyCache
+    private static LocalDateTime columnPrecision(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.plusNanos(500).truncatedTo(ChronoUnit.MICROS) : null;
+    }
+}
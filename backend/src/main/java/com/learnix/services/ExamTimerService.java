@@ -0,0 +1,242 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.repositories.OnlineTestRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Server-side exam clock. Every published test gets two timers on a hashed timing wheel
+// (one-second ticks on its own thread): a warm-up shortly before start that loads the
+// answer key and paper caches, and a close shortly after end that flips the test to closed
+// and turns pending autosave drafts into submissions. Registering or firing a timer is O(1),
+// so reloading thousands of schedules on restart is one query plus a loop.
+@Service
+public class ExamTimerService {
+
+    private static final int WHEEL_SLOTS = 512;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ExamPaperCache examPaperCache;
+
+    @Autowired
+    private ExamDraftService examDraftService;
+
+    @Autowired
+    private SubmissionIngestService submissionIngestService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${exam.timer.warmup-seconds:120}")
+    private long warmupSeconds;
+
+    // Lets submissions accepted right before the deadline land before drafts are finalized
+    @Value("${exam.timer.close-grace-seconds:30}")
+    private long closeGraceSeconds;
+
+    private enum Action { WARM_UP, CLOSE }
+
+    private record Timer(long dueTick, Long testId, Action action) {}
+
+    @SuppressWarnings("unchecked")
+    private final List<Timer>[] wheel = new List[WHEEL_SLOTS];
+    private long lastTick = currentTick();
+
+    // The wheel advances on its own thread: Spring's single scheduler thread also runs the nightly
+    // counter rebuild and the archive job, which must not hold back closing a test
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "exam-timer-tick");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Timer actions hit the database, so they run off the tick thread, one at a time
+    private final ExecutorService actions = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "exam-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleAtFixedRate(() -> {
+            // An exception would cancel the periodic task, so every tick is guarded
+            try {
+                tick();
+            } catch (Exception e) {
+                System.err.println("Error advancing exam timers: " + e.getMessage());
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    // Register the schedule of every test that still has to close
+    public int loadAll() {
+        int count = 0;
+        for (Object[] row : onlineTestRepository.findOpenSchedules()) {
+            register((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2]);
+            count++;
+        }
+        return count;
+    }
+
+    public void register(OnlineTest test) {
+        if (Boolean.TRUE.equals(test.getPublished()) && !Boolean.TRUE.equals(test.getClosed())) {
+            register(test.getId(), test.getStartTime(), test.getEndTime());
+        }
+    }
+
+    // Overdue timers (e.g. a test that ended while the server was down) fire on the next tick
+    public void register(Long testId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime != null && startTime.isAfter(LocalDateTime.now())) {
+            schedule(new Timer(toTick(startTime) - warmupSeconds, testId, Action.WARM_UP));
+        }
+        if (endTime != null) {
+            schedule(new Timer(toTick(endTime) + closeGraceSeconds, testId, Action.CLOSE));
+        }
+    }
+
+    // Advance the wheel to the current second and fire everything that came due
+    public void tick() {
+        tick(currentTick());
+    }
+
+    // Package-private so tests can advance the wheel past a pause without waiting for the clock
+    void tick(long now) {
+        List<Timer> due = new ArrayList<>();
+        synchronized (wheel) {
+            // After a long pause one lap of the wheel covers every slot
+            long from = Math.max(lastTick + 1, now - WHEEL_SLOTS + 1);
+            for (long tick = from; tick <= now; tick++) {
+                List<Timer> slot = wheel[(int) Math.floorMod(tick, (long) WHEEL_SLOTS)];
+                if (slot == null) continue;
+                Iterator<Timer> it = slot.iterator();
+                while (it.hasNext()) {
+                    Timer timer = it.next();
+                    if (timer.dueTick() <= now) {
+                        due.add(timer);
+                        it.remove();
+                    }
+                }
+            }
+            lastTick = Math.max(lastTick, now);
+        }
+        for (Timer timer : due) {
+            actions.execute(() -> fire(timer));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        actions.shutdown();
+    }
+
+    private void schedule(Timer timer) {
+        synchronized (wheel) {
+            // Never place a timer in a slot that was already passed in this lap
+            long tick = Math.max(timer.dueTick(), lastTick + 1);
+            int index = (int) Math.floorMod(tick, (long) WHEEL_SLOTS);
+            if (wheel[index] == null) {
+                wheel[index] = new ArrayList<>();
+            }
+            wheel[index].add(timer);
+        }
+    }
+
+    private void fire(Timer timer) {
+        try {
+            if (timer.action() == Action.WARM_UP) {
+                warmUp(timer.testId());
+            } else {
+                close(timer.testId());
+            }
+        } catch (Exception e) {
+            System.err.println("Error running exam timer " + timer.action() + " for test " + timer.testId() + ": "
+                    + e.getMessage());
+        }
+    }
+
+    private void warmUp(Long testId) {
+        onlineTestRepository.findById(testId).ifPresent(test -> {
+            answerKeyCache.get(test);
+            examPaperCache.get(test);
+        });
+    }
+
+    // Flip the test to closed, then submit every pending draft in batches
+    public int close(Long testId) {
+        OnlineTest test = transactionTemplate.execute(status -> {
+            OnlineTest managed = onlineTestRepository.findById(testId).orElse(null);
+            // Same guard as register(OnlineTest): drafts of an unpublished test are never submitted
+            if (managed == null || !Boolean.TRUE.equals(managed.getPublished())
+                    || Boolean.TRUE.equals(managed.getClosed())) {
+                return null;
+            }
+            // End time moved later since this timer was registered: wait for the new one
+            if (managed.getEndTime() != null
+                    && managed.getEndTime().plusSeconds(closeGraceSeconds).isAfter(LocalDateTime.now())) {
+                register(managed.getId(), null, managed.getEndTime());
+                return null;
+            }
+            managed.setClosed(true);
+            managed.setClosedAt(LocalDateTime.now());
+            return onlineTestRepository.save(managed);
+        });
+        if (test == null) {
+            return 0;
+        }
+        answerKeyCache.evict(testId);
+        examPaperCache.evict(testId);
+
+        AnswerKeyCache.AnswerKey key = answerKeyCache.get(test);
+        int finalized = 0;
+        if (key.size() > 0) {
+            List<SubmissionIngestService.GradedSubmission> graded = new ArrayList<>();
+            for (Map.Entry<Long, Map<Long, String>> draft : examDraftService.getDrafts(testId).entrySet()) {
+                byte[] selected = key.emptySelection();
+                draft.getValue().forEach((questionId, option) -> {
+                    int index = key.indexOf(questionId);
+                    if (index >= 0) {
+                        selected[index] = AnswerKeyCache.AnswerKey.optionIndex(option);
+                    }
+                });
+                graded.add(submissionIngestService.grade(key, testId, draft.getKey(), selected));
+            }
+            // Students who already submitted are skipped as duplicates
+            finalized = submissionIngestService.persistAll(graded);
+        }
+        examDraftService.discardTest(testId);
+        return finalized;
+    }
+
+    static long currentTick() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static long toTick(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,386 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestItemStats;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.repositories.OnlineTestAnswerRepository;
+import com.learnix.repositories.OnlineTestItemStatsRepository;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Per-question item analysis (difficulty, option distribution, discrimination).
+// Counters are bumped in memory for every graded submission and flushed to
+// OnlineTestItemStats periodically (see ScheduledTasks), so reading the analysis never
+// scans OnlineTestAnswer. A test whose counters drifted (lost flush, regrade) is rebuilt
+// from the answer rows in one pass.
+@Service
+public class ItemAnalysisService {
+
+    // Counter slots: A, B, C, D, blank, correct, responses, correctScoreSum
+    private static final int BLANK = 4;
+    private static final int CORRECT = 5;
+    private static final int RESPONSES = 6;
+    private static final int CORRECT_SCORE_SUM = 7;
+    private static final int SLOTS = 8;
+    private static final int REBUILD_CHUNK = 1000;
+
+    @Autowired
+    private OnlineTestItemStatsRepository statsRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    @Autowired
+    private OnlineTestAnswerRepository answerRepository;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate newTransaction;
+
+    // testId -> questionId -> counter deltas not yet flushed
+    private final Map<Long, Map<Long, long[]>> pending = new ConcurrentHashMap<>();
+    // Read lock: record. Write lock: only the moment a flush drains the buffer.
+    private final ReadWriteLock bufferLock = new ReentrantReadWriteLock();
+    // Serialises the database writers (flush, rebuild, delete) without blocking record
+    private final ReentrantLock persistLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Count one graded submission; selections are laid out like the answer key
+    public void record(Long testId, AnswerKeyCache.AnswerKey key, byte[] selected, int score) {
+        bufferLock.readLock().lock();
+        try {
+            pending.compute(testId, (id, counters) -> {
+                Map<Long, long[]> deltas = counters != null ? counters : new HashMap<>();
+                for (int i = 0; i < key.size(); i++) {
+                    long[] c = deltas.computeIfAbsent(key.questionId(i), q -> new long[SLOTS]);
+                    addAnswer(c, selected[i], key.isCorrect(i, selected[i]), score);
+                }
+                return deltas;
+            });
+        } finally {
+            bufferLock.readLock().unlock();
+        }
+    }
+
+    // Persist all buffered deltas; returns the number of question rows written. The buffer is
+    // only locked while it is drained, so submissions keep recording during the transaction.
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        persistLock.lock();
+        try {
+            Map<Long, Map<Long, long[]>> batch = drain();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            try {
+                ensureRows(batch);
+                LocalDateTime now = LocalDateTime.now();
+                transactionTemplate.executeWithoutResult(status -> batch.values().forEach(deltas ->
+                        deltas.forEach((questionId, c) -> statsRepository.addCounts(questionId,
+                                c[0], c[1], c[2], c[3], c[BLANK], c[CORRECT], c[RESPONSES], c[CORRECT_SCORE_SUM], now))));
+            } catch (RuntimeException e) {
+                // Put the batch back so the next run retries it
+                batch.forEach(this::merge);
+                throw e;
+            }
+            return batch.values().stream().mapToInt(Map::size).sum();
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    // Recompute a test's counters from its answers (after a regrade, or when they drifted)
+    public void rebuild(Long testId) {
+        AnswerKeyCache.AnswerKey key = answerKeyCache.get(testId);
+        if (key != null) {
+            rebuild(testId, key);
+        }
+    }
+
+    public void rebuild(Long testId, AnswerKeyCache.AnswerKey key) {
+        persistLock.lock();
+        try {
+            removePending(testId);
+
+            // Keyset chunks of submissions so memory stays bounded by the chunk, not the test
+            long[][] counters = new long[key.size()][SLOTS];
+            byte[] unanswered = key.emptySelection();
+            long afterId = 0L;
+            while (true) {
+                List<Object[]> rows = submissionRepository.findScoreRowsBetween(testId, afterId, Long.MAX_VALUE,
+                        PageRequest.of(0, REBUILD_CHUNK));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    ids.add((Long) row[0]);
+                }
+                Map<Long, byte[]> selections = new HashMap<>();
+                for (Object[] row : answerRepository.findGradingRowsBySubmissionIds(ids)) {
+                    int index = key.indexOf((Long) row[1]);
+                    if (index < 0) continue;
+                    selections.computeIfAbsent((Long) row[0], id -> key.emptySelection())[index] =
+                            AnswerKeyCache.AnswerKey.optionIndex((String) row[2]);
+                }
+                for (Object[] row : rows) {
+                    int score = row[1] != null ? ((Number) row[1]).intValue() : 0;
+                    byte[] selected = selections.getOrDefault((Long) row[0], unanswered);
+                    for (int i = 0; i < key.size(); i++) {
+                        addAnswer(counters[i], selected[i], key.isCorrect(i, selected[i]), score);
+                    }
+                }
+                afterId = ids.get(ids.size() - 1);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                statsRepository.deleteByTestId(testId);
+                LocalDateTime now = LocalDateTime.now();
+                List<OnlineTestItemStats> rows = new ArrayList<>(key.size());
+                for (int i = 0; i < key.size(); i++) {
+                    OnlineTestItemStats stats = OnlineTestItemStats.builder()
+                            .testId(testId)
+                            .questionId(key.questionId(i))
+                            .updatedAt(now)
+                            .build();
+                    add(stats, counters[i]);
+                    rows.add(stats);
+                }
+                statsRepository.saveAll(rows);
+            });
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getAnalysis(OnlineTest test) {
+        flush();
+
+        // Single pass over submission scores: count, mean and variance (Welford)
+        long n = 0;
+        double mean = 0;
+        double m2 = 0;
+        for (Object[] row : submissionRepository.findScoreRowsByTestId(test.getId())) {
+            double score = row[1] != null ? ((Number) row[1]).doubleValue() : 0;
+            n++;
+            double delta = score - mean;
+            mean += delta / n;
+            m2 += delta * (score - mean);
+        }
+        double sd = n > 0 ? Math.sqrt(m2 / n) : 0;
+        long submissions = n;
+
+        List<OnlineTestQuestion> questions = questionRepository.findByTestIdOrderByIdAsc(test.getId());
+        Map<Long, OnlineTestItemStats> stats = loadStats(test.getId());
+        boolean drifted = questions.stream().anyMatch(q -> {
+            OnlineTestItemStats s = stats.get(q.getId());
+            return s == null ? submissions > 0 : s.getResponses() != submissions;
+        });
+        if (drifted) {
+            rebuild(test.getId());
+            stats.clear();
+            stats.putAll(loadStats(test.getId()));
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>(questions.size());
+        for (OnlineTestQuestion question : questions) {
+            OnlineTestItemStats s = stats.getOrDefault(question.getId(),
+                    OnlineTestItemStats.builder().questionId(question.getId()).build());
+            long responses = s.getResponses();
+
+            Map<String, Object> options = new LinkedHashMap<>();
+            options.put("A", s.getOptionA());
+            options.put("B", s.getOptionB());
+            options.put("C", s.getOptionC());
+            options.put("D", s.getOptionD());
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("questionId", question.getId());
+            item.put("questionText", question.getQuestionText());
+            item.put("correctOption", question.getCorrectOption());
+            item.put("responses", responses);
+            item.put("correct", s.getCorrectCount());
+            item.put("blank", s.getBlank());
+            item.put("options", options);
+            item.put("difficulty", responses == 0 ? null
+                    : Math.round(s.getCorrectCount() * 1000.0 / responses) / 10.0);
+            item.put("discrimination", discrimination(s, mean, sd));
+            items.add(item);
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("testId", test.getId());
+        payload.put("submissions", submissions);
+        payload.put("meanScore", Math.round(mean * 100.0) / 100.0);
+        payload.put("scoreStdDev", Math.round(sd * 100.0) / 100.0);
+        payload.put("maxMarks", test.getMaxMarks());
+        payload.put("items", items);
+        return payload;
+    }
+
+    public void deleteForTest(Long testId) {
+        persistLock.lock();
+        try {
+            removePending(testId);
+            statsRepository.deleteByTestId(testId);
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    // Point-biserial correlation between answering correctly and the total score:
+    // (mean of correct answerers - overall mean) / sd * sqrt(p / (1 - p))
+    private Double discrimination(OnlineTestItemStats s, double mean, double sd) {
+        long responses = s.getResponses();
+        long correct = s.getCorrectCount();
+        if (responses == 0 || correct == 0 || correct == responses || sd == 0) {
+            return null;
+        }
+        double p = (double) correct / responses;
+        double correctMean = (double) s.getCorrectScoreSum() / correct;
+        double r = (correctMean - mean) / sd * Math.sqrt(p / (1 - p));
+        return Math.round(r * 1000.0) / 1000.0;
+    }
+
+    private Map<Long, Map<Long, long[]>> drain() {
+        Map<Long, Map<Long, long[]>> batch = new HashMap<>();
+        bufferLock.writeLock().lock();
+        try {
+            for (Long testId : new ArrayList<>(pending.keySet())) {
+                Map<Long, long[]> deltas = pending.remove(testId);
+                if (deltas != null) {
+                    batch.put(testId, deltas);
+                }
+            }
+        } finally {
+            bufferLock.writeLock().unlock();
+        }
+        return batch;
+    }
+
+    private void merge(Long testId, Map<Long, long[]> deltas) {
+        bufferLock.readLock().lock();
+        try {
+            pending.compute(testId, (id, current) -> {
+                Map<Long, long[]> merged = current != null ? current : new HashMap<>();
+                deltas.forEach((questionId, c) -> {
+                    long[] target = merged.computeIfAbsent(questionId, q -> new long[SLOTS]);
+                    for (int i = 0; i < SLOTS; i++) {
+                        target[i] += c[i];
+                    }
+                });
+                return merged;
+            });
+        } finally {
+            bufferLock.readLock().unlock();
+        }
+    }
+
+    private void removePending(Long testId) {
+        bufferLock.writeLock().lock();
+        try {
+            pending.remove(testId);
+        } finally {
+            bufferLock.writeLock().unlock();
+        }
+    }
+
+    // Zero rows for questions seen for the first time, committed on their own so the counter
+    // transaction only runs in-place updates. Another instance may insert the same row first.
+    private void ensureRows(Map<Long, Map<Long, long[]>> batch) {
+        Map<Long, Long> testOf = new HashMap<>();
+        batch.forEach((testId, deltas) -> deltas.keySet().forEach(questionId -> testOf.put(questionId, testId)));
+        statsRepository.findExistingQuestionIds(testOf.keySet()).forEach(testOf::remove);
+        if (testOf.isEmpty()) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> statsRepository.saveAllAndFlush(zeroRows(testOf)));
+        } catch (DataIntegrityViolationException e) {
+            testOf.forEach((questionId, testId) -> {
+                try {
+                    newTransaction.executeWithoutResult(status ->
+                            statsRepository.saveAndFlush(zeroRows(Map.of(questionId, testId)).get(0)));
+                } catch (DataIntegrityViolationException ignored) {
+                    // Created concurrently; the update adds to that row
+                }
+            });
+        }
+    }
+
+    private List<OnlineTestItemStats> zeroRows(Map<Long, Long> testOf) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OnlineTestItemStats> rows = new ArrayList<>(testOf.size());
+        testOf.forEach((questionId, testId) -> rows.add(OnlineTestItemStats.builder()
+                .testId(testId)
+                .questionId(questionId)
+                .updatedAt(now)
+                .build()));
+        return rows;
+    }
+
+    private Map<Long, OnlineTestItemStats> loadStats(Long testId) {
+        return statsRepository.findByTestId(testId).stream()
+                .collect(Collectors.toMap(OnlineTestItemStats::getQuestionId, Function.identity(), (a, b) -> a));
+    }
+
+    private void addAnswer(long[] c, byte selected, boolean correct, int score) {
+        c[selected >= 0 && selected < BLANK ? selected : BLANK]++;
+        c[RESPONSES]++;
+        if (correct) {
+            c[CORRECT]++;
+            c[CORRECT_SCORE_SUM] += score;
+        }
+    }
+
+    private void add(OnlineTestItemStats stats, long[] c) {
+        stats.setOptionA(stats.getOptionA() + c[0]);
+        stats.setOptionB(stats.getOptionB() + c[1]);
+        stats.setOptionC(stats.getOptionC() + c[2]);
+        stats.setOptionD(stats.getOptionD() + c[3]);
+        stats.setBlank(stats.getBlank() + c[BLANK]);
+        stats.setCorrectCount(stats.getCorrectCount() + c[CORRECT]);
+        stats.setResponses(stats.getResponses() + c[RESPONSES]);
+        stats.setCorrectScoreSum(stats.getCorrectScoreSum() + c[CORRECT_SCORE_SUM]);
+    }
+}
@@ -0,0 +1,246 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+import com.learnix.repositories.StudentRepository;
+
+// Ranked leaderboard per online test. Each board is a Fenwick tree of submission counts over
+// the 0..maxMarks score range, built from the submissions on first use and updated on every
+// stored submission, so rank, percentile and the start of the top-N are O(log maxMarks)
+// instead of a sort of all submissions per request. Ties share a rank.
+@Service
+public class LeaderboardService {
+
+    private static final int MAX_BOARDS = 500;
+
+    @Autowired
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+
+    // Apply a stored submission to the board if it is loaded; otherwise the next build reads it
+    public void record(Long testId, Long studentId, int score) {
+        boards.computeIfPresent(testId, (id, board) -> {
+            board.put(studentId, score);
+            return board;
+        });
+    }
+
+    // Rank, percentile and score of one student, or null if they have not submitted
+    public Map<String, Object> getRank(OnlineTest test, Long studentId) {
+        Board board = board(test);
+        synchronized (board) {
+            Integer score = board.scoreOf(studentId);
+            if (score == null) {
+                return null;
+            }
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("testId", test.getId());
+            payload.put("score", score);
+            payload.put("maxMarks", test.getMaxMarks());
+            payload.put("rank", board.rankOf(score));
+            payload.put("submissions", board.size());
+            payload.put("percentile", board.percentileOf(score));
+            return payload;
+        }
+    }
+
+    // Best n submissions, highest score first, earlier submitters first within a score
+    public List<Map<String, Object>> getTop(OnlineTest test, int n) {
+        Board board = board(test);
+        List<long[]> top;
+        synchronized (board) {
+            top = board.top(n);
+        }
+        Map<Long, String> names = new HashMap<>();
+        if (!top.isEmpty()) {
+            List<Long> studentIds = top.stream().map(entry -> entry[0]).collect(Collectors.toList());
+            for (Object[] row : studentRepository.findNamesByIdIn(studentIds)) {
+                names.put((Long) row[0], (String) row[1]);
+            }
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(top.size());
+        for (long[] entry : top) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("studentId", entry[0]);
+            row.put("studentName", names.get(entry[0]));
+            row.put("score", entry[1]);
+            row.put("rank", entry[2]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // Scores changed outside the submit path (regrade, deleted test)
+    public void evict(Long testId) {
+        if (testId != null) {
+            boards.remove(testId);
+        }
+    }
+
+    public void removeStudent(Long studentId) {
+        boards.values().forEach(board -> {
+            synchronized (board) {
+                board.remove(studentId);
+            }
+        });
+    }
+
+    private Board board(OnlineTest test) {
+        Board cached = boards.get(test.getId());
+        if (cached != null) {
+            return cached;
+        }
+        if (boards.size() >= MAX_BOARDS) {
+            evictClosed();
+        }
+        // computeIfAbsent makes a concurrent record() wait for the build, so no submission is lost
+        return boards.computeIfAbsent(test.getId(), id -> {
+            Board board = new Board(test.getMaxMarks() != null ? test.getMaxMarks() : 0, test.getEndTime());
+            for (Object[] row : submissionRepository.findRankRowsByTestId(id)) {
+                board.put((Long) row[0], row[1] != null ? ((Number) row[1]).intValue() : 0);
+            }
+            return board;
+        });
+    }
+
+    // Boards of finished tests are cheap to rebuild and rarely read again
+    private void evictClosed() {
+        LocalDateTime now = LocalDateTime.now();
+        boards.values().removeIf(board -> board.endTime != null && board.endTime.isBefore(now));
+        if (boards.size() >= MAX_BOARDS) {
+            boards.clear();
+        }
+    }
+
+    // Scores are stored descending (slot 1 = maxMarks), so a prefix sum counts equal or better scores
+    private static final class Board {
+        private final int maxMarks;
+        private final LocalDateTime endTime;
+        private final int[] tree;
+        private final Map<Long, Integer> scores = new HashMap<>();
+        // score -> students in submission order, for listing the top
+        private final Map<Integer, Set<Long>> byScore = new HashMap<>();
+
+        Board(int maxMarks, LocalDateTime endTime) {
+            this.maxMarks = Math.max(maxMarks, 0);
+            this.endTime = endTime;
+            this.tree = new int[this.maxMarks + 2];
+        }
+
+        synchronized void put(Long studentId, int score) {
+            int clamped = Math.max(0, Math.min(score, maxMarks));
+            Integer previous = scores.put(studentId, clamped);
+            if (previous != null) {
+                if (previous == clamped) return;
+                unlink(studentId, previous);
+            }
+            add(slot(clamped), 1);
+            byScore.computeIfAbsent(clamped, s -> new LinkedHashSet<>()).add(studentId);
+        }
+
+        synchronized void remove(Long studentId) {
+            Integer previous = scores.remove(studentId);
+            if (previous != null) {
+                unlink(studentId, previous);
+            }
+        }
+
+        Integer scoreOf(Long studentId) {
+            return scores.get(studentId);
+        }
+
+        int size() {
+            return scores.size();
+        }
+
+        // 1 + number of strictly better scores
+        int rankOf(int score) {
+            return 1 + prefix(slot(score) - 1);
+        }
+
+        // Share of submissions at or below this score, 0..100
+        double percentileOf(int score) {
+            if (scores.isEmpty()) {
+                return 0;
+            }
+            int atOrBelow = scores.size() - prefix(slot(score) - 1);
+            return Math.round(atOrBelow * 1000.0 / scores.size()) / 10.0;
+        }
+
+        // [studentId, score, rank] of the best n; each non-empty score is found by a Fenwick descent
+        List<long[]> top(int n) {
+            List<long[]> result = new ArrayList<>(Math.min(n, scores.size()));
+            int seen = 0;
+            while (result.size() < n && seen < scores.size()) {
+                int slot = lowestSlotAbove(seen);
+                int score = maxMarks + 1 - slot;
+                int rank = seen + 1;
+                Set<Long> students = byScore.get(score);
+                for (Long studentId : students) {
+                    if (result.size() == n) break;
+                    result.add(new long[] { studentId, score, rank });
+                }
+                seen += students.size();
+            }
+            return result;
+        }
+
+        private void unlink(Long studentId, int score) {
+            add(slot(score), -1);
+            Set<Long> students = byScore.get(score);
+            students.remove(studentId);
+            if (students.isEmpty()) {
+                byScore.remove(score);
+            }
+        }
+
+        private int slot(int score) {
+            return maxMarks + 1 - score;
+        }
+
+        private void add(int slot, int delta) {
+            for (int i = slot; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        private int prefix(int slot) {
+            int sum = 0;
+            for (int i = slot; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        // Smallest slot whose prefix sum exceeds count
+        private int lowestSlotAbove(int count) {
+            int position = 0;
+            int remaining = count;
+            for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+                int next = position + step;
+                if (next < tree.length && tree[next] <= remaining) {
+                    position = next;
+                    remaining -= tree[next];
+                }
+            }
+            return position + 1;
+        }
+    }
+}
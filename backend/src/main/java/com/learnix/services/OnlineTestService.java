@@ -4,6 +4,7 @@ import java.security.Principal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -12,12 +13,17 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.learnix.dto.OnlineTestRequest;
 import com.learnix.dto.OnlineTestSubmissionRequest;
+import com.learnix.dto.StudentTestListingView;
+import com.learnix.dto.TeacherTestListingView;
 import com.learnix.models.OnlineTest;
 import com.learnix.models.OnlineTestAnswer;
 import com.learnix.models.OnlineTestQuestion;
@@ -50,8 +56,27 @@ public class OnlineTestService {
     @Autowired
     private StudentRepository studentRepository;
     @Autowired
+    private AnswerKeyCache answerKeyCache;
+    @Autowired
+    private ExamPaperCache examPaperCache;
+    @Autowired
+    private ExamDraftService examDraftService;
+    @Autowired
+    private TestRegradeService testRegradeService;
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+    @Autowired
+    private SubmissionIngestService submissionIngestService;
+    @Autowired
+    private ExamTimerService examTimerService;
+    @Autowired
+    private LeaderboardService leaderboardService;
+    @Autowired
     private MyResponseWrapper responseWrapper;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private static final Set<String> VALID_OPTIONS = Set.of("A", "B", "C", "D");
 
     // Teacher actions
@@ -141,6 +166,7 @@ public class OnlineTestService {
             }
 
             OnlineTest saved = onlineTestRepository.save(test);
+            examTimerService.register(saved);
             Map<String, Object> payload = new HashMap<>();
             payload.put("testId", saved.getId());
             payload.put("questions", saved.getQuestions().size());
@@ -158,19 +184,19 @@ public class OnlineTestService {
                 return universalResponse("Teacher not found", null, HttpStatus.FORBIDDEN);
             }
 
-            List<OnlineTest> tests = onlineTestRepository.findByTeacherUserId(teacherUser.getId());
+            List<TeacherTestListingView> tests = onlineTestRepository.findTeacherListing(teacherUser.getId());
             List<Map<String, Object>> data = tests.stream().map(test -> {
                 Map<String, Object> row = new HashMap<>();
                 row.put("id", test.getId());
                 row.put("title", test.getTitle());
                 row.put("subject", test.getSubject());
                 row.put("maxMarks", test.getMaxMarks());
-                row.put("questionCount", test.getQuestions().size());
+                row.put("questionCount", test.getQuestionCount());
                 row.put("createdAt", test.getCreatedAt());
                 row.put("published", test.getPublished());
                 row.put("startTime", test.getStartTime());
                 row.put("endTime", test.getEndTime());
-                row.put("submissions", submissionRepository.countByTest(test));
+                row.put("submissions", test.getSubmissionCount());
                 return row;
             }).collect(Collectors.toList());
 
@@ -210,6 +236,116 @@ public class OnlineTestService {
         }
     }
 
+    // Highest scores of a test, ranked (ties share a rank)
+    public ResponseEntity<?> getLeaderboard(Long testId, int limit, Principal principal) {
+        try {
+            Users teacherUser = userRepository.findByEmail(principal.getName());
+            if (teacherUser == null || !"TEACHER".equalsIgnoreCase(teacherUser.getRole())) {
+                return universalResponse("Teacher not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            Optional<OnlineTest> optionalTest = onlineTestRepository.findByIdAndTeacherUserId(testId, teacherUser.getId());
+            if (optionalTest.isEmpty()) {
+                return universalResponse("Test not found", null, HttpStatus.NOT_FOUND);
+            }
+            if (limit < 1 || limit > 100) {
+                return universalResponse("Limit must be between 1 and 100", null, HttpStatus.BAD_REQUEST);
+            }
+
+            return universalResponse("Leaderboard fetched", leaderboardService.getTop(optionalTest.get(), limit),
+                    HttpStatus.OK);
+        } catch (Exception e) {
+            return universalResponse("Failed to fetch leaderboard: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Difficulty, option distribution and discrimination per question, from the maintained counters
+    public ResponseEntity<?> getItemAnalysis(Long testId, Principal principal) {
+        try {
+            Users teacherUser = userRepository.findByEmail(principal.getName());
+            if (teacherUser == null || !"TEACHER".equalsIgnoreCase(teacherUser.getRole())) {
+                return universalResponse("Teacher not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            Optional<OnlineTest> optionalTest = onlineTestRepository.findByIdAndTeacherUserId(testId, teacherUser.getId());
+            if (optionalTest.isEmpty()) {
+                return universalResponse("Test not found", null, HttpStatus.NOT_FOUND);
+            }
+
+            return universalResponse("Item analysis fetched", itemAnalysisService.getAnalysis(optionalTest.get()),
+                    HttpStatus.OK);
+        } catch (Exception e) {
+            return universalResponse("Failed to fetch item analysis: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Fix the answer key of one question and re-score everything already submitted
+    public ResponseEntity<?> updateCorrectOption(Long testId, Long questionId, String correctOption, Principal principal) {
+        try {
+            Users teacherUser = userRepository.findByEmail(principal.getName());
+            if (teacherUser == null || !"TEACHER".equalsIgnoreCase(teacherUser.getRole())) {
+                return universalResponse("Teacher not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            Optional<OnlineTest> optionalTest = onlineTestRepository.findByIdAndTeacherUserId(testId, teacherUser.getId());
+            if (optionalTest.isEmpty()) {
+                return universalResponse("Test not found", null, HttpStatus.NOT_FOUND);
+            }
+
+            String option = correctOption != null ? correctOption.trim().toUpperCase(Locale.ENGLISH) : null;
+            if (option == null || !VALID_OPTIONS.contains(option)) {
+                return universalResponse("Correct option must be one of A, B, C or D", null, HttpStatus.BAD_REQUEST);
+            }
+
+            Map<String, Object> summary = testRegradeService.correctAnswer(optionalTest.get(), questionId, option);
+            return universalResponse("Answer key updated and test regraded", summary, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return universalResponse(e.getMessage(), null, HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            return universalResponse("Failed to update answer key: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    public ResponseEntity<?> regradeTest(Long testId, Principal principal) {
+        try {
+            Users teacherUser = userRepository.findByEmail(principal.getName());
+            if (teacherUser == null || !"TEACHER".equalsIgnoreCase(teacherUser.getRole())) {
+                return universalResponse("Teacher not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            Optional<OnlineTest> optionalTest = onlineTestRepository.findByIdAndTeacherUserId(testId, teacherUser.getId());
+            if (optionalTest.isEmpty()) {
+                return universalResponse("Test not found", null, HttpStatus.NOT_FOUND);
+            }
+
+            Map<String, Object> summary = testRegradeService.regrade(optionalTest.get());
+            return universalResponse("Test regraded", summary, HttpStatus.OK);
+        } catch (Exception e) {
+            return universalResponse("Failed to regrade test: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    public ResponseEntity<?> getRegradeProgress(Long testId, Principal principal) {
+        try {
+            Users teacherUser = userRepository.findByEmail(principal.getName());
+            if (teacherUser == null || !"TEACHER".equalsIgnoreCase(teacherUser.getRole())) {
+                return universalResponse("Teacher not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            if (onlineTestRepository.findByIdAndTeacherUserId(testId, teacherUser.getId()).isEmpty()) {
+                return universalResponse("Test not found", null, HttpStatus.NOT_FOUND);
+            }
+
+            Map<String, Object> progress = testRegradeService.getProgress(testId);
+            if (progress == null) {
+                return universalResponse("No regrade has run for this test", null, HttpStatus.NOT_FOUND);
+            }
+            return universalResponse("Regrade progress fetched", progress, HttpStatus.OK);
+        } catch (Exception e) {
+            return universalResponse("Failed to fetch regrade progress: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // Student actions
     public ResponseEntity<?> listAvailableTestsForStudent(Principal principal) {
         try {
@@ -222,7 +358,8 @@ public class OnlineTestService {
                 return universalResponse("Student profile missing", null, HttpStatus.BAD_REQUEST);
             }
 
-            List<OnlineTest> tests = onlineTestRepository.findByPublishedTrueOrderByCreatedAtDesc();
+            // Question counts and this student's submission come back with the tests in one query
+            List<StudentTestListingView> tests = onlineTestRepository.findStudentListing(student.getId());
             LocalDateTime now = LocalDateTime.now();
 
             List<Map<String, Object>> payload = tests.stream().map(test -> {
@@ -232,10 +369,8 @@ public class OnlineTestService {
                 row.put("subject", test.getSubject());
                 row.put("description", test.getDescription());
                 row.put("maxMarks", test.getMaxMarks());
-                row.put("questionCount", test.getQuestions().size());
-                row.put("teacherName", test.getTeacher() != null && test.getTeacher().getUser() != null
-                        ? test.getTeacher().getUser().getName()
-                        : null);
+                row.put("questionCount", test.getQuestionCount());
+                row.put("teacherName", test.getTeacherName());
                 row.put("createdAt", test.getCreatedAt());
                 row.put("startTime", test.getStartTime());
                 row.put("endTime", test.getEndTime());
@@ -261,13 +396,13 @@ public class OnlineTestService {
                 row.put("expired", expired);
                 row.put("active", active);
 
-                submissionRepository.findByTestAndStudent(test, student).ifPresentOrElse(sub -> {
+                if (test.getSubmissionId() != null) {
                     row.put("attempted", true);
-                    row.put("score", sub.getScore());
-                    row.put("submittedAt", sub.getSubmittedAt());
-                }, () -> {
+                    row.put("score", test.getScore());
+                    row.put("submittedAt", test.getSubmittedAt());
+                } else {
                     row.put("attempted", false);
-                });
+                }
                 return row;
             }).collect(Collectors.toList());
 
@@ -301,7 +436,6 @@ public class OnlineTestService {
             payload.put("subject", test.getSubject());
             payload.put("description", test.getDescription());
             payload.put("maxMarks", test.getMaxMarks());
-            payload.put("questionCount", test.getQuestions().size());
             payload.put("startTime", test.getStartTime());
             payload.put("endTime", test.getEndTime());
 
@@ -312,6 +446,15 @@ public class OnlineTestService {
                 return universalResponse("This test is not currently available", null, HttpStatus.BAD_REQUEST);
             }
 
+            // Taking the test: every student gets the same pre-serialized, answer-free paper
+            if (submissionOpt.isEmpty()) {
+                ExamPaperCache.Paper paper = examPaperCache.get(test);
+                payload.put("questionCount", paper.getQuestionCount());
+                payload.put("questions", paper.questions());
+                return universalResponse("Test fetched", payload, HttpStatus.OK);
+            }
+            payload.put("questionCount", test.getQuestions().size());
+
             // Create a map of questionId -> answer details if submission exists
             Map<Long, OnlineTestAnswer> answerMap = new HashMap<>();
             if (submissionOpt.isPresent()) {
@@ -363,7 +506,33 @@ public class OnlineTestService {
         }
     }
 
+    // Attempts stored twice before the unique (test_id, student_id) key existed: the first one
+    // stands and later ones (with their answers) are deleted, then the affected tests' item
+    // statistics and leaderboards are recomputed. Hibernate's schema update adds the key on
+    // the next start once no duplicates are left.
+    public int removeDuplicateSubmissions() {
+        Set<Long> testIds = new HashSet<>();
+        int removed = transactionTemplate.execute(status -> {
+            int deleted = 0;
+            for (Object[] attempt : submissionRepository.findDuplicateAttempts()) {
+                List<Long> later = submissionRepository.findLaterAttemptIds((Long) attempt[0], (Long) attempt[1], (Long) attempt[2]);
+                submissionRepository.deleteAllById(later);
+                testIds.add((Long) attempt[0]);
+                deleted += later.size();
+            }
+            return deleted;
+        });
+        for (Long testId : testIds) {
+            itemAnalysisService.rebuild(testId);
+            leaderboardService.evict(testId);
+        }
+        return removed;
+    }
+
     public ResponseEntity<?> submitTest(Long testId, Principal principal, OnlineTestSubmissionRequest request) {
+        if (submissionIngestService.isEnabled()) {
+            return submitTestQueued(testId, principal, request);
+        }
         try {
             Users studentUser = userRepository.findByEmail(principal.getName());
             if (studentUser == null || !"STUDENT".equalsIgnoreCase(studentUser.getRole())) {
@@ -384,57 +553,27 @@ public class OnlineTestService {
                 return universalResponse("This test is no longer available", null, HttpStatus.BAD_REQUEST);
             }
 
-            if (submissionRepository.findByTestAndStudent(test, student).isPresent()) {
-                return universalResponse("You have already attempted this test", null, HttpStatus.BAD_REQUEST);
+            // Grade against the cached answer key instead of reloading the questions
+            AnswerKeyCache.AnswerKey answerKey = answerKeyCache.get(test);
+            if (answerKey.size() == 0) {
+                return universalResponse("Test has no questions", null, HttpStatus.BAD_REQUEST);
             }
 
-            if (request.getAnswers() == null || request.getAnswers().isEmpty()) {
+            SubmissionIngestService.GradedSubmission graded = grade(answerKey, test.getId(), student.getId(), request);
+            if (graded == null) {
                 return universalResponse("Please answer at least one question", null, HttpStatus.BAD_REQUEST);
             }
 
-            Map<Long, OnlineTestQuestion> questionsMap = test.getQuestions().stream()
-                    .collect(Collectors.toMap(OnlineTestQuestion::getId, q -> q));
-
-            int totalQuestions = questionsMap.size();
-            if (totalQuestions == 0) {
-                return universalResponse("Test has no questions", null, HttpStatus.BAD_REQUEST);
-            }
-
-            Map<Long, String> answersMap = request.getAnswers().stream()
-                    .filter(ans -> ans.getQuestionId() != null && ans.getSelectedOption() != null)
-                    .collect(Collectors.toMap(
-                            OnlineTestSubmissionRequest.AnswerDTO::getQuestionId,
-                            ans -> ans.getSelectedOption().trim().toUpperCase(Locale.ENGLISH),
-                            (a, b) -> b));
-
-            int correctCount = 0;
-            OnlineTestSubmission submission = new OnlineTestSubmission();
-            submission.setStudent(student);
-            submission.setTest(test);
-
-            for (OnlineTestQuestion question : questionsMap.values()) {
-                OnlineTestAnswer answer = new OnlineTestAnswer();
-                answer.setQuestion(question);
-                String selected = answersMap.getOrDefault(question.getId(), "");
-                if (!VALID_OPTIONS.contains(selected)) {
-                    selected = "";
-                }
-                answer.setSelectedOption(selected);
-                boolean isCorrect = question.getCorrectOption().equalsIgnoreCase(selected);
-                answer.setCorrect(isCorrect);
-                if (isCorrect) {
-                    correctCount++;
-                }
-                answer.setSubmission(submission);
-                submission.getAnswers().add(answer);
+            // The unique (test_id, student_id) key rejects a second attempt, including concurrent double submits
+            OnlineTestSubmission saved;
+            try {
+                // References in the entity need the same session as the insert, with or without open-in-view
+                saved = transactionTemplate.execute(status ->
+                        submissionRepository.saveAndFlush(submissionIngestService.toEntity(graded)));
+            } catch (DataIntegrityViolationException e) {
+                return universalResponse("You have already attempted this test", null, HttpStatus.BAD_REQUEST);
             }
-
-            submission.setTotalCorrect(correctCount);
-            int score = calculateScore(correctCount, totalQuestions, test.getMaxMarks());
-            submission.setScore(score);
-            submission.setSubmittedAt(LocalDateTime.now());
-
-            OnlineTestSubmission saved = submissionRepository.save(submission);
+            submissionIngestService.afterSaved(graded);
 
             Map<String, Object> payload = new HashMap<>();
             payload.put("submissionId", saved.getId());
@@ -448,6 +587,156 @@ public class OnlineTestService {
         }
     }
 
+    // Queued ingestion: validate against cached state, grade in memory and hand off to the
+    // ingestion queue. The student gets a receipt to poll, or 429 when the queue is full.
+    private ResponseEntity<?> submitTestQueued(Long testId, Principal principal, OnlineTestSubmissionRequest request) {
+        try {
+            Optional<Long> studentId = studentRepository.findIdByUserEmail(principal.getName());
+            if (studentId.isEmpty()) {
+                return universalResponse("Student not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            AnswerKeyCache.AnswerKey answerKey = answerKeyCache.get(testId);
+            if (answerKey == null) {
+                return universalResponse("Test not found", null, HttpStatus.NOT_FOUND);
+            }
+            if (!answerKey.isOpen(LocalDateTime.now())) {
+                return universalResponse("This test is no longer available", null, HttpStatus.BAD_REQUEST);
+            }
+            if (answerKey.size() == 0) {
+                return universalResponse("Test has no questions", null, HttpStatus.BAD_REQUEST);
+            }
+            // One lookup on the unique key, so a stored attempt gets the same answer as the direct path
+            // instead of a receipt that only turns DUPLICATE later; a double submit still in the queue
+            // gets its first receipt back from enqueue
+            if (submissionRepository.existsByTestIdAndStudentId(testId, studentId.get())) {
+                return universalResponse("You have already attempted this test", null, HttpStatus.BAD_REQUEST);
+            }
+
+            SubmissionIngestService.GradedSubmission graded = grade(answerKey, testId, studentId.get(), request);
+            if (graded == null) {
+                return universalResponse("Please answer at least one question", null, HttpStatus.BAD_REQUEST);
+            }
+
+            SubmissionIngestService.Receipt receipt = submissionIngestService.enqueue(graded);
+            if (receipt == null) {
+                responseWrapper.setMessage("Too many submissions right now, please retry shortly");
+                responseWrapper.setData(null);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(submissionIngestService.getRetryAfterSeconds()))
+                        .body(responseWrapper);
+            }
+            return universalResponse("Test submission received", receipt.toPayload(), HttpStatus.ACCEPTED);
+        } catch (Exception e) {
+            return universalResponse("Failed to submit test: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    public ResponseEntity<?> getSubmissionReceipt(String receiptId, Principal principal) {
+        try {
+            Optional<Long> studentId = studentRepository.findIdByUserEmail(principal.getName());
+            if (studentId.isEmpty()) {
+                return universalResponse("Student not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            SubmissionIngestService.Receipt receipt = submissionIngestService.getReceipt(receiptId);
+            if (receipt == null || !studentId.get().equals(receipt.getStudentId())) {
+                return universalResponse("Receipt not found", null, HttpStatus.NOT_FOUND);
+            }
+            return universalResponse("Submission status fetched", receipt.toPayload(), HttpStatus.OK);
+        } catch (Exception e) {
+            return universalResponse("Failed to fetch submission status: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Autosave: only the answers changed since the last call are sent; they are buffered in memory
+    // and written to the draft table in batches. Student and key come from memory after the first
+    // autosave of the exam, so a steady autosave issues no statement at all.
+    public ResponseEntity<?> autosaveAnswers(Long testId, Principal principal, OnlineTestSubmissionRequest request) {
+        try {
+            Optional<Long> studentId = examDraftService.sessionStudentId(testId, principal.getName());
+            if (studentId.isEmpty()) {
+                return universalResponse("Student not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            AnswerKeyCache.AnswerKey answerKey = answerKeyCache.getCached(testId);
+            if (answerKey == null) {
+                return universalResponse("Test not found", null, HttpStatus.NOT_FOUND);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (!answerKey.isOpen(now)) {
+                return universalResponse("This test is no longer available", null, HttpStatus.BAD_REQUEST);
+            }
+
+            // Unknown questions are ignored; an empty or invalid option clears the saved answer
+            Map<Long, String> delta = new HashMap<>();
+            if (request != null && request.getAnswers() != null) {
+                for (OnlineTestSubmissionRequest.AnswerDTO ans : request.getAnswers()) {
+                    if (ans == null || answerKey.indexOf(ans.getQuestionId()) < 0) continue;
+                    delta.put(ans.getQuestionId(), AnswerKeyCache.AnswerKey.optionLetter(
+                            AnswerKeyCache.AnswerKey.optionIndex(ans.getSelectedOption())));
+                }
+            }
+            if (delta.isEmpty()) {
+                return universalResponse("No answers to save", null, HttpStatus.BAD_REQUEST);
+            }
+
+            examDraftService.record(testId, studentId.get(), delta);
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("saved", delta.size());
+            payload.put("savedAt", now);
+            return universalResponse("Answers saved", payload, HttpStatus.OK);
+        } catch (Exception e) {
+            return universalResponse("Failed to save answers: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Autosaved answers, so a student can resume after losing the browser mid-exam
+    public ResponseEntity<?> getDraftAnswers(Long testId, Principal principal) {
+        try {
+            Optional<Long> studentId = studentRepository.findIdByUserEmail(principal.getName());
+            if (studentId.isEmpty()) {
+                return universalResponse("Student not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            List<Map<String, Object>> answers = examDraftService.getDraft(testId, studentId.get()).entrySet().stream()
+                    .map(entry -> {
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("questionId", entry.getKey());
+                        row.put("selectedOption", entry.getValue());
+                        return row;
+                    }).collect(Collectors.toList());
+
+            return universalResponse("Draft fetched", answers, HttpStatus.OK);
+        } catch (Exception e) {
+            return universalResponse("Failed to fetch draft: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Rank and percentile of the student's submission among everyone who took the test
+    public ResponseEntity<?> getMyRank(Long testId, Principal principal) {
+        try {
+            Optional<Long> studentId = studentRepository.findIdByUserEmail(principal.getName());
+            if (studentId.isEmpty()) {
+                return universalResponse("Student not found", null, HttpStatus.FORBIDDEN);
+            }
+
+            Optional<OnlineTest> optionalTest = onlineTestRepository.findById(testId);
+            if (optionalTest.isEmpty()) {
+                return universalResponse("Test not found", null, HttpStatus.NOT_FOUND);
+            }
+
+            Map<String, Object> rank = leaderboardService.getRank(optionalTest.get(), studentId.get());
+            if (rank == null) {
+                return universalResponse("You have not submitted this test", null, HttpStatus.NOT_FOUND);
+            }
+            return universalResponse("Rank fetched", rank, HttpStatus.OK);
+        } catch (Exception e) {
+            return universalResponse("Failed to fetch rank: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     public ResponseEntity<?> getStudentResults(Principal principal) {
         try {
             Users studentUser = userRepository.findByEmail(principal.getName());
@@ -479,6 +768,41 @@ public class OnlineTestService {
     }
 
     // Helpers
+    // Selections laid out like the key: autosaved draft first, then the submitted answers
+    // (last answer wins for a repeated question). Null when nothing was answered.
+    private SubmissionIngestService.GradedSubmission grade(AnswerKeyCache.AnswerKey answerKey, Long testId,
+            Long studentId, OnlineTestSubmissionRequest request) {
+        byte[] selected = answerKey.emptySelection();
+        examDraftService.getDraft(testId, studentId).forEach((questionId, option) -> {
+            int index = answerKey.indexOf(questionId);
+            if (index >= 0) {
+                selected[index] = AnswerKeyCache.AnswerKey.optionIndex(option);
+            }
+        });
+        if (request != null && request.getAnswers() != null) {
+            for (OnlineTestSubmissionRequest.AnswerDTO ans : request.getAnswers()) {
+                if (ans == null || ans.getSelectedOption() == null) continue;
+                int index = answerKey.indexOf(ans.getQuestionId());
+                if (index >= 0) {
+                    selected[index] = AnswerKeyCache.AnswerKey.optionIndex(ans.getSelectedOption());
+                }
+            }
+        }
+
+        boolean answeredAny = false;
+        for (byte option : selected) {
+            if (option != AnswerKeyCache.AnswerKey.NO_ANSWER) {
+                answeredAny = true;
+                break;
+            }
+        }
+        if (!answeredAny) {
+            return null;
+        }
+
+        return submissionIngestService.grade(answerKey, testId, studentId, selected);
+    }
+
     private ResponseEntity<?> validateQuestion(OnlineTestRequest.QuestionDTO questionDTO) {
         if (questionDTO == null) {
             return universalResponse("Invalid question payload", null, HttpStatus.BAD_REQUEST);
@@ -498,7 +822,7 @@ public class OnlineTestService {
     }
 
     private boolean isTestCurrentlyActive(OnlineTest test) {
-        if (test == null) {
+        if (test == null || Boolean.TRUE.equals(test.getClosed())) {
             return false;
         }
         LocalDateTime now = LocalDateTime.now();
@@ -513,7 +837,8 @@ public class OnlineTestService {
         return (now.isEqual(start) || now.isAfter(start)) && now.isBefore(end);
     }
 
-    private int calculateScore(int correctCount, int totalQuestions, int maxMarks) {
+    // Shared with TestRegradeService so regrades score exactly like submissions
+    static int calculateScore(int correctCount, int totalQuestions, int maxMarks) {
         if (totalQuestions == 0) {
             return 0;
         }
@@ -0,0 +1,53 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.repositories.PaymentRepository;
+
+// Expires checkouts that were abandoned: PENDING payments older than payment.pending.ttl-minutes
+// become EXPIRED, so order creation and the payment history only ever look at live orders.
+// Rows are walked by id (keyset) and updated in bulk, one short transaction per batch.
+// A late gateway confirmation still succeeds, since confirmPayment accepts any non-SUCCESS payment.
+@Service
+public class PaymentExpiryService {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${payment.pending.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${payment.pending.expiry-batch-size:500}")
+    private int batchSize;
+
+    // Returns the number of payments expired
+    public int expireStalePayments() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        PageRequest page = PageRequest.of(0, Math.max(batchSize, 1));
+        long afterId = 0;
+        int expired = 0;
+        while (true) {
+            List<Long> ids = paymentRepository.findStalePendingIds(cutoff, afterId, page);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer updated = transactionTemplate.execute(status -> paymentRepository.expirePending(ids));
+            expired += updated != null ? updated : 0;
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < page.getPageSize()) {
+                break;
+            }
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,56 @@
+package com.learnix.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+// Payment provider used by checkout. The live implementation talks to Razorpay over one shared
+// HTTP client; payment.gateway=stub (the payment-sim profile) swaps in an in-process simulator.
+public interface PaymentGateway {
+
+    // Create an order for the amount in the currency's minor unit (paise) and return its order id
+    String createOrder(long amountMinor, String currency, String receipt, Map<String, String> notes);
+
+    // Public key the checkout widget is opened with
+    String getKeyId();
+
+    // Whether the signature the checkout widget returned belongs to this order and payment
+    boolean verifySignature(String orderId, String paymentId, String signature);
+
+    // Checkout signature: hex HMAC-SHA256 of "orderId|paymentId" keyed with the gateway secret
+    static String checkoutSignature(String secret, String orderId, String paymentId) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal((orderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    // Constant-time comparison against the expected checkout signature
+    static boolean matchesSignature(String secret, String orderId, String paymentId, String signature) {
+        if (secret == null || secret.isEmpty() || orderId == null || paymentId == null || signature == null) {
+            return false;
+        }
+        byte[] expected = checkoutSignature(secret, orderId, paymentId).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, signature.trim().toLowerCase().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Gateway could not be reached, answered with an error, or is short-circuited after repeated failures
+    class PaymentGatewayException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public PaymentGatewayException(String message) {
+            super(message);
+        }
+
+        public PaymentGatewayException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
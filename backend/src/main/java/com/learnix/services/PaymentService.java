@@ -1,18 +1,23 @@
 package com.learnix.services;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.learnix.dto.StudentPaymentView;
 import com.learnix.models.Course;
 import com.learnix.models.Enrollment;
 import com.learnix.models.Payment;
@@ -22,9 +27,10 @@ import com.learnix.repositories.EnrollmentRepository;
 import com.learnix.repositories.PaymentRepository;
 import com.learnix.repositories.UserRepository;
 import com.learnix.responseWrapper.MyResponseWrapper;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
-import com.razorpay.RazorpayException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 public class PaymentService {
@@ -41,17 +47,33 @@ public class PaymentService {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @Autowired
+    private CourseSalesService courseSalesService;
+
     @Autowired
     private MyResponseWrapper responseWrapper;
 
-    @Value("${razorpay.key.id:rzp_test_123}")
-    private String razorpayKeyId;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    @Value("${razorpay.key.secret:test_secret}")
-    private String razorpayKeySecret;
+    private TransactionTemplate newTransaction;
 
-    private RazorpayClient getRazorpayClient() throws RazorpayException {
-        return new RazorpayClient(razorpayKeyId, razorpayKeySecret);
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     // Create Razorpay order
@@ -74,8 +96,7 @@ public class PaymentService {
             }
 
             // Check if already enrolled and paid
-            Enrollment existingEnrollment = enrollmentRepository.findByStudentAndCourse(student, course);
-            if (existingEnrollment != null && Boolean.TRUE.equals(existingEnrollment.getIsPaid())) {
+            if (entitlementService.hasAccess(student.getId(), course.getId())) {
             	return universalResponse("Already enrolled and paid", null, HttpStatus.CONFLICT);
             }
 
@@ -116,20 +137,16 @@ public class PaymentService {
                 paymentRepository.save(payment);
             }
 
-            // Create Razorpay order
-            RazorpayClient razorpay = getRazorpayClient();
-            JSONObject orderRequest = new JSONObject();
-            orderRequest.put("amount", (int)(amount * 100)); // Convert to paise
-            orderRequest.put("currency", "INR");
-            orderRequest.put("receipt", "receipt_" + courseId + "_" + student.getId());
-            orderRequest.put("notes", Map.of(
-                "courseId", courseId.toString(),
-                "studentEmail", studentEmail,
-                "courseName", course.getTitle()
-            ));
-
-            Order order = razorpay.orders.create(orderRequest);
-            String orderId = order.get("id");
+            // Create gateway order
+            String orderId = paymentGateway.createOrder(
+                Math.round(amount * 100), // Convert to paise
+                "INR",
+                "receipt_" + courseId + "_" + student.getId(),
+                Map.of(
+                    "courseId", courseId.toString(),
+                    "studentEmail", studentEmail,
+                    "courseName", course.getTitle()
+                ));
 
             // Update payment with new order ID
             payment.setRazorpayOrderId(orderId);
@@ -140,11 +157,11 @@ public class PaymentService {
             response.put("orderId", orderId);
             response.put("amount", amount);
             response.put("currency", "INR");
-            response.put("keyId", razorpayKeyId);
+            response.put("keyId", paymentGateway.getKeyId());
 
             return universalResponse("Order created successfully", response, HttpStatus.CREATED);
 
-        } catch (RazorpayException e) {
+        } catch (PaymentGateway.PaymentGatewayException e) {
         	return universalResponse("Error creating order: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
         } catch (Exception e) {
         	return universalResponse("Error: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -163,40 +180,13 @@ public class PaymentService {
             if ("SUCCESS".equals(payment.getStatus())) {
             	return universalResponse("Payment already verified", payment, HttpStatus.OK);
             }
-            
-            // Update payment status
-            payment.setRazorpayPaymentId(razorpayPaymentId);
-            payment.setRazorpaySignature(razorpaySignature);
-            payment.setStatus("SUCCESS");
-            payment.setPaidAt(LocalDateTime.now());
-            paymentRepository.save(payment);
 
-            // Mark all other pending/failed payments for the same course and student as CANCELLED
-            List<Payment> otherPayments = paymentRepository.findByStudentAndCourse(payment.getStudent(), payment.getCourse())
-                .stream()
-                .filter(p -> !p.getId().equals(payment.getId()) && 
-                            ("PENDING".equals(p.getStatus()) || "FAILED".equals(p.getStatus())))
-                .collect(java.util.stream.Collectors.toList());
-            
-            for (Payment otherPayment : otherPayments) {
-                otherPayment.setStatus("CANCELLED");
-                paymentRepository.save(otherPayment);
+            // Only the gateway can produce a valid signature for this order and payment
+            if (!paymentGateway.verifySignature(razorpayOrderId, razorpayPaymentId, razorpaySignature)) {
+            	return universalResponse("Invalid payment signature", null, HttpStatus.BAD_REQUEST);
             }
 
-            // Create or update enrollment
-            Enrollment enrollment = enrollmentRepository.findByStudentAndCourse(payment.getStudent(), payment.getCourse());
-            if (enrollment == null) {
-                enrollment = Enrollment.builder()
-                    .student(payment.getStudent())
-                    .course(payment.getCourse())
-                    .isPaid(true)
-                    .build();
-            } else {
-                enrollment.setIsPaid(true);
-            }
-            enrollment = enrollmentRepository.save(enrollment);
-            // Flush to ensure enrollment is immediately available
-            enrollmentRepository.flush();
+            payment = confirmPayment(payment, razorpayPaymentId, razorpaySignature);
 
             return universalResponse("Payment verified and enrollment completed", payment, HttpStatus.OK);
 
@@ -205,64 +195,137 @@ public class PaymentService {
         }
     }
 
+    // Mark a payment successful, cancel the student's other attempts for the course and grant the
+    // enrollment, all in one transaction. Shared by verifyPayment and the webhook worker. All
+    // attempts of the student for the course are locked first, so of concurrent confirmations
+    // (of this order or a sibling one) only the first sells the course; the others find a SUCCESS
+    // attempt and return it.
+    public Payment confirmPayment(Payment payment, String razorpayPaymentId, String razorpaySignature) {
+        // Insert halves of the enrollment and sales upserts come first: they commit on a connection
+        // of their own, which a transaction holding the payment locks must never wait for
+        ensureEnrollment(payment.getStudent(), payment.getCourse());
+        courseSalesService.ensureRow(payment.getCourse().getId());
+
+        return transactionTemplate.execute(status -> {
+            Payment locked = null;
+            Payment confirmed = null;
+            for (Payment attempt : paymentRepository.findAttemptsForUpdate(payment.getStudent(), payment.getCourse())) {
+                // The caller's persistence context (webhook transaction, open session) may hold a
+                // copy read before the lock, which the query does not overwrite
+                entityManager.refresh(attempt);
+                if (attempt.getId().equals(payment.getId())) {
+                    locked = attempt;
+                }
+                if ("SUCCESS".equals(attempt.getStatus())) {
+                    confirmed = attempt;
+                }
+            }
+            if (locked == null) {
+                throw new IllegalStateException("Payment not found");
+            }
+            if (confirmed != null) {
+                // A sibling attempt sold the course first; keep the gateway payment id on this one
+                // so the second charge can be traced and refunded
+                if (confirmed != locked) {
+                    locked.setStatus("CANCELLED");
+                    if (razorpayPaymentId != null) {
+                        locked.setRazorpayPaymentId(razorpayPaymentId);
+                    }
+                    paymentRepository.save(locked);
+                }
+                return confirmed;
+            }
+
+            locked.setRazorpayPaymentId(razorpayPaymentId);
+            if (razorpaySignature != null) {
+                locked.setRazorpaySignature(razorpaySignature);
+            }
+            locked.setStatus("SUCCESS");
+            locked.setPaidAt(LocalDateTime.now());
+            paymentRepository.save(locked);
+
+            paymentRepository.cancelOtherAttempts(locked.getStudent(), locked.getCourse(), locked.getId());
+
+            // Update half of the enrollment upsert: flag the row paid in this transaction
+            enrollmentRepository.markPaid(locked.getStudent(), locked.getCourse());
+            entitlementService.grant(locked.getStudent().getId(), locked.getCourse().getId(), locked.getId());
+            courseSalesService.recordSale(locked.getCourse().getId(), locked.getAmount(), locked.getPaidAt());
+            return locked;
+        });
+    }
+
+    // Insert half of the enrollment upsert. Runs in its own transaction so losing the race on
+    // the unique (student, course) key does not roll back the payment; the row is created
+    // unpaid and only markPaid, inside the payment transaction, grants access.
+    private void ensureEnrollment(Users student, Course course) {
+        if (enrollmentRepository.existsByStudentAndCourse(student, course)) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> enrollmentRepository.saveAndFlush(Enrollment.builder()
+                .student(student)
+                .course(course)
+                .isPaid(false)
+                .build()));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently; markPaid updates that row
+        }
+    }
+
+    // Record a failed attempt reported by the gateway; false when the payment is no longer PENDING.
+    // The caller's copy may predate a confirmation that committed since, so the status is checked
+    // by the update itself and the copy is never saved back.
+    public boolean failPayment(Payment payment, String razorpayPaymentId) {
+        Integer updated = transactionTemplate.execute(status ->
+            paymentRepository.failPending(payment.getId(), razorpayPaymentId));
+        return updated != null && updated > 0;
+    }
+
     // Check if student has paid for course
     public boolean isPaymentCompleted(String studentEmail, Long courseId) {
         Users student = userRepository.findByEmail(studentEmail);
         if (student == null) return false;
 
-        Optional<Course> courseOpt = courseRepository.findById(courseId);
-        if (courseOpt.isEmpty()) return false;
-
-        Course course = courseOpt.get();
-        Enrollment enrollment = enrollmentRepository.findByStudentAndCourse(student, course);
-        
-        // First check if enrollment exists and is marked as paid
-        if (enrollment == null || !Boolean.TRUE.equals(enrollment.getIsPaid())) {
-            return false;
-        }
-        
-        // Verify there's actually a successful payment record
-        List<Payment> payments = paymentRepository.findByStudentAndCourse(student, course);
-        boolean hasSuccessfulPayment = payments.stream()
-                .anyMatch(p -> "SUCCESS".equals(p.getStatus()));
-        
-        // If enrollment says paid but no successful payment exists, correct the enrollment
-        if (!hasSuccessfulPayment) {
-            enrollment.setIsPaid(false);
-            enrollmentRepository.save(enrollment);
-            return false;
-        }
-        
-        return true;
+        return entitlementService.hasAccess(student.getId(), courseId);
     }
 
-    // Get revenue statistics
+    // Get revenue statistics (one grouped query; totals are summed over currencies as before)
     public Map<String, Object> getRevenueStats() {
         Map<String, Object> stats = new HashMap<>();
-        
-        List<Payment> allPayments = paymentRepository.findByStatus("SUCCESS");
-        double totalRevenue = allPayments.stream()
-            .mapToDouble(p -> p.getAmount() != null ? p.getAmount() : 0.0)
-            .sum();
-
-        // Monthly revenue
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        List<Payment> monthlyPayments = paymentRepository.findByStatusAndCreatedAtAfter("SUCCESS", startOfMonth);
-        double monthlyRevenue = monthlyPayments.stream()
-            .mapToDouble(p -> p.getAmount() != null ? p.getAmount() : 0.0)
-            .sum();
-
-        // Yearly revenue
-        LocalDateTime startOfYear = LocalDateTime.now().withMonth(1).withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        List<Payment> yearlyPayments = paymentRepository.findByStatusAndCreatedAtAfter("SUCCESS", startOfYear);
-        double yearlyRevenue = yearlyPayments.stream()
-            .mapToDouble(p -> p.getAmount() != null ? p.getAmount() : 0.0)
-            .sum();
+
+        LocalDateTime startOfMonth = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime startOfYear = startOfMonth.withMonth(1);
+
+        double totalRevenue = 0.0;
+        double monthlyRevenue = 0.0;
+        double yearlyRevenue = 0.0;
+        long totalTransactions = 0;
+        Map<String, Object> byCurrency = new HashMap<>();
+        for (Object[] row : paymentRepository.findRevenueByCurrency(startOfYear, startOfMonth)) {
+            String currency = (String) row[0];
+            long transactions = ((Number) row[1]).longValue();
+            double total = ((Number) row[2]).doubleValue();
+            double yearly = ((Number) row[3]).doubleValue();
+            double monthly = ((Number) row[4]).doubleValue();
+
+            Map<String, Object> currencyStats = new HashMap<>();
+            currencyStats.put("totalRevenue", total);
+            currencyStats.put("monthlyRevenue", monthly);
+            currencyStats.put("yearlyRevenue", yearly);
+            currencyStats.put("totalTransactions", transactions);
+            byCurrency.put(currency, currencyStats);
+
+            totalRevenue += total;
+            monthlyRevenue += monthly;
+            yearlyRevenue += yearly;
+            totalTransactions += transactions;
+        }
 
         stats.put("totalRevenue", totalRevenue);
         stats.put("monthlyRevenue", monthlyRevenue);
         stats.put("yearlyRevenue", yearlyRevenue);
-        stats.put("totalTransactions", allPayments.size());
+        stats.put("totalTransactions", totalTransactions);
+        stats.put("revenueByCurrency", byCurrency);
 
         return stats;
     }
@@ -275,119 +338,37 @@ public class PaymentService {
             	return universalResponse("Student not found", null, HttpStatus.NOT_FOUND);
             }
 
-            List<Payment> payments = paymentRepository.findByStudent(student);
-            
-            // Group payments by course and filter duplicates
-            Map<Long, List<Payment>> paymentsByCourse = payments.stream()
-                .filter(p -> p.getCourse() != null && p.getCourse().getId() != null)
-                .collect(java.util.stream.Collectors.groupingBy(p -> p.getCourse().getId()));
-            
-            List<Payment> filteredPayments = new java.util.ArrayList<>();
-            
-            for (List<Payment> coursePayments : paymentsByCourse.values()) {
-                // Check if there's any successful payment
-                boolean hasSuccess = coursePayments.stream()
-                    .anyMatch(p -> "SUCCESS".equals(p.getStatus()));
-                
-                if (hasSuccess) {
-                    // Show only successful payments for this course
-                    filteredPayments.addAll(coursePayments.stream()
-                        .filter(p -> "SUCCESS".equals(p.getStatus()))
-                        .collect(java.util.stream.Collectors.toList()));
-                } else {
-                    // No success, show the most recent pending or failed payment
-                    Optional<Payment> mostRecentPending = coursePayments.stream()
-                        .filter(p -> "PENDING".equals(p.getStatus()))
-                        .max((p1, p2) -> {
-                            if (p1.getCreatedAt() == null && p2.getCreatedAt() == null) return 0;
-                            if (p1.getCreatedAt() == null) return -1;
-                            if (p2.getCreatedAt() == null) return 1;
-                            return p1.getCreatedAt().compareTo(p2.getCreatedAt());
-                        });
-                    
-                    if (mostRecentPending.isPresent()) {
-                        filteredPayments.add(mostRecentPending.get());
-                    } else {
-                        // No pending, get most recent failed
-                        Optional<Payment> mostRecentFailed = coursePayments.stream()
-                            .filter(p -> "FAILED".equals(p.getStatus()))
-                            .max((p1, p2) -> {
-                                if (p1.getCreatedAt() == null && p2.getCreatedAt() == null) return 0;
-                                if (p1.getCreatedAt() == null) return -1;
-                                if (p2.getCreatedAt() == null) return 1;
-                                return p1.getCreatedAt().compareTo(p2.getCreatedAt());
-                            });
-                        
-                        if (mostRecentFailed.isPresent()) {
-                            filteredPayments.add(mostRecentFailed.get());
-                        }
-                    }
-                }
+            // Latest relevant payment per course and the totals, in one statement
+            List<StudentPaymentView> rows = paymentRepository.findPaymentHistory(student.getId());
+
+            List<Map<String, Object>> paymentRecords = new ArrayList<>();
+            for (StudentPaymentView row : rows) {
+                Map<String, Object> record = new HashMap<>();
+                record.put("id", row.getId());
+                record.put("amount", row.getAmount());
+                record.put("currency", row.getCurrency());
+                record.put("status", row.getStatus() != null ? row.getStatus().toLowerCase() : "pending");
+                record.put("transactionId", row.getTransactionId());
+                record.put("orderId", row.getOrderId());
+                record.put("createdAt", row.getCreatedAt());
+                record.put("paidAt", row.getPaidAt());
+
+                // Course details
+                Map<String, Object> courseInfo = new HashMap<>();
+                courseInfo.put("id", row.getCourseId());
+                courseInfo.put("title", row.getCourseTitle());
+                courseInfo.put("category", row.getCourseCategory());
+                courseInfo.put("price", row.getCoursePrice());
+                record.put("course", courseInfo);
+
+                paymentRecords.add(record);
             }
-            
-            // Build payment records with course details
-            List<Map<String, Object>> paymentRecords = filteredPayments.stream()
-                    .map(payment -> {
-                        Map<String, Object> record = new HashMap<>();
-                        record.put("id", payment.getId());
-                        record.put("amount", payment.getAmount());
-                        record.put("currency", payment.getCurrency());
-                        record.put("status", payment.getStatus() != null ? payment.getStatus().toLowerCase() : "pending");
-                        record.put("transactionId", payment.getRazorpayPaymentId());
-                        record.put("orderId", payment.getRazorpayOrderId());
-                        record.put("createdAt", payment.getCreatedAt());
-                        record.put("paidAt", payment.getPaidAt());
-                        
-                        // Course details
-                        Course course = payment.getCourse();
-                        if (course != null) {
-                            Map<String, Object> courseInfo = new HashMap<>();
-                            courseInfo.put("id", course.getId());
-                            courseInfo.put("title", course.getTitle());
-                            courseInfo.put("category", course.getCategory());
-                            courseInfo.put("price", course.getPrice());
-                            record.put("course", courseInfo);
-                        }
-                        
-                        return record;
-                    })
-                    .sorted((a, b) -> {
-                        // Sort by created date, most recent first
-                        LocalDateTime dateA = (LocalDateTime) a.get("createdAt");
-                        LocalDateTime dateB = (LocalDateTime) b.get("createdAt");
-                        if (dateA == null && dateB == null) return 0;
-                        if (dateA == null) return 1;
-                        if (dateB == null) return -1;
-                        return dateB.compareTo(dateA);
-                    })
-                    .collect(java.util.stream.Collectors.toList());
 
-            // Calculate statistics
-            double totalAmount = paymentRecords.stream()
-                    .mapToDouble(record -> {
-                        Object amount = record.get("amount");
-                        return amount != null ? ((Number) amount).doubleValue() : 0.0;
-                    })
-                    .sum();
-
-            double paidAmount = paymentRecords.stream()
-                    .filter(record -> "success".equalsIgnoreCase((String) record.get("status")))
-                    .mapToDouble(record -> {
-                        Object amount = record.get("amount");
-                        return amount != null ? ((Number) amount).doubleValue() : 0.0;
-                    })
-                    .sum();
-
-            double pendingAmount = paymentRecords.stream()
-                    .filter(record -> {
-                        String status = (String) record.get("status");
-                        return "pending".equalsIgnoreCase(status) || "failed".equalsIgnoreCase(status);
-                    })
-                    .mapToDouble(record -> {
-                        Object amount = record.get("amount");
-                        return amount != null ? ((Number) amount).doubleValue() : 0.0;
-                    })
-                    .sum();
+            // Every row carries the same window totals
+            StudentPaymentView first = rows.isEmpty() ? null : rows.get(0);
+            double totalAmount = first != null && first.getTotalAmount() != null ? first.getTotalAmount() : 0.0;
+            double paidAmount = first != null && first.getPaidAmount() != null ? first.getPaidAmount() : 0.0;
+            double pendingAmount = first != null && first.getPendingAmount() != null ? first.getPendingAmount() : 0.0;
 
             Map<String, Object> data = new HashMap<>();
             data.put("payments", paymentRecords);
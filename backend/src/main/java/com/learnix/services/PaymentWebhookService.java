@@ -0,0 +1,184 @@
+package com.learnix.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnix.models.Payment;
+import com.learnix.models.PaymentWebhookEvent;
+import com.learnix.repositories.PaymentRepository;
+import com.learnix.repositories.PaymentWebhookEventRepository;
+
+// Payment gateway webhooks. The endpoint only checks the HMAC signature and stores the event
+// under its gateway event id (redeliveries hit the unique key and are acknowledged as-is);
+// a scheduled worker (see ScheduledTasks) applies stored events through the same
+// PaymentService logic as the browser-side verify call.
+@Service
+public class PaymentWebhookService {
+
+    public static final String RECEIVED = "RECEIVED";
+    public static final String PROCESSED = "PROCESSED";
+    public static final String IGNORED = "IGNORED";
+    public static final String FAILED = "FAILED";
+
+    @Autowired
+    private PaymentWebhookEventRepository eventRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${razorpay.webhook.secret:}")
+    private String webhookSecret;
+
+    @Value("${payment.webhook.batch-size:50}")
+    private int batchSize;
+
+    @Value("${payment.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    // Constant-time check of the X-Razorpay-Signature header (hex HMAC-SHA256 of the raw body)
+    public boolean isValidSignature(String body, String signature) {
+        if (webhookSecret == null || webhookSecret.isEmpty() || body == null || signature == null) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] expected = HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)))
+                    .getBytes(StandardCharsets.UTF_8);
+            return MessageDigest.isEqual(expected, signature.trim().toLowerCase().getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Store a verified event; false when it was already stored (redelivery)
+    public boolean record(String body, String headerEventId) {
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed webhook body", e);
+        }
+        String eventType = text(json.path("event"));
+        JsonNode payment = entity(json, "payment");
+        JsonNode order = entity(json, "order");
+
+        String paymentId = text(payment.path("id"));
+        String orderId = text(payment.path("order_id"));
+        if (orderId == null) {
+            orderId = text(order.path("id"));
+        }
+
+        // Razorpay sends the id in a header; fall back to something stable for the same event
+        String eventId = headerEventId != null && !headerEventId.isBlank()
+                ? headerEventId
+                : eventType + ":" + (paymentId != null ? paymentId : orderId) + ":" + json.path("created_at").asLong();
+
+        if (eventRepository.existsByEventId(eventId)) {
+            return false;
+        }
+        try {
+            eventRepository.save(PaymentWebhookEvent.builder()
+                    .eventId(eventId)
+                    .eventType(eventType)
+                    .orderId(orderId)
+                    .paymentId(paymentId)
+                    .payload(body)
+                    .receivedAt(LocalDateTime.now())
+                    .build());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Concurrent redelivery won the insert
+            return false;
+        }
+    }
+
+    // Apply stored events in arrival order; returns the number handled
+    public int processPending() {
+        List<PaymentWebhookEvent> events = eventRepository.findByStatusOrderByIdAsc(RECEIVED,
+                PageRequest.of(0, Math.max(batchSize, 1)));
+        for (PaymentWebhookEvent event : events) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(event));
+            } catch (RuntimeException e) {
+                int attempts = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+                event.setAttempts(attempts);
+                event.setError(truncate(e.getMessage()));
+                if (attempts >= maxAttempts) {
+                    event.setStatus(FAILED);
+                    event.setProcessedAt(LocalDateTime.now());
+                }
+                eventRepository.save(event);
+            }
+        }
+        return events.size();
+    }
+
+    // Events may arrive twice or out of order: confirmation is idempotent and a failure
+    // report never overrides a confirmed payment
+    private void apply(PaymentWebhookEvent event) {
+        String outcome = IGNORED;
+        Optional<Payment> payment = event.getOrderId() != null
+                ? paymentRepository.findByRazorpayOrderId(event.getOrderId())
+                : Optional.empty();
+        if (payment.isPresent()) {
+            switch (String.valueOf(event.getEventType())) {
+                case "payment.captured", "order.paid" -> {
+                    paymentService.confirmPayment(payment.get(), event.getPaymentId(), null);
+                    outcome = PROCESSED;
+                }
+                case "payment.failed" -> {
+                    paymentService.failPayment(payment.get(), event.getPaymentId());
+                    outcome = PROCESSED;
+                }
+                default -> event.setError("Unhandled event type");
+            }
+        } else {
+            event.setError("No payment for order " + event.getOrderId());
+        }
+        event.setStatus(outcome);
+        event.setAttempts((event.getAttempts() != null ? event.getAttempts() : 0) + 1);
+        event.setProcessedAt(LocalDateTime.now());
+        eventRepository.save(event);
+    }
+
+    // payload.<name>.entity, or a missing node whose fields all read as null
+    private JsonNode entity(JsonNode json, String name) {
+        return json.path("payload").path(name).path("entity");
+    }
+
+    private String text(JsonNode node) {
+        return node.isValueNode() && !node.isNull() ? node.asText() : null;
+    }
+
+    private String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 255 ? message.substring(0, 255) : message;
+    }
+}
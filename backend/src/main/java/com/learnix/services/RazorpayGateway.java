@@ -0,0 +1,173 @@
+package com.learnix.services;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+// Razorpay Orders API over a single thread-safe HttpClient, so checkouts reuse pooled keep-alive
+// connections instead of building a new SDK client (and HTTP stack) per order. Every call has a
+// connect and a request timeout, and a simple circuit breaker fails fast while the gateway is down.
+@Service
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "razorpay", matchIfMissing = true)
+public class RazorpayGateway implements PaymentGateway {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${razorpay.key.id:rzp_test_123}")
+    private String keyId;
+
+    @Value("${razorpay.key.secret:test_secret}")
+    private String keySecret;
+
+    @Value("${payment.gateway.base-url:https://api.razorpay.com/v1}")
+    private String baseUrl;
+
+    @Value("${payment.gateway.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${payment.gateway.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    // Consecutive failures that open the circuit, and how long it stays open
+    @Value("${payment.gateway.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${payment.gateway.breaker.open-ms:30000}")
+    private long openMs;
+
+    private HttpClient client;
+    private String authorization;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openUntil = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((keyId + ":" + keySecret).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String createOrder(long amountMinor, String currency, String receipt, Map<String, String> notes) {
+        if (!allowRequest()) {
+            throw new PaymentGatewayException("Payment gateway is unavailable, please try again shortly");
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("amount", amountMinor);
+        body.put("currency", currency);
+        body.put("receipt", receipt);
+        body.put("notes", notes);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new PaymentGatewayException("Could not build order request", e);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders"))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            // Includes connect and request timeouts
+            onFailure();
+            throw new PaymentGatewayException("Payment gateway did not respond: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Interrupted while creating order", e);
+        }
+
+        int status = response.statusCode();
+        if (status >= 500 || status == 429) {
+            onFailure();
+            throw new PaymentGatewayException("Payment gateway error (HTTP " + status + ")");
+        }
+        // A rejected request (bad amount, bad key) says nothing about gateway health
+        onSuccess();
+        if (status >= 400) {
+            throw new PaymentGatewayException("Order rejected by payment gateway: " + errorDescription(response.body()));
+        }
+        JsonNode orderId;
+        try {
+            orderId = objectMapper.readTree(response.body()).get("id");
+        } catch (JsonProcessingException e) {
+            throw new PaymentGatewayException("Unreadable payment gateway response", e);
+        }
+        if (orderId == null || !orderId.isTextual()) {
+            throw new PaymentGatewayException("Payment gateway response has no order id");
+        }
+        return orderId.asText();
+    }
+
+    @Override
+    public String getKeyId() {
+        return keyId;
+    }
+
+    @Override
+    public boolean verifySignature(String orderId, String paymentId, String signature) {
+        return PaymentGateway.matchesSignature(keySecret, orderId, paymentId, signature);
+    }
+
+    // Closed while openUntil is 0. Once open, the first caller after the cool-down probes the
+    // gateway and everyone else keeps failing fast until that probe succeeds.
+    private boolean allowRequest() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        return now >= until && openUntil.compareAndSet(until, now + openMs);
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        openUntil.set(0);
+    }
+
+    private void onFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openUntil.set(System.currentTimeMillis() + openMs);
+        }
+    }
+
+    private String errorDescription(String body) {
+        try {
+            JsonNode description = objectMapper.readTree(body).path("error").path("description");
+            return description.isTextual() ? description.asText() : body;
+        } catch (Exception e) {
+            return body;
+        }
+    }
+}
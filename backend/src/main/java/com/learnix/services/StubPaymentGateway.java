@@ -0,0 +1,97 @@
+package com.learnix.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+// In-process gateway simulator for running and load-testing checkout offline (payment.gateway=stub,
+// set by the payment-sim profile). Orders get sequential ids, completed checkouts are signed the
+// way Razorpay signs them, and seeded randomness injects latency jitter and order failures. Each
+// createOrder call draws from its own stream, derived from the seed and the call's sequence number,
+// so a run with the same seed and settings fails the same calls (the n-th, the m-th, ...) however
+// concurrent checkouts interleave; which student gets the n-th call is still up to the threads.
+@Service
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "stub")
+public class StubPaymentGateway implements PaymentGateway {
+
+    @Value("${payment.gateway.stub.secret:stub_secret}")
+    private String secret;
+
+    @Value("${payment.gateway.stub.latency-ms:0}")
+    private long latencyMs;
+
+    // Extra random delay of up to this much on top of latency-ms
+    @Value("${payment.gateway.stub.jitter-ms:0}")
+    private long jitterMs;
+
+    // Share of createOrder calls that fail as if the gateway were down (0.0 - 1.0)
+    @Value("${payment.gateway.stub.failure-rate:0.0}")
+    private double failureRate;
+
+    @Value("${payment.gateway.stub.seed:42}")
+    private long seed;
+
+    private String runId;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // Keeps ids unique across restarts against the same database
+        runId = Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    @Override
+    public String createOrder(long amountMinor, String currency, String receipt, Map<String, String> notes) {
+        if (amountMinor <= 0) {
+            throw new PaymentGatewayException("Order rejected by payment gateway: amount must be positive");
+        }
+        long call = sequence.incrementAndGet();
+        // Golden-ratio spacing keeps the streams of neighbouring calls apart
+        SplittableRandom random = new SplittableRandom(seed + call * 0x9E3779B97F4A7C15L);
+        delay(random);
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            throw new PaymentGatewayException("Payment gateway error (simulated)");
+        }
+        return "order_sim_" + runId + "_" + call;
+    }
+
+    @Override
+    public String getKeyId() {
+        return "rzp_test_stub";
+    }
+
+    @Override
+    public boolean verifySignature(String orderId, String paymentId, String signature) {
+        return PaymentGateway.matchesSignature(secret, orderId, paymentId, signature);
+    }
+
+    // What the checkout widget hands back after a successful payment of the order
+    public Map<String, String> completeCheckout(String orderId) {
+        String paymentId = "pay_sim_" + orderId.substring(orderId.lastIndexOf('_') + 1) + "_" + runId;
+        Map<String, String> result = new HashMap<>();
+        result.put("razorpayOrderId", orderId);
+        result.put("razorpayPaymentId", paymentId);
+        result.put("razorpaySignature", PaymentGateway.checkoutSignature(secret, orderId, paymentId));
+        return result;
+    }
+
+    private void delay(SplittableRandom random) {
+        long wait = latencyMs + (jitterMs > 0 ? (long) (random.nextDouble() * jitterMs) : 0);
+        if (wait <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Interrupted while creating order", e);
+        }
+    }
+}
@@ -5,9 +5,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -18,10 +19,19 @@ import com.learnix.models.Users;
 import com.learnix.repositories.StudentHelpRepository;
 import com.learnix.repositories.UserRepository;
 import com.learnix.responseWrapper.MyResponseWrapper;
+import com.learnix.specification.SpecificationUtils;
+import com.learnix.specification.StudentHelpSpecification;
 
 @Service
 public class StudentHelpService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Keyset order; id breaks ties between tickets created in the same instant
+    private static final Sort QUEUE_ORDER = Sort.by(Sort.Direction.DESC, "createdAt")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
     @Autowired
     private StudentHelpRepository studentHelpRepository;
 
@@ -72,41 +82,57 @@ public class StudentHelpService {
         }
     }
 
-    // Get all help requests (for admin) with filtering
-    public ResponseEntity<?> getAllHelpRequests(String status, String search) {
+    // Get help requests (for admin) newest first, filtered in SQL. When size or a cursor is given
+    // the result is paged by keyset (pass the nextCursor of the previous page as
+    // cursorCreatedAt/cursorId to continue); without them every match is returned as before.
+    public ResponseEntity<?> getAllHelpRequests(String status, String search, LocalDateTime cursorCreatedAt,
+                                                Long cursorId, Integer size) {
         try {
-            List<StudentHelp> helpRequests = studentHelpRepository.findAllByOrderByCreatedAtDesc();
-            int total = helpRequests.size();
-            
-            java.util.stream.Stream<StudentHelp> stream = helpRequests.stream();
-            
-            if (StringUtils.hasText(status) && !"ALL".equalsIgnoreCase(status)) {
-            	stream = stream.filter(req -> status.equalsIgnoreCase(req.getStatus()));
+            boolean paged = size != null || (cursorCreatedAt != null && cursorId != null);
+            int pageSize = Math.min(Math.max(size != null ? size : DEFAULT_PAGE_SIZE, 1), MAX_PAGE_SIZE);
+            Specification<StudentHelp> filter = SpecificationUtils.and(
+                    StudentHelpSpecification.hasStatus(status),
+                    StudentHelpSpecification.keywordLike(search));
+            Specification<StudentHelp> page = SpecificationUtils.and(filter,
+                    StudentHelpSpecification.before(cursorCreatedAt, cursorId));
+
+            // One extra row tells whether another page follows
+            List<StudentHelp> rows = paged
+                    ? studentHelpRepository.findBy(page, q -> q.sortBy(QUEUE_ORDER).limit(pageSize + 1).all())
+                    : studentHelpRepository.findBy(filter, q -> q.sortBy(QUEUE_ORDER).all());
+            boolean hasMore = paged && rows.size() > pageSize;
+            List<StudentHelp> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+            Map<String, Long> statusCounts = new HashMap<>();
+            statusCounts.put("PENDING", 0L);
+            statusCounts.put("RESOLVED", 0L);
+            long total = 0;
+            for (Object[] row : studentHelpRepository.countByStatus()) {
+                long count = ((Number) row[1]).longValue();
+                total += count;
+                if (row[0] != null) {
+                    statusCounts.merge(((String) row[0]).toUpperCase(), count, Long::sum);
+                }
             }
-            
-            if (StringUtils.hasText(search)) {
-            	String keyword = search.trim().toLowerCase();
-            	stream = stream.filter(req -> {
-            		Users student = req.getStudent();
-            		return (student != null && (
-            				student.getName() != null && student.getName().toLowerCase().contains(keyword) ||
-            				student.getEmail() != null && student.getEmail().toLowerCase().contains(keyword)
-            		)) || (req.getIssue() != null && req.getIssue().toLowerCase().contains(keyword));
-            	});
-            }
-            
-            List<StudentHelp> filtered = stream.collect(Collectors.toList());
-            long pendingCount = helpRequests.stream().filter(r -> "PENDING".equalsIgnoreCase(r.getStatus())).count();
-            long resolvedCount = helpRequests.stream().filter(r -> "RESOLVED".equalsIgnoreCase(r.getStatus())).count();
-            
+
             Map<String, Object> payload = new HashMap<>();
-            payload.put("items", filtered);
+            payload.put("items", items);
             payload.put("total", total);
-            payload.put("matched", filtered.size());
-            payload.put("statusCounts", Map.of(
-            		"PENDING", pendingCount,
-            		"RESOLVED", resolvedCount
-            ));
+            if (paged) {
+                payload.put("size", pageSize);
+            }
+            payload.put("hasMore", hasMore);
+            payload.put("statusCounts", statusCounts);
+            // Matching count only for the first page; later pages keep the one already shown
+            if (cursorCreatedAt == null || cursorId == null) {
+                boolean filtered = StringUtils.hasText(search)
+                        || (StringUtils.hasText(status) && !"ALL".equalsIgnoreCase(status));
+                payload.put("matched", filtered ? studentHelpRepository.count(filter) : total);
+            }
+            if (hasMore) {
+                StudentHelp last = items.get(items.size() - 1);
+                payload.put("nextCursor", Map.of("createdAt", last.getCreatedAt(), "id", last.getId()));
+            }
 
             return universalResponse("Help requests fetched successfully", payload, HttpStatus.OK);
         } catch (Exception e) {
@@ -114,6 +140,12 @@ public class StudentHelpService {
         }
     }
 
+    // The status filter is an exact match on upper-case values, so legacy mixed-case rows are
+    // rewritten once; later starts find nothing to change
+    public int normalizeStatuses() {
+        return studentHelpRepository.upperCaseStatuses();
+    }
+
     // Update help request status (for admin)
     public ResponseEntity<?> updateHelpRequestStatus(Long helpId, String status) {
         try {
@@ -123,7 +155,8 @@ public class StudentHelpService {
             }
 
             StudentHelp helpRequest = optionalHelp.get();
-            helpRequest.setStatus(status);
+            // Stored upper-case so the queue's status filter is a plain index match
+            helpRequest.setStatus(status != null ? status.trim().toUpperCase() : null);
             if ("RESOLVED".equalsIgnoreCase(status)) {
                 helpRequest.setResolvedAt(LocalDateTime.now());
             }
@@ -0,0 +1,363 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.models.OnlineTestAnswer;
+import com.learnix.models.OnlineTestSubmission;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+import com.learnix.repositories.StudentRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Queued ingestion of graded test submissions for exam-end spikes.
+// submitTest grades in memory and hands the result to a bounded queue; one worker drains it
+// and persists whole batches in a single transaction (JDBC batching with rewriteBatchedStatements
+// turns them into multi-row inserts). A full queue is reported back so the caller can answer 429.
+@Service
+public class SubmissionIngestService {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String SAVED = "SAVED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String FAILED = "FAILED";
+
+    @Autowired
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private ExamDraftService examDraftService;
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${exam.submission.queue.enabled:false}")
+    private boolean enabled;
+
+    @Value("${exam.submission.queue.capacity:5000}")
+    private int capacity;
+
+    @Value("${exam.submission.queue.batch-size:200}")
+    private int batchSize;
+
+    @Value("${exam.submission.queue.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @Value("${exam.submission.receipt-ttl-ms:3600000}")
+    private long receiptTtlMs;
+
+    private BlockingQueue<Receipt> queue;
+    private final Map<String, Receipt> receipts = new ConcurrentHashMap<>();
+    // "testId:studentId" -> receipt still waiting in the queue, so a double submit gets the same receipt
+    private final Map<String, Receipt> queuedByAttempt = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    // A graded submission, ready to persist
+    public record GradedSubmission(Long testId, Long studentId, AnswerKeyCache.AnswerKey key, byte[] selected,
+            int totalCorrect, int score, LocalDateTime submittedAt) {}
+
+    public static final class Receipt {
+        private final String id;
+        private final GradedSubmission graded;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile String status = QUEUED;
+        private volatile Long submissionId;
+        private volatile String message;
+        private volatile LocalDateTime finishedAt;
+
+        Receipt(String id, GradedSubmission graded) {
+            this.id = id;
+            this.graded = graded;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getStudentId() {
+            return graded.studentId();
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Map<String, Object> toPayload() {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("receiptId", id);
+            payload.put("testId", graded.testId());
+            payload.put("status", status);
+            payload.put("createdAt", createdAt);
+            if (SAVED.equals(status)) {
+                payload.put("submissionId", submissionId);
+                payload.put("score", graded.score());
+                payload.put("totalCorrect", graded.totalCorrect());
+                payload.put("maxMarks", graded.key().getMaxMarks());
+            }
+            if (message != null) {
+                payload.put("message", message);
+            }
+            return payload;
+        }
+
+        private void finish(String status, Long submissionId, String message) {
+            this.submissionId = submissionId;
+            this.message = message;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        running = true;
+        worker = new Thread(this::drainLoop, "submission-ingest");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Let the worker finish what is already queued before the context goes away
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Queue a graded submission; null when the queue is full (caller answers 429)
+    public Receipt enqueue(GradedSubmission graded) {
+        String attempt = graded.testId() + ":" + graded.studentId();
+        Receipt receipt = new Receipt(UUID.randomUUID().toString(), graded);
+        Receipt existing = queuedByAttempt.putIfAbsent(attempt, receipt);
+        if (existing != null) {
+            return existing;
+        }
+        receipts.put(receipt.getId(), receipt);
+        if (!queue.offer(receipt)) {
+            queuedByAttempt.remove(attempt, receipt);
+            receipts.remove(receipt.getId());
+            return null;
+        }
+        return receipt;
+    }
+
+    public Receipt getReceipt(String receiptId) {
+        return receiptId != null ? receipts.get(receiptId) : null;
+    }
+
+    // Score a selection array (laid out like the key) with the same rule as submitTest
+    public GradedSubmission grade(AnswerKeyCache.AnswerKey key, Long testId, Long studentId, byte[] selected) {
+        int correctCount = key.countCorrect(selected);
+        int score = OnlineTestService.calculateScore(correctCount, key.size(), key.getMaxMarks());
+        return new GradedSubmission(testId, studentId, key, selected, correctCount, score, LocalDateTime.now());
+    }
+
+    // Store submissions synchronously through the batch path (used when a test closes);
+    // returns how many were saved, attempts that already exist are skipped
+    public int persistAll(List<GradedSubmission> submissions) {
+        int saved = 0;
+        int size = Math.max(batchSize, 1);
+        for (int from = 0; from < submissions.size(); from += size) {
+            List<Receipt> batch = new ArrayList<>();
+            for (GradedSubmission graded : submissions.subList(from, Math.min(from + size, submissions.size()))) {
+                batch.add(new Receipt(UUID.randomUUID().toString(), graded));
+            }
+            persist(batch);
+            saved += (int) batch.stream().filter(r -> SAVED.equals(r.getStatus())).count();
+        }
+        return saved;
+    }
+
+    // Entity for a graded submission; questions, test and student are references, not loads
+    public OnlineTestSubmission toEntity(GradedSubmission graded) {
+        OnlineTestSubmission submission = new OnlineTestSubmission();
+        submission.setTest(onlineTestRepository.getReferenceById(graded.testId()));
+        submission.setStudent(studentRepository.getReferenceById(graded.studentId()));
+
+        AnswerKeyCache.AnswerKey key = graded.key();
+        byte[] selected = graded.selected();
+        for (int i = 0; i < key.size(); i++) {
+            OnlineTestAnswer answer = new OnlineTestAnswer();
+            answer.setQuestion(questionRepository.getReferenceById(key.questionId(i)));
+            answer.setSelectedOption(AnswerKeyCache.AnswerKey.optionLetter(selected[i]));
+            answer.setCorrect(key.isCorrect(i, selected[i]));
+            answer.setSubmission(submission);
+            submission.getAnswers().add(answer);
+        }
+
+        submission.setTotalCorrect(graded.totalCorrect());
+        submission.setScore(graded.score());
+        submission.setSubmittedAt(graded.submittedAt());
+        return submission;
+    }
+
+    // Bookkeeping once a submission is stored, shared by the direct and the queued path
+    public void afterSaved(GradedSubmission graded) {
+        examDraftService.discard(graded.testId(), graded.studentId());
+        itemAnalysisService.record(graded.testId(), graded.key(), graded.selected(), graded.score());
+        leaderboardService.record(graded.testId(), graded.studentId(), graded.score());
+    }
+
+    private void drainLoop() {
+        long lastCleanup = System.currentTimeMillis();
+        while (running || !queue.isEmpty()) {
+            try {
+                Receipt first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    List<Receipt> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, Math.max(batchSize, 1) - 1);
+                    persist(batch);
+                }
+                if (System.currentTimeMillis() - lastCleanup > 60000) {
+                    removeExpiredReceipts();
+                    lastCleanup = System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Error ingesting test submissions: " + e.getMessage());
+            }
+        }
+    }
+
+    private void persist(List<Receipt> batch) {
+        try {
+            Map<Receipt, OnlineTestSubmission> saved = transactionTemplate.execute(status -> {
+                Set<String> taken = existingAttempts(batch);
+                Map<Receipt, OnlineTestSubmission> entities = new LinkedHashMap<>();
+                for (Receipt receipt : batch) {
+                    if (!taken.add(attemptKey(receipt.graded))) {
+                        receipt.finish(DUPLICATE, null, "You have already attempted this test");
+                        continue;
+                    }
+                    entities.put(receipt, toEntity(receipt.graded));
+                }
+                submissionRepository.saveAll(entities.values());
+                return entities;
+            });
+            saved.forEach((receipt, submission) -> completed(receipt, submission.getId()));
+        } catch (DataIntegrityViolationException e) {
+            // Someone stored one of these attempts meanwhile: fall back to one transaction per submission
+            for (Receipt receipt : batch) {
+                if (!QUEUED.equals(receipt.getStatus())) {
+                    continue;
+                }
+                persistOne(receipt);
+            }
+        } catch (RuntimeException e) {
+            for (Receipt receipt : batch) {
+                if (QUEUED.equals(receipt.getStatus())) {
+                    fail(receipt, e);
+                }
+            }
+        } finally {
+            for (Receipt receipt : batch) {
+                queuedByAttempt.remove(attemptKey(receipt.graded), receipt);
+            }
+        }
+    }
+
+    private void persistOne(Receipt receipt) {
+        try {
+            OnlineTestSubmission saved = submissionRepository.saveAndFlush(toEntity(receipt.graded));
+            completed(receipt, saved.getId());
+        } catch (DataIntegrityViolationException e) {
+            receipt.finish(DUPLICATE, null, "You have already attempted this test");
+        } catch (RuntimeException e) {
+            fail(receipt, e);
+        }
+    }
+
+    private void completed(Receipt receipt, Long submissionId) {
+        receipt.finish(SAVED, submissionId, null);
+        try {
+            afterSaved(receipt.graded);
+        } catch (RuntimeException e) {
+            System.err.println("Error after storing submission " + submissionId + ": " + e.getMessage());
+        }
+    }
+
+    private void fail(Receipt receipt, RuntimeException e) {
+        receipt.finish(FAILED, null, "Failed to submit test: " + e.getMessage());
+    }
+
+    // Attempts of this batch that are already stored, as "testId:studentId"
+    private Set<String> existingAttempts(List<Receipt> batch) {
+        Set<Long> testIds = new HashSet<>();
+        Set<Long> studentIds = new HashSet<>();
+        for (Receipt receipt : batch) {
+            testIds.add(receipt.graded.testId());
+            studentIds.add(receipt.graded.studentId());
+        }
+        Set<String> attempts = new HashSet<>();
+        for (Object[] row : submissionRepository.findAttempts(testIds, studentIds)) {
+            attempts.add(row[0] + ":" + row[1]);
+        }
+        return attempts;
+    }
+
+    private String attemptKey(GradedSubmission graded) {
+        return graded.testId() + ":" + graded.studentId();
+    }
+
+    private void removeExpiredReceipts() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(receiptTtlMs));
+        receipts.values().removeIf(r -> r.finishedAt != null && r.finishedAt.isBefore(cutoff));
+    }
+}
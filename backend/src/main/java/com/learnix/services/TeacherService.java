@@ -9,14 +9,16 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import com.learnix.dto.AttendanceDTO.AttendanceEntry;
 import com.learnix.dto.AttendanceDTO.AttendanceRequest;
-import com.learnix.models.Attendance;
+import com.learnix.dto.CourseEnrollmentView;
+import com.learnix.models.AttendanceSummary;
 import com.learnix.models.Course;
 import com.learnix.models.Enrollment;
 import com.learnix.models.Student;
@@ -36,7 +38,6 @@ import com.learnix.repositories.UserRepository;
 import com.learnix.responseWrapper.MyResponseWrapper;
 import com.learnix.specification.CourseSpecification;
 import com.learnix.specification.SpecificationUtils;
-import com.learnix.specification.UserSpecification;
 
 @Service
 public class TeacherService {
@@ -77,6 +78,12 @@ public class TeacherService {
     @Autowired
     private UpcomingEventRepository upcomingEventRepository;
 
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
     // Dashboard Logic
     public ResponseEntity<?> getTeacherDashboard(Principal principal) {
         try {
@@ -176,14 +183,12 @@ public class TeacherService {
             }).collect(Collectors.toList());
             profile.put("courses", courses);
 
-            // Attendance summary
-            var attendanceList = attendanceRepository.findByStudent(student);
-            long present = attendanceList.stream().filter(a -> "PRESENT".equalsIgnoreCase(a.getStatus())).count();
-            double percent = attendanceList.isEmpty() ? 0.0 : (present * 100.0) / attendanceList.size();
+            // Attendance summary from the maintained counters
+            AttendanceSummary summary = attendanceService.getSummary(student);
             Map<String, Object> attendance = new HashMap<>();
-            attendance.put("total", attendanceList.size());
-            attendance.put("present", present);
-            attendance.put("percentage", (int) Math.round(percent));
+            attendance.put("total", summary.getTotalCount());
+            attendance.put("present", summary.getPresentCount());
+            attendance.put("percentage", summary.getPercentage());
             profile.put("attendance", attendance);
 
             // Grades
@@ -208,25 +213,15 @@ public class TeacherService {
     }
 
     // Fetch Students Logic
-    public ResponseEntity<?> getMyStudents(Principal principal, String search, String sortField, String sortDirection) {
+    public ResponseEntity<?> getMyStudents(Principal principal, String search, String sortField, String sortDirection,
+            Integer page, Integer size) {
         try {
             Users teacher = userRepository.findByEmail(principal.getName());
             if (teacher == null) {
             	return universalResponse("Teacher not found", null, HttpStatus.NOT_FOUND);
             }
 
-            Specification<Users> spec = SpecificationUtils.and(
-                    UserSpecification.hasRole("STUDENT"),
-                    UserSpecification.keywordLike(search));
-            
-            long total = userRepository.count(UserSpecification.hasRole("STUDENT"));
-            List<Users> filtered = userRepository.findAll(
-                    SpecificationUtils.and(spec, UserSpecification.sortBy(sortField, sortDirection)));
-            
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("items", filtered);
-            payload.put("total", total);
-            payload.put("matched", filtered.size());
+            Map<String, Object> payload = userDirectoryService.getDirectory("STUDENT", search, sortField, sortDirection, page, size);
 
             return universalResponse("Students fetched successfully", payload, HttpStatus.OK);
         } catch (Exception e) {
@@ -268,30 +263,17 @@ public class TeacherService {
             // Always use today's date (date is dynamic and cannot be changed by teacher)
             LocalDate date = LocalDate.now();
 
-            for (AttendanceEntry entry : request.getEntries()) {
-                Users student = userRepository.findById(entry.getStudentId()).orElse(null);
-                if (student == null) continue;
+            // Upsert the whole sheet; resubmits only touch rows whose status changed
+            List<Users> absentees = attendanceService.recordAttendance(teacher, requestedSubject, date, request.getEntries());
 
-                String status = "PRESENT".equalsIgnoreCase(entry.getStatus()) ? "PRESENT" : "ABSENT";
-                
-                Attendance attendance = Attendance.builder()
-                        .student(student)
-                        .course(null)  // TODO: Link course when available
-                        .teacher(teacher)
-                        .date(date)
-                        .status(status)
-                        .subject(requestedSubject)
-                        .build();
-
-                attendanceRepository.save(attendance);
-
-                // Send email notification if student is marked absent
-                if ("ABSENT".equalsIgnoreCase(status)) {
-                    emailService.sendAbsentNotificationEmail(student, date.toString(), teacher.getName());
-                }
+            // Send email notification to students newly marked absent
+            for (Users student : absentees) {
+                emailService.sendAbsentNotificationEmail(student, date.toString(), teacher.getName());
             }
 
             return universalResponse("Attendance marked successfully", null, HttpStatus.OK);
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            return universalResponse("Attendance for this subject is being updated concurrently, please retry", null, HttpStatus.CONFLICT);
         } catch (Exception e) {
         	return universalResponse("Error marking attendance: " + e.getMessage(), null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -306,22 +288,25 @@ public class TeacherService {
             List<Course> courses = courseRepository
             		.findAll(SpecificationUtils.and(spec, CourseSpecification.sortBy("title", "asc")));
 
+            // Load enrollments for every matched course in one query, grouped per course
+            Map<Long, List<Map<String, Object>>> enrollmentsByCourse = new HashMap<>();
+            if (!courses.isEmpty()) {
+                List<Long> courseIds = courses.stream().map(Course::getId).collect(Collectors.toList());
+                for (CourseEnrollmentView view : enrollmentRepository.findEnrollmentViewsByCourseIds(courseIds)) {
+                    Map<String, Object> studentInfo = new HashMap<>();
+                    studentInfo.put("id", view.getStudentId());
+                    studentInfo.put("name", view.getName());
+                    studentInfo.put("email", view.getEmail());
+                    studentInfo.put("enrolledAt", view.getEnrolledAt());
+                    enrollmentsByCourse.computeIfAbsent(view.getCourseId(), id -> new ArrayList<>()).add(studentInfo);
+                }
+            }
+
             // Build response with enrollment information
             List<Map<String, Object>> courseContentList = new ArrayList<>();
             
             for (Course course : courses) {
-                List<Enrollment> enrollments = enrollmentRepository.findByCourse(course);
-                List<Map<String, Object>> enrolledStudents = enrollments.stream()
-                    .map(enrollment -> {
-                        Map<String, Object> studentInfo = new HashMap<>();
-                        Users student = enrollment.getStudent();
-                        studentInfo.put("id", student.getId());
-                        studentInfo.put("name", student.getName());
-                        studentInfo.put("email", student.getEmail());
-                        studentInfo.put("enrolledAt", enrollment.getEnrolledAt());
-                        return studentInfo;
-                    })
-                    .collect(Collectors.toList());
+                List<Map<String, Object>> enrolledStudents = enrollmentsByCourse.getOrDefault(course.getId(), List.of());
 
                 Map<String, Object> courseContent = new HashMap<>();
                 courseContent.put("id", course.getId());
@@ -0,0 +1,321 @@
+package com.learnix.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.models.OnlineTestSubmission;
+import com.learnix.repositories.OnlineTestAnswerRepository;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Re-scores every submission of a test after its answer key changed.
+// Answer flags are fixed with one set-based UPDATE per question. Submissions are then read in
+// keyset chunks of plain rows, graded in parallel on a dedicated bounded pool, and only changed
+// ones are written back, one transaction per chunk. Memory stays bounded by the chunk size.
+@Service
+public class TestRegradeService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int PARTITION_SIZE = 256;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    @Autowired
+    private OnlineTestAnswerRepository answerRepository;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ExamPaperCache examPaperCache;
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Grading threads; 0 means one per core, at most four
+    @Value("${exam.regrade.threads:0}")
+    private int threads;
+
+    private ThreadPoolExecutor gradePool;
+
+    // testId -> progress of the running (or last) regrade
+    private final Map<Long, Map<String, Object>> progress = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        int size = threads > 0 ? threads : Math.min(4, Runtime.getRuntime().availableProcessors());
+        AtomicInteger count = new AtomicInteger();
+        // Bounded queue; when it is full the submitting thread grades the partition itself
+        gradePool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(size * 4), r -> {
+                    Thread thread = new Thread(r, "test-regrade-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gradePool.shutdownNow();
+    }
+
+    public Map<String, Object> getProgress(Long testId) {
+        return progress.get(testId);
+    }
+
+    // Change the correct option of one question, then regrade the whole test
+    public Map<String, Object> correctAnswer(OnlineTest test, Long questionId, String correctOption) {
+        return regrade(test, questionId, correctOption);
+    }
+
+    public Map<String, Object> regrade(OnlineTest test) {
+        return regrade(test, null, null);
+    }
+
+    private Map<String, Object> regrade(OnlineTest test, Long questionId, String correctOption) {
+        Long testId = test.getId();
+        Map<String, Object> state = new ConcurrentHashMap<>();
+        state.put("status", "RUNNING");
+        state.put("processed", 0);
+        state.put("startedAt", LocalDateTime.now());
+        progress.put(testId, state);
+
+        try {
+            // Key fix, new test version and answer re-marking commit together; caches are dropped
+            // again after the commit so no submission can re-cache the old key in between
+            Snapshot snapshot = transactionTemplate.execute(status -> {
+                if (questionId != null) {
+                    OnlineTestQuestion question = questionRepository.findById(questionId)
+                            .filter(q -> q.getTest() != null && testId.equals(q.getTest().getId()))
+                            .orElseThrow(() -> new IllegalArgumentException("Question not found in this test"));
+                    question.setCorrectOption(correctOption);
+                    questionRepository.save(question);
+                }
+                OnlineTest managed = onlineTestRepository.findById(testId).orElseThrow();
+                managed.setUpdatedAt(LocalDateTime.now());
+                onlineTestRepository.save(managed);
+                evictAfterCommit(testId);
+
+                List<OnlineTestQuestion> questions = questionRepository.findByTestIdOrderByIdAsc(testId);
+                for (OnlineTestQuestion question : questions) {
+                    answerRepository.regradeQuestion(question.getId(), question.getCorrectOption());
+                }
+                return new Snapshot(AnswerKeyCache.AnswerKey.of(managed, questions), questions,
+                        submissionRepository.findMaxIdByTestId(testId));
+            });
+            AnswerKeyCache.AnswerKey key = snapshot.key();
+            state.put("total", submissionRepository.countByTestId(testId));
+
+            int maxMarks = test.getMaxMarks() != null ? test.getMaxMarks() : 0;
+            Summary summary = new Summary();
+            gradeRange(testId, 0L, snapshot.lastSubmissionId(), key, maxMarks, summary, state);
+
+            // Submissions stored after the snapshot may have been graded with the old key before
+            // the eviction committed; re-mark their answers and grade them now
+            transactionTemplate.executeWithoutResult(status -> {
+                for (OnlineTestQuestion question : snapshot.questions()) {
+                    answerRepository.regradeQuestionAfter(question.getId(), question.getCorrectOption(),
+                            snapshot.lastSubmissionId());
+                }
+            });
+            gradeRange(testId, snapshot.lastSubmissionId(), Long.MAX_VALUE, key, maxMarks, summary, state);
+
+            // Option counts stay valid but correctness and scores moved, so recount the items
+            itemAnalysisService.rebuild(testId, key);
+            leaderboardService.evict(testId);
+
+            Map<String, Object> result = summary.toMap(maxMarks);
+            state.putAll(result);
+            state.put("status", "DONE");
+            state.put("finishedAt", LocalDateTime.now());
+            return result;
+        } catch (IllegalArgumentException e) {
+            progress.remove(testId, state);
+            throw e;
+        } catch (RuntimeException e) {
+            state.put("status", "FAILED");
+            state.put("error", String.valueOf(e.getMessage()));
+            throw e;
+        }
+    }
+
+    // Grade submissions with afterId < id <= toId, one keyset chunk at a time
+    private void gradeRange(Long testId, long afterId, long toId, AnswerKeyCache.AnswerKey key, int maxMarks,
+            Summary summary, Map<String, Object> state) {
+        while (true) {
+            List<Object[]> rows = submissionRepository.findScoreRowsBetween(testId, afterId, toId,
+                    PageRequest.of(0, CHUNK_SIZE));
+            if (rows.isEmpty()) {
+                return;
+            }
+            Map<Long, byte[]> selections = new HashMap<>();
+            List<Long> ids = rows.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+            for (Object[] row : answerRepository.findGradingRowsBySubmissionIds(ids)) {
+                int index = key.indexOf((Long) row[1]);
+                if (index < 0) continue;
+                selections.computeIfAbsent((Long) row[0], id -> key.emptySelection())[index] =
+                        AnswerKeyCache.AnswerKey.optionIndex((String) row[2]);
+            }
+
+            List<Regraded> graded = grade(rows, selections, key, maxMarks);
+            List<Regraded> changed = graded.stream().filter(Regraded::changed).collect(Collectors.toList());
+            if (!changed.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(changed));
+            }
+            summary.add(graded, changed.size());
+            state.put("processed", summary.submissions);
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // Partitions of one chunk graded on the regrade pool, results kept in submission order
+    private List<Regraded> grade(List<Object[]> rows, Map<Long, byte[]> selections,
+            AnswerKeyCache.AnswerKey key, int maxMarks) {
+        List<Future<List<Regraded>>> parts = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += PARTITION_SIZE) {
+            List<Object[]> partition = rows.subList(from, Math.min(from + PARTITION_SIZE, rows.size()));
+            parts.add(gradePool.submit(() -> gradePartition(partition, selections, key, maxMarks)));
+        }
+        List<Regraded> results = new ArrayList<>(rows.size());
+        try {
+            for (Future<List<Regraded>> part : parts) {
+                results.addAll(part.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Regrade interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Regrade failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return results;
+    }
+
+    private static List<Regraded> gradePartition(List<Object[]> rows, Map<Long, byte[]> selections,
+            AnswerKeyCache.AnswerKey key, int maxMarks) {
+        List<Regraded> results = new ArrayList<>(rows.size());
+        byte[] unanswered = key.emptySelection();
+        for (Object[] row : rows) {
+            Long submissionId = (Long) row[0];
+            int oldScore = row[1] != null ? ((Number) row[1]).intValue() : 0;
+            int oldCorrect = row[2] != null ? ((Number) row[2]).intValue() : 0;
+            int newCorrect = key.countCorrect(selections.getOrDefault(submissionId, unanswered));
+            int newScore = OnlineTestService.calculateScore(newCorrect, key.size(), maxMarks);
+            results.add(new Regraded(submissionId, oldScore, newScore, oldCorrect, newCorrect));
+        }
+        return results;
+    }
+
+    private void writeChunk(List<Regraded> chunk) {
+        Map<Long, Regraded> byId = chunk.stream().collect(Collectors.toMap(Regraded::submissionId, Function.identity()));
+        List<OnlineTestSubmission> submissions = submissionRepository.findAllById(byId.keySet());
+        for (OnlineTestSubmission submission : submissions) {
+            Regraded result = byId.get(submission.getId());
+            submission.setTotalCorrect(result.newCorrect());
+            submission.setScore(result.newScore());
+        }
+        submissionRepository.saveAll(submissions);
+    }
+
+    private void evictAfterCommit(Long testId) {
+        Runnable evict = () -> {
+            answerKeyCache.evict(testId);
+            examPaperCache.evict(testId);
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private record Snapshot(AnswerKeyCache.AnswerKey key, List<OnlineTestQuestion> questions, Long lastSubmissionId) {}
+
+    private record Regraded(Long submissionId, int oldScore, int newScore, int oldCorrect, int newCorrect) {
+        boolean changed() {
+            return oldScore != newScore || oldCorrect != newCorrect;
+        }
+    }
+
+    // Running totals over all chunks
+    private static final class Summary {
+        private int submissions;
+        private int changed;
+        private int increased;
+        private int decreased;
+        private int maxGain;
+        private int maxLoss;
+        private long before;
+        private long after;
+
+        void add(List<Regraded> graded, int changedCount) {
+            submissions += graded.size();
+            changed += changedCount;
+            for (Regraded r : graded) {
+                int delta = r.newScore() - r.oldScore();
+                if (delta > 0) increased++;
+                if (delta < 0) decreased++;
+                maxGain = Math.max(maxGain, delta);
+                maxLoss = Math.max(maxLoss, -delta);
+                before += r.oldScore();
+                after += r.newScore();
+            }
+        }
+
+        Map<String, Object> toMap(int maxMarks) {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("submissions", submissions);
+            summary.put("changed", changed);
+            summary.put("scoreIncreased", increased);
+            summary.put("scoreDecreased", decreased);
+            summary.put("maxGain", maxGain);
+            summary.put("maxLoss", maxLoss);
+            summary.put("averageBefore", submissions == 0 ? 0.0 : Math.round(before * 100.0 / submissions) / 100.0);
+            summary.put("averageAfter", submissions == 0 ? 0.0 : Math.round(after * 100.0 / submissions) / 100.0);
+            summary.put("maxMarks", maxMarks);
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.learnix.services;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.learnix.dto.UserDirectoryRow;
+import com.learnix.repositories.UserRepository;
+
+@Service
+public class UserDirectoryService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${directory.total-count.ttl-ms:60000}")
+    private long totalCountTtlMs;
+
+    // role -> {count, expiresAtMillis}
+    private final Map<String, long[]> totalCounts = new ConcurrentHashMap<>();
+
+    // Builds the {items, total, matched} payload used by the student/teacher directories.
+    // Rows are projected to display columns only. When size is given the result is paged
+    // (and page/size/totalPages are added); without it every match is returned as before.
+    public Map<String, Object> getDirectory(String role, String search, String sortField, String sortDirection,
+            Integer page, Integer size) {
+        Sort sort = toSort(sortField, sortDirection);
+        Pageable pageable = size != null
+                ? PageRequest.of(Math.max(page != null ? page : 0, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), sort)
+                : Pageable.unpaged(sort);
+
+        String keyword = StringUtils.hasText(search) ? "%" + search.trim().toLowerCase(Locale.ROOT) + "%" : null;
+        Page<UserDirectoryRow> result = userRepository.findDirectory(role.toLowerCase(Locale.ROOT), keyword, pageable);
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("items", result.getContent());
+        payload.put("total", getTotalCount(role));
+        payload.put("matched", result.getTotalElements());
+        if (pageable.isPaged()) {
+            payload.put("page", result.getNumber());
+            payload.put("size", result.getSize());
+            payload.put("totalPages", result.getTotalPages());
+        }
+        return payload;
+    }
+
+    // Unfiltered head count per role; cached briefly since it only changes on sign-up/deletion
+    public long getTotalCount(String role) {
+        String key = role.toUpperCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        long[] cached = totalCounts.get(key);
+        if (cached != null && cached[1] > now) {
+            return cached[0];
+        }
+        long count = userRepository.countByRoleIgnoreCase(key);
+        totalCounts.put(key, new long[] { count, now + totalCountTtlMs });
+        return count;
+    }
+
+    public void evictTotalCount(String role) {
+        if (role != null) {
+            totalCounts.remove(role.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    // Same sortable columns as UserSpecification.sortBy
+    private Sort toSort(String sortField, String sortDirection) {
+        String field = StringUtils.hasText(sortField) ? sortField.toLowerCase(Locale.ROOT) : "name";
+        String property = switch (field) {
+            case "email" -> "email";
+            case "phonenumber" -> "phoneNumber";
+            case "createdat" -> "createdAt";
+            default -> "name";
+        };
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortDirection) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // Tie-break on id so pages stay stable
+        return Sort.by(direction, property).and(Sort.by(Sort.Direction.ASC, "id"));
+    }
+}
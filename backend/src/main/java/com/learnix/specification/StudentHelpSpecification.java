@@ -0,0 +1,54 @@
+package com.learnix.specification;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import com.learnix.models.StudentHelp;
+
+/**
+ * Specifications for the admin help-desk queue: status and keyword filters
+ * plus the keyset condition used to page through tickets newest first.
+ */
+public class StudentHelpSpecification {
+
+    private StudentHelpSpecification() {
+    }
+
+    // Statuses are stored upper-case, so this stays an index equality match
+    public static Specification<StudentHelp> hasStatus(String status) {
+        return (root, query, cb) -> {
+            if (!StringUtils.hasText(status) || "ALL".equalsIgnoreCase(status)) {
+                return null;
+            }
+            return cb.equal(root.get("status"), status.trim().toUpperCase());
+        };
+    }
+
+    public static Specification<StudentHelp> keywordLike(String keyword) {
+        return (root, query, cb) -> {
+            if (!StringUtils.hasText(keyword)) {
+                return null;
+            }
+            String lowered = "%" + keyword.trim().toLowerCase() + "%";
+            var student = root.join("student");
+            return cb.or(
+                    cb.like(cb.lower(student.get("name")), lowered),
+                    cb.like(cb.lower(student.get("email")), lowered),
+                    cb.like(cb.lower(root.get("issue")), lowered));
+        };
+    }
+
+    // Tickets after the cursor in (createdAt desc, id desc) order
+    public static Specification<StudentHelp> before(LocalDateTime createdAt, Long id) {
+        return (root, query, cb) -> {
+            if (createdAt == null || id == null) {
+                return null;
+            }
+            return cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+        };
+    }
+}
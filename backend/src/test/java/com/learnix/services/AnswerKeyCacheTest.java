@@ -0,0 +1,199 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.dto.OnlineTestSubmissionRequest;
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.models.Student;
+import com.learnix.models.Users;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+import com.learnix.repositories.StudentRepository;
+import com.learnix.repositories.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AnswerKeyCacheTest {
+
+    private static final int QUESTIONS = 50;
+    private static final int MAX_MARKS = 100;
+    private static final int SUBMISSIONS = 5000;
+    private static final int THREADS = 16;
+
+    // Student and test lookups, the submission and its batched answer inserts with their id
+    // sequence, and the draft clean-up; none of it grows with the number of questions
+    private static final int STATEMENTS_PER_SUBMISSION = 10;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private OnlineTestService onlineTestService;
+
+    @Autowired
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private OnlineTest test;
+    private List<OnlineTestQuestion> questions;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        test = new OnlineTest();
+        test.setTitle("Answer key");
+        test.setMaxMarks(MAX_MARKS);
+        test = onlineTestRepository.save(test);
+        questions = new ArrayList<>();
+        for (int i = 0; i < QUESTIONS; i++) {
+            OnlineTestQuestion question = new OnlineTestQuestion();
+            question.setQuestionText("Q" + i);
+            question.setCorrectOption("B");
+            question.setTest(test);
+            questions.add(question);
+        }
+        questionRepository.saveAll(questions);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // A closing-time burst: every submission is graded against the one cached key, so no question
+    // row is reloaded and the statements per submission do not depend on the number of questions
+    @Test
+    void concurrentSubmissionsGradeAgainstTheCachedKey() throws Exception {
+        List<Users> users = new ArrayList<>();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            users.add(TestFixtures.user("student " + i, "STUDENT"));
+        }
+        userRepository.saveAll(users);
+        for (Users user : users) {
+            students.add(TestFixtures.student(user));
+        }
+        studentRepository.saveAll(students);
+        answerKeyCache.get(test);
+
+        statistics.clear();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<HttpStatusCode>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < SUBMISSIONS; i++) {
+                Principal principal = users.get(i)::getEmail;
+                OnlineTestSubmissionRequest request = answers(i);
+                calls.add(pool.submit(() -> onlineTestService.submitTest(test.getId(), principal, request).getStatusCode()));
+            }
+            for (Future<HttpStatusCode> call : calls) {
+                assertEquals(HttpStatus.OK, call.get(120, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(0, statistics.getEntityStatistics(OnlineTestQuestion.class.getName()).getLoadCount());
+        assertTrue(statistics.getPrepareStatementCount() <= (long) SUBMISSIONS * STATEMENTS_PER_SUBMISSION,
+                "statements: " + statistics.getPrepareStatementCount());
+
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Object[] row : submissionRepository.findRankRowsByTestId(test.getId())) {
+            scores.put((Long) row[0], (Integer) row[1]);
+        }
+        assertEquals(SUBMISSIONS, scores.size());
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            assertEquals(OnlineTestService.calculateScore(correctCount(i), QUESTIONS, MAX_MARKS),
+                    scores.get(students.get(i).getId()));
+        }
+    }
+
+    // By-id lookups cost one version check and never hand out a key older than the test
+    @Test
+    void lookupByIdPicksUpEditsWithoutLoadingTheTest() {
+        AnswerKeyCache.AnswerKey first = answerKeyCache.get(test.getId());
+        assertEquals("B", first.correctOption(0));
+
+        statistics.clear();
+        assertSame(first, answerKeyCache.get(test.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        // Teacher fixes the key; the test's updatedAt moves on
+        OnlineTestQuestion question = questionRepository.findByTestIdOrderByIdAsc(test.getId()).get(0);
+        question.setCorrectOption("D");
+        questionRepository.save(question);
+        test.setUpdatedAt(LocalDateTime.now().plusSeconds(1));
+        test = onlineTestRepository.save(test);
+
+        assertEquals("D", answerKeyCache.get(test.getId()).correctOption(0));
+
+        onlineTestRepository.deleteById(test.getId());
+        assertNull(answerKeyCache.get(test.getId()));
+    }
+
+    // A slower loader finishing with an outdated key must not replace the newer one
+    @Test
+    void olderKeyNeverReplacesNewerOne() {
+        OnlineTest stale = new OnlineTest();
+        stale.setId(test.getId());
+        stale.setUpdatedAt(test.getUpdatedAt().minusMinutes(5));
+
+        AnswerKeyCache.AnswerKey current = answerKeyCache.get(test);
+        answerKeyCache.get(stale);
+        assertSame(current, answerKeyCache.get(test));
+    }
+
+    // Student i answers question q correctly ("B") when (i + q) % 3 == 0, otherwise "A"
+    private OnlineTestSubmissionRequest answers(int student) {
+        List<OnlineTestSubmissionRequest.AnswerDTO> answers = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            answers.add(new OnlineTestSubmissionRequest.AnswerDTO(questions.get(q).getId(), (student + q) % 3 == 0 ? "B" : "A"));
+        }
+        return new OnlineTestSubmissionRequest(answers);
+    }
+
+    private int correctCount(int student) {
+        int correct = 0;
+        for (int q = 0; q < QUESTIONS; q++) {
+            if ((student + q) % 3 == 0) correct++;
+        }
+        return correct;
+    }
+}
@@ -0,0 +1,196 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.learnix.dto.ArchivedAttendance;
+import com.learnix.dto.ArchivedAttendanceRow;
+import com.learnix.models.Attendance;
+import com.learnix.models.AttendanceArchiveBlock;
+import com.learnix.models.Users;
+import com.learnix.repositories.AttendanceArchiveBlockRepository;
+import com.learnix.repositories.AttendanceArchiveRepository;
+import com.learnix.repositories.AttendanceRepository;
+import com.learnix.repositories.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AttendanceArchiveServiceTest {
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceArchiveRepository attendanceArchiveRepository;
+
+    @Autowired
+    private AttendanceArchiveBlockRepository blockRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @TempDir
+    Path archiveDir;
+
+    private Users teacher;
+    private Users first;
+    private Users second;
+    private Users third;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(attendanceArchiveService, "enabled", true);
+        ReflectionTestUtils.setField(attendanceArchiveService, "archiveDir", archiveDir.toString());
+        teacher = user("TEACHER");
+        first = user("STUDENT");
+        second = user("STUDENT");
+        third = user("STUDENT");
+
+        // January: all three students; February: first and third only
+        for (int day = 1; day <= 2; day++) {
+            mark(first, LocalDate.of(2024, 1, day), "PRESENT");
+            mark(second, LocalDate.of(2024, 1, day), "ABSENT");
+            mark(third, LocalDate.of(2024, 1, day), "PRESENT");
+            mark(first, LocalDate.of(2024, 2, day), "ABSENT");
+            mark(third, LocalDate.of(2024, 2, day), "PRESENT");
+        }
+        assertEquals(2, attendanceArchiveService.archiveClosedMonths());
+    }
+
+    @AfterEach
+    void tearDown() {
+        blockRepository.deleteAll();
+        attendanceArchiveRepository.deleteAll();
+        ReflectionTestUtils.setField(attendanceArchiveService, "enabled", false);
+        ReflectionTestUtils.setField(attendanceArchiveService, "archiveDir", "");
+    }
+
+    @Test
+    void studentReadsComeFromTheirOwnBlocks() {
+        assertEquals(5, blockRepository.findAll().size());
+
+        ArchivedAttendance archived = attendanceArchiveService.findForStudent(first.getId());
+        assertTrue(archived.isComplete());
+        assertEquals(4, archived.getRows().size());
+        archived.getRows().forEach(row -> assertEquals(first.getId(), row.getStudentId()));
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 2)),
+                archived.getRows().stream().map(ArchivedAttendanceRow::getDate).toList());
+    }
+
+    // One block per (student, subject); its rows merge back into date order on read
+    @Test
+    void subjectsGetTheirOwnBlocks() {
+        mark(first, LocalDate.of(2024, 3, 2), "PRESENT", "Maths");
+        mark(first, LocalDate.of(2024, 3, 1), "ABSENT", "History");
+        mark(first, LocalDate.of(2024, 3, 3), "PRESENT", "History");
+        assertEquals(1, attendanceArchiveService.archiveClosedMonths());
+
+        List<AttendanceArchiveBlock> march = blockRepository.findByStudentIdInOrderByMonthAscStudentIdAscSubjectAsc(Set.of(first.getId()))
+                .stream().filter(block -> block.getMonth().equals("2024-03")).toList();
+        assertEquals(List.of("History", "Maths"), march.stream().map(AttendanceArchiveBlock::getSubject).toList());
+        assertEquals(List.of(2L, 1L), march.stream().map(AttendanceArchiveBlock::getRowCount).toList());
+        assertEquals(List.of(1L, 1L), march.stream().map(AttendanceArchiveBlock::getPresentCount).toList());
+
+        List<ArchivedAttendanceRow> rows = attendanceArchiveService.findForStudent(first.getId()).getRows();
+        assertEquals(List.of(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 3)),
+                rows.subList(4, 7).stream().map(ArchivedAttendanceRow::getDate).toList());
+    }
+
+    // Counters are rebuilt from the block totals; no archive file is read
+    @Test
+    void countersRebuildFromBlockTotalsWithoutTheFiles() throws Exception {
+        Files.delete(archiveDir.resolve("attendance-2024-01.tsv.gz"));
+        Files.delete(archiveDir.resolve("attendance-2024-02.tsv.gz"));
+
+        attendanceService.rebuildCounters();
+
+        assertEquals(4L, attendanceService.getSummary(first).getTotalCount());
+        assertEquals(2L, attendanceService.getSummary(first).getPresentCount());
+        assertEquals(2L, attendanceService.getSummary(second).getTotalCount());
+        assertEquals(0L, attendanceService.getSummary(second).getPresentCount());
+        assertEquals(4L, attendanceService.getSummary(third).getPresentCount());
+    }
+
+    // Archived months only live on disk, so a relative directory is refused when enabled
+    @Test
+    void enabledArchiveNeedsAnAbsoluteDirectory() {
+        ReflectionTestUtils.setField(attendanceArchiveService, "archiveDir", "archive/attendance");
+        assertThrows(IllegalStateException.class, attendanceArchiveService::checkArchiveDir);
+        ReflectionTestUtils.setField(attendanceArchiveService, "archiveDir", "");
+        assertThrows(IllegalStateException.class, attendanceArchiveService::checkArchiveDir);
+        ReflectionTestUtils.setField(attendanceArchiveService, "enabled", false);
+        attendanceArchiveService.checkArchiveDir();
+    }
+
+    // Only the requested block is inflated: damaging another student's block does not matter
+    @Test
+    void otherStudentsBlocksAreNotRead() throws Exception {
+        AttendanceArchiveBlock secondBlock = blockRepository.findByStudentIdInOrderByMonthAscStudentIdAscSubjectAsc(Set.of(second.getId())).get(0);
+        try (FileChannel channel = FileChannel.open(archiveDir.resolve("attendance-2024-01.tsv.gz"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[secondBlock.getBlockLength().intValue()]), secondBlock.getBlockOffset());
+        }
+
+        ArchivedAttendance archived = attendanceArchiveService.findForStudent(third.getId());
+        assertTrue(archived.isComplete());
+        assertEquals(4, archived.getRows().size());
+    }
+
+    @Test
+    void missingMonthFileMarksTheResultIncomplete() throws Exception {
+        Files.delete(archiveDir.resolve("attendance-2024-02.tsv.gz"));
+
+        // Second has no rows in February, so nothing is missing for them
+        ArchivedAttendance second = attendanceArchiveService.findForStudent(this.second.getId());
+        assertTrue(second.isComplete());
+        assertEquals(2, second.getRows().size());
+
+        ArchivedAttendance first = attendanceArchiveService.findForStudent(this.first.getId());
+        assertFalse(first.isComplete());
+        assertEquals(List.of("2024-02"), first.getMissingMonths());
+        assertEquals(2, first.getRows().size());
+    }
+
+    private void mark(Users student, LocalDate date, String status) {
+        mark(student, date, status, "History");
+    }
+
+    private void mark(Users student, LocalDate date, String status, String subject) {
+        attendanceRepository.save(Attendance.builder()
+                .student(student)
+                .teacher(teacher)
+                .date(date)
+                .status(status)
+                .subject(subject)
+                .build());
+    }
+
+    private Users user(String role) {
+        return userRepository.save(TestFixtures.user(role.toLowerCase(), role));
+    }
+}
@@ -0,0 +1,215 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.dto.AttendanceDTO.AttendanceEntry;
+import com.learnix.models.Attendance;
+import com.learnix.models.AttendanceSummary;
+import com.learnix.models.Users;
+import com.learnix.repositories.AttendanceRepository;
+import com.learnix.repositories.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AttendanceServiceTest {
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Users teacher;
+    private Users student;
+
+    @BeforeEach
+    void setUp() {
+        teacher = user("TEACHER");
+        student = user("STUDENT");
+    }
+
+    // A sheet without a subject is stored under "" so resubmitting it updates the same row
+    @Test
+    void missingSubjectIsDeduplicatedLikeAnyOther() {
+        LocalDate date = LocalDate.of(2026, 3, 2);
+        attendanceService.recordAttendance(teacher, null, date, List.of(entry("ABSENT")));
+        attendanceService.recordAttendance(teacher, "  ", date, List.of(entry("PRESENT")));
+
+        List<Attendance> rows = attendanceRepository.findByStudent(student);
+        assertEquals(1, rows.size());
+        assertEquals("", rows.get(0).getSubject());
+        assertEquals("PRESENT", rows.get(0).getStatus());
+        assertEquals(1L, attendanceService.getSummary(student).getTotalCount());
+        assertEquals(1L, attendanceService.getSummary(student).getPresentCount());
+    }
+
+    // Rows written before the key existed: NULL subjects and repeated marks for one slot
+    @Test
+    void removeDuplicateRowsKeepsTheNewestRowPerSlot() {
+        LocalDate date = LocalDate.of(2026, 3, 3);
+        jdbcTemplate.execute("ALTER TABLE attendance ALTER COLUMN subject SET NULL");
+        jdbcTemplate.execute("ALTER TABLE attendance DROP CONSTRAINT uk_attendance_student_date_subject");
+        try {
+            legacyRow(date, null, "ABSENT");
+            legacyRow(date, null, "PRESENT");
+            legacyRow(date, "Maths", "ABSENT");
+            legacyRow(date, "Maths", "ABSENT");
+            legacyRow(date, "Maths", "PRESENT");
+
+            assertEquals(3, attendanceService.removeDuplicateRows());
+        } finally {
+            // Restores the schema if the clean-up failed before re-applying it
+            jdbcTemplate.execute("DELETE FROM attendance WHERE subject IS NULL");
+            jdbcTemplate.execute("ALTER TABLE attendance ALTER COLUMN subject SET NOT NULL");
+            if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.table_constraints "
+                    + "WHERE constraint_name = 'uk_attendance_student_date_subject'", Integer.class) == 0) {
+                jdbcTemplate.execute("ALTER TABLE attendance ADD CONSTRAINT uk_attendance_student_date_subject "
+                        + "UNIQUE (student_id, date, subject)");
+            }
+        }
+        // NOT NULL and the key were applied, so later starts skip the clean-up
+        assertThrows(DataIntegrityViolationException.class, () -> legacyRow(date, "Maths", "PRESENT"));
+        assertThrows(DataIntegrityViolationException.class, () -> legacyRow(date.plusDays(1), null, "PRESENT"));
+        assertEquals(0, attendanceService.removeDuplicateRows());
+
+        List<Attendance> rows = attendanceRepository.findByStudent(student);
+        assertEquals(2, rows.size());
+        rows.forEach(row -> assertEquals("PRESENT", row.getStatus()));
+        // Counters were rebuilt from the surviving rows
+        assertEquals(2L, attendanceService.getSummary(student).getTotalCount());
+        assertEquals(2L, attendanceService.getSummary(student).getPresentCount());
+
+        // The cleaned slot is now found by the upsert instead of getting a second row
+        attendanceService.recordAttendance(teacher, null, date, List.of(entry("ABSENT")));
+        assertEquals(2, attendanceRepository.findByStudent(student).size());
+    }
+
+    // Sheets for different subjects hit the same (student, ALL_SUBJECTS) counter at once while
+    // the nightly rebuild runs; no increment is lost and the result matches the raw rows
+    @Test
+    void concurrentSheetsAndRebuildsKeepCountersExact() throws Exception {
+        List<Users> students = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            students.add(user("STUDENT"));
+        }
+        int subjects = 6;
+        int days = 5;
+        ExecutorService pool = Executors.newFixedThreadPool(subjects + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean marking = new AtomicBoolean(true);
+        try {
+            List<Future<?>> sheets = new ArrayList<>();
+            for (int s = 0; s < subjects; s++) {
+                String subject = "Subject " + s;
+                sheets.add(pool.submit(() -> {
+                    start.await();
+                    for (int day = 1; day <= days; day++) {
+                        List<AttendanceEntry> entries = new ArrayList<>();
+                        for (int i = 0; i < students.size(); i++) {
+                            entries.add(entry(students.get(i), i % 2 == 0 ? "PRESENT" : "ABSENT"));
+                        }
+                        attendanceService.recordAttendance(teacher, subject, LocalDate.of(2026, 4, day), entries);
+                    }
+                    return null;
+                }));
+            }
+            Future<?> rebuilder = pool.submit(() -> {
+                start.await();
+                while (marking.get()) {
+                    attendanceService.rebuildCounters();
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> sheet : sheets) {
+                sheet.get(120, TimeUnit.SECONDS);
+            }
+            marking.set(false);
+            rebuilder.get(120, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int i = 0; i < students.size(); i++) {
+            AttendanceSummary overall = attendanceService.getSummary(students.get(i));
+            assertEquals((long) subjects * days, overall.getTotalCount());
+            assertEquals(i % 2 == 0 ? (long) subjects * days : 0L, overall.getPresentCount());
+            assertEquals(subjects, attendanceService.getSubjectSummaries(students.get(i)).size());
+        }
+    }
+
+    // A resubmitted sheet moves one count from absent to present without touching the total
+    @Test
+    void changedStatusMovesOneCount() {
+        LocalDate date = LocalDate.of(2026, 5, 4);
+        attendanceService.recordAttendance(teacher, "Physics", date, List.of(entry("ABSENT")));
+        attendanceService.recordAttendance(teacher, "Physics", date, List.of(entry("PRESENT")));
+        attendanceService.recordAttendance(teacher, "Physics", date, List.of(entry("PRESENT")));
+
+        AttendanceSummary overall = attendanceService.getSummary(student);
+        assertEquals(1L, overall.getTotalCount());
+        assertEquals(1L, overall.getPresentCount());
+    }
+
+    // Rebuilding some students leaves the counters of everyone else alone
+    @Test
+    void rebuildForStudentsOnlyTouchesThoseStudents() {
+        Users other = user("STUDENT");
+        LocalDate date = LocalDate.of(2026, 5, 5);
+        attendanceService.recordAttendance(teacher, "Chemistry", date, List.of(entry("PRESENT"), entry(other, "PRESENT")));
+        jdbcTemplate.update("UPDATE attendance_summary SET total_count = 99 WHERE student_id IN (?, ?)",
+                student.getId(), other.getId());
+
+        attendanceService.rebuildCounters(Set.of(student.getId()));
+
+        assertEquals(1L, attendanceService.getSummary(student).getTotalCount());
+        assertEquals(99L, attendanceService.getSummary(other).getTotalCount());
+    }
+
+    private void legacyRow(LocalDate date, String subject, String status) {
+        Long id = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR attendance_seq", Long.class);
+        jdbcTemplate.update("INSERT INTO attendance (id, student_id, teacher_id, date, status, subject) VALUES (?, ?, ?, ?, ?, ?)",
+                id, student.getId(), teacher.getId(), date, status, subject);
+    }
+
+    private AttendanceEntry entry(String status) {
+        return entry(student, status);
+    }
+
+    private AttendanceEntry entry(Users target, String status) {
+        AttendanceEntry entry = new AttendanceEntry();
+        entry.setStudentId(target.getId());
+        entry.setStatus(status);
+        return entry;
+    }
+
+    private Users user(String role) {
+        return userRepository.save(TestFixtures.user(role.toLowerCase(), role));
+    }
+}
@@ -0,0 +1,118 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.models.Course;
+import com.learnix.models.Payment;
+import com.learnix.models.Users;
+import com.learnix.repositories.CourseEntitlementRepository;
+import com.learnix.repositories.CourseRepository;
+import com.learnix.repositories.EnrollmentRepository;
+import com.learnix.repositories.PaymentRepository;
+import com.learnix.repositories.UserRepository;
+
+// The payment-sim gateway failing half of its orders: a failed order grants nothing, and the
+// student's next checkout reuses the open attempt and completes it
+@SpringBootTest(properties = {
+        "payment.gateway.stub.latency-ms=0",
+        "payment.gateway.stub.jitter-ms=0",
+        "payment.gateway.stub.failure-rate=0.5" })
+@ActiveProfiles({ "test", "payment-sim" })
+class CheckoutGatewayFailureTest {
+
+    private static final int STUDENTS = 20;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private StubPaymentGateway paymentGateway;
+
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseEntitlementRepository entitlementRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void failedOrdersGrantNothingUntilARetrySucceeds() {
+        Course course = new Course();
+        course.setTitle("Flaky gateway");
+        course.setPrice(100.0);
+        course = courseRepository.save(course);
+
+        List<Users> failed = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Users student = userRepository.save(TestFixtures.user("buyer " + i, "STUDENT"));
+            if (!buy(student, course)) {
+                failed.add(student);
+            }
+        }
+        assertFalse(failed.isEmpty());
+        assertTrue(failed.size() < STUDENTS);
+
+        for (Users student : failed) {
+            List<Payment> attempts = paymentRepository.findByStudentAndCourse(student, course);
+            assertEquals(1, attempts.size());
+            assertEquals("PENDING", attempts.get(0).getStatus());
+            assertFalse(entitlementService.hasAccess(student.getId(), course.getId()));
+        }
+        Long courseId = course.getId();
+        assertEquals(STUDENTS - failed.size(), enrollmentRepository.findByCourse(course).size());
+        assertEquals(STUDENTS - failed.size(), entitlementRepository.findAll().stream()
+                .filter(e -> e.getCourseId().equals(courseId)).count());
+
+        // Retrying reuses the open attempt until the gateway takes the order
+        for (Users student : failed) {
+            int tries = 0;
+            while (!buy(student, course)) {
+                assertTrue(++tries < 50);
+            }
+            List<Payment> attempts = paymentRepository.findByStudentAndCourse(student, course);
+            assertEquals(1, attempts.size());
+            assertEquals("SUCCESS", attempts.get(0).getStatus());
+            assertTrue(entitlementService.hasAccess(student.getId(), course.getId()));
+        }
+        assertEquals(STUDENTS, enrollmentRepository.findByCourse(course).size());
+    }
+
+    // createOrder -> checkout widget -> verifyPayment; false when the gateway failed the order
+    private boolean buy(Users student, Course course) {
+        HttpStatusCode created = paymentService.createOrder(course.getId(), student.getEmail()).getStatusCode();
+        if (created == HttpStatus.INTERNAL_SERVER_ERROR) {
+            return false;
+        }
+        assertEquals(HttpStatus.CREATED, created);
+        // The response wrapper is shared between callers, so the order id is read from the payment row
+        String orderId = paymentRepository.findByStudentAndCourse(student, course).get(0).getRazorpayOrderId();
+        Map<String, String> checkout = paymentGateway.completeCheckout(orderId);
+        assertEquals(HttpStatus.OK, paymentService.verifyPayment(orderId, checkout.get("razorpayPaymentId"),
+                checkout.get("razorpaySignature")).getStatusCode());
+        return true;
+    }
+}
@@ -0,0 +1,178 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.models.Course;
+import com.learnix.models.CourseEntitlement;
+import com.learnix.models.CourseSales;
+import com.learnix.models.Enrollment;
+import com.learnix.models.Payment;
+import com.learnix.models.Users;
+import com.learnix.repositories.CourseEntitlementRepository;
+import com.learnix.repositories.CourseRepository;
+import com.learnix.repositories.EnrollmentRepository;
+import com.learnix.repositories.PaymentRepository;
+import com.learnix.repositories.UserRepository;
+
+// Checkout under load against the gateway simulator of the payment-sim profile (only its latency is
+// shortened): every student buys every course from a shared pool, and each checkout is verified
+// twice at once (double click, retried request). The profile's failure rate makes some createOrder
+// calls fail; those checkouts must leave the student without access.
+@SpringBootTest(properties = {
+        "payment.gateway.stub.latency-ms=5",
+        "payment.gateway.stub.jitter-ms=20" })
+@ActiveProfiles({ "test", "payment-sim" })
+class CheckoutLoadTest {
+
+    private static final int STUDENTS = 40;
+    private static final int COURSES = 5;
+    private static final int THREADS = 16;
+    private static final double PRICE = 250.0;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private StubPaymentGateway paymentGateway;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseEntitlementRepository entitlementRepository;
+
+    @Autowired
+    private CourseSalesService courseSalesService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentCheckoutsSellEveryCourseOncePerStudent() throws Exception {
+        List<Users> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(TestFixtures.user("buyer " + i, "STUDENT"));
+        }
+        userRepository.saveAll(students);
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < COURSES; i++) {
+            Course course = new Course();
+            course.setTitle("Course " + i);
+            course.setPrice(PRICE);
+            courses.add(course);
+        }
+        courseRepository.saveAll(courses);
+
+        // Retries get their own threads, so a checkout waiting for its retry never starves the pool
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        ExecutorService retries = Executors.newFixedThreadPool(THREADS);
+        Set<String> failedOrders = ConcurrentHashMap.newKeySet();
+        List<Future<?>> checkouts = new ArrayList<>();
+        try {
+            for (Users student : students) {
+                for (Course course : courses) {
+                    checkouts.add(pool.submit(() -> {
+                        if (!checkout(retries, student, course)) {
+                            failedOrders.add(student.getId() + ":" + course.getId());
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> checkout : checkouts) {
+                checkout.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+            retries.shutdownNow();
+        }
+
+        Map<String, Long> entitlements = new HashMap<>();
+        for (CourseEntitlement entitlement : entitlementRepository.findAll()) {
+            entitlements.merge(entitlement.getStudentId() + ":" + entitlement.getCourseId(), 1L, Long::sum);
+        }
+        int sold = 0;
+        for (Course course : courses) {
+            Map<Long, Long> enrollments = new HashMap<>();
+            for (Enrollment enrollment : enrollmentRepository.findByCourse(course)) {
+                assertTrue(enrollment.getIsPaid());
+                enrollments.merge(enrollment.getStudent().getId(), 1L, Long::sum);
+            }
+            int buyers = 0;
+            for (Users student : students) {
+                String key = student.getId() + ":" + course.getId();
+                List<Payment> payments = paymentRepository.findByStudentAndCourse(student, course);
+                assertEquals(1, payments.size());
+                if (failedOrders.contains(key)) {
+                    // The attempt stays open without a gateway order; nothing was granted
+                    assertEquals("PENDING", payments.get(0).getStatus());
+                    assertNull(payments.get(0).getRazorpayOrderId());
+                    assertNull(enrollments.get(student.getId()));
+                    assertNull(entitlements.get(key));
+                } else {
+                    assertEquals("SUCCESS", payments.get(0).getStatus());
+                    assertEquals(1L, enrollments.get(student.getId()));
+                    assertEquals(1L, entitlements.get(key));
+                    buyers++;
+                }
+            }
+            assertEquals(buyers, enrollments.size());
+
+            CourseSales sales = courseSalesService.getSales(course.getId()).orElseThrow();
+            assertEquals(buyers, sales.getBuyers());
+            assertEquals(buyers * PRICE, sales.getRevenue(), 0.001);
+            sold += buyers;
+        }
+        assertEquals(STUDENTS * COURSES, sold + failedOrders.size());
+        assertEquals(sold, entitlements.size());
+    }
+
+    // createOrder -> checkout widget -> two verifyPayment calls in flight at once; false when the
+    // gateway failed the order
+    private boolean checkout(ExecutorService retries, Users student, Course course) throws Exception {
+        HttpStatusCode created = paymentService.createOrder(course.getId(), student.getEmail()).getStatusCode();
+        if (created == HttpStatus.INTERNAL_SERVER_ERROR) {
+            return false;
+        }
+        assertEquals(HttpStatus.CREATED, created);
+        // The response wrapper is shared between threads, so the order id is read from the payment row
+        String orderId = paymentRepository.findByStudentAndCourse(student, course).get(0).getRazorpayOrderId();
+        Map<String, String> checkout = paymentGateway.completeCheckout(orderId);
+
+        Future<?> retry = retries.submit(() -> assertEquals(HttpStatus.OK, verify(checkout)));
+        assertEquals(HttpStatus.OK, verify(checkout));
+        retry.get(120, TimeUnit.SECONDS);
+        return true;
+    }
+
+    private HttpStatus verify(Map<String, String> checkout) {
+        return (HttpStatus) paymentService.verifyPayment(checkout.get("razorpayOrderId"),
+                checkout.get("razorpayPaymentId"), checkout.get("razorpaySignature")).getStatusCode();
+    }
+}
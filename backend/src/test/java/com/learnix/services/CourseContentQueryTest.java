@@ -0,0 +1,135 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.dto.CourseEnrollmentView;
+import com.learnix.models.Course;
+import com.learnix.models.Enrollment;
+import com.learnix.models.Users;
+import com.learnix.repositories.CourseRepository;
+import com.learnix.repositories.EnrollmentRepository;
+import com.learnix.repositories.UserRepository;
+import com.learnix.specification.CourseSpecification;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Statement-count regressions for the course content listing: the number of statements must
+// not grow with the number of courses, teachers or enrollments
+@SpringBootTest
+@ActiveProfiles("test")
+class CourseContentQueryTest {
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void coursesLoadTheirTeachersInTheSameStatement() {
+        String keyword = seed(12, 4, 0);
+
+        statistics.clear();
+        List<Course> courses = courseRepository.findAll(CourseSpecification.keywordLike(keyword));
+        List<String> teachers = courses.stream().map(c -> c.getTeacher().getName()).collect(Collectors.toList());
+
+        assertEquals(12, courses.size());
+        assertEquals(12, teachers.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void enrollmentsOfManyCoursesAreOneStatement() {
+        String keyword = seed(8, 2, 5);
+        List<Long> courseIds = courseRepository.findAll(CourseSpecification.keywordLike(keyword)).stream()
+                .map(Course::getId)
+                .collect(Collectors.toList());
+
+        statistics.clear();
+        List<CourseEnrollmentView> views = enrollmentRepository.findEnrollmentViewsByCourseIds(courseIds);
+        views.forEach(view -> view.getEmail());
+
+        assertEquals(40, views.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void courseContentListingIsTwoStatementsAtAnySize() {
+        String small = seed(2, 1, 1);
+        String large = seed(15, 5, 4);
+
+        statistics.clear();
+        ResponseEntity<?> smallResponse = teacherService.getCourseContent(small, null);
+        long smallStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        ResponseEntity<?> largeResponse = teacherService.getCourseContent(large, null);
+        long largeStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(HttpStatus.OK, smallResponse.getStatusCode());
+        assertEquals(HttpStatus.OK, largeResponse.getStatusCode());
+        assertEquals(2, smallStatements);
+        assertEquals(2, largeStatements);
+    }
+
+    // Courses titled with a fresh keyword, spread over the given number of teachers, each with
+    // its own enrolled students; returns the keyword
+    private String seed(int courses, int teachers, int studentsPerCourse) {
+        String keyword = UUID.randomUUID().toString();
+        List<Users> teacherUsers = new ArrayList<>();
+        for (int t = 0; t < teachers; t++) {
+            teacherUsers.add(user("TEACHER"));
+        }
+        for (int c = 0; c < courses; c++) {
+            Course course = new Course();
+            course.setTitle("Course " + c + " " + keyword);
+            course.setCategory("Science");
+            course.setPrice(100.0);
+            course.setTeacher(teacherUsers.get(c % teachers));
+            course = courseRepository.save(course);
+            for (int s = 0; s < studentsPerCourse; s++) {
+                enrollmentRepository.save(Enrollment.builder()
+                        .student(user("STUDENT"))
+                        .course(course)
+                        .isPaid(true)
+                        .build());
+            }
+        }
+        return keyword;
+    }
+
+    private Users user(String role) {
+        return userRepository.save(TestFixtures.user(role.toLowerCase() + " " + UUID.randomUUID(), role));
+    }
+}
@@ -0,0 +1,162 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.models.Course;
+import com.learnix.models.CourseEntitlement;
+import com.learnix.models.Enrollment;
+import com.learnix.models.Payment;
+import com.learnix.models.Users;
+import com.learnix.repositories.CourseEntitlementRepository;
+import com.learnix.repositories.CourseRepository;
+import com.learnix.repositories.EnrollmentRepository;
+import com.learnix.repositories.PaymentRepository;
+import com.learnix.repositories.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EntitlementServiceTest {
+
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @MockitoSpyBean
+    private CourseEntitlementRepository entitlementRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Users student;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        student = userRepository.save(TestFixtures.user("buyer", "STUDENT"));
+        course = course("Entitled");
+    }
+
+    // Only paid enrollments backed by a SUCCESS payment become entitlements; answers cached
+    // before the backfill are dropped, and a filled table is left alone
+    @Test
+    void backfillGrantsPaidEnrollmentsOnce() {
+        Course unpaid = course("Unpaid");
+        Course failed = course("Failed");
+        enroll(course, true, "SUCCESS");
+        enroll(unpaid, false, "SUCCESS");
+        enroll(failed, true, "FAILED");
+        entitlementRepository.deleteAll();
+        assertFalse(entitlementService.hasAccess(student.getId(), course.getId()));
+
+        assertEquals(1, entitlementService.backfillIfEmpty());
+        assertEquals(0, entitlementService.backfillIfEmpty());
+
+        assertTrue(entitlementService.hasAccess(student.getId(), course.getId()));
+        assertFalse(entitlementService.hasAccess(student.getId(), unpaid.getId()));
+        assertFalse(entitlementService.hasAccess(student.getId(), failed.getId()));
+    }
+
+    // Readers on other threads see a grant or a revoke once its transaction commits, even when
+    // they cached the old answer while it was running
+    @Test
+    void grantAndRevokeBecomeVisibleOnCommit() throws Exception {
+        Long studentId = student.getId();
+        Long courseId = course.getId();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entitlementService.grant(studentId, courseId, null);
+                assertFalse(read(reader, studentId, courseId));
+            });
+            assertTrue(read(reader, studentId, courseId));
+
+            transactionTemplate.executeWithoutResult(status -> {
+                entitlementService.revokeStudent(studentId);
+                read(reader, studentId, courseId);
+            });
+            assertFalse(read(reader, studentId, courseId));
+
+            entitlementService.grant(studentId, courseId, null);
+            assertTrue(read(reader, studentId, courseId));
+            entitlementService.revokeCourse(courseId);
+            assertFalse(read(reader, studentId, courseId));
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    // The revoke commits and evicts while a reader is between its lookup (which still saw the
+    // row) and caching the answer: the stale true must not stay cached
+    @Test
+    void revokeDuringALookupDoesNotLeaveStaleAccess() {
+        Long studentId = student.getId();
+        Long courseId = course.getId();
+        // Stored directly, so the access cache has no answer yet
+        entitlementRepository.save(CourseEntitlement.builder().studentId(studentId).courseId(courseId)
+                .grantedAt(LocalDateTime.now()).build());
+
+        doAnswer(invocation -> {
+            entitlementService.revokeStudent(studentId);
+            return true;
+        }).when(entitlementRepository).existsById(any());
+        assertTrue(entitlementService.hasAccess(studentId, courseId));
+        reset(entitlementRepository);
+
+        assertFalse(entitlementService.hasAccess(studentId, courseId));
+    }
+
+    private boolean read(ExecutorService reader, Long studentId, Long courseId) {
+        try {
+            return reader.submit(() -> entitlementService.hasAccess(studentId, courseId)).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Course course(String title) {
+        Course created = new Course();
+        created.setTitle(title);
+        created.setPrice(100.0);
+        return courseRepository.save(created);
+    }
+
+    private void enroll(Course of, boolean paid, String paymentStatus) {
+        enrollmentRepository.save(Enrollment.builder().student(student).course(of).isPaid(paid).build());
+        paymentRepository.save(Payment.builder()
+                .student(student)
+                .course(of)
+                .amount(of.getPrice())
+                .status(paymentStatus)
+                .paidAt(LocalDateTime.now())
+                .build());
+    }
+}
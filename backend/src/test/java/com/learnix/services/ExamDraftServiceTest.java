@@ -0,0 +1,160 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.dto.OnlineTestSubmissionRequest;
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.models.Users;
+import com.learnix.repositories.OnlineTestDraftRepository;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.StudentRepository;
+import com.learnix.repositories.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ExamDraftServiceTest {
+
+    private static final AtomicLong TEST_IDS = new AtomicLong(1000);
+
+    @Autowired
+    private ExamDraftService examDraftService;
+
+    @Autowired
+    private OnlineTestDraftRepository draftRepository;
+
+    @Autowired
+    private OnlineTestService onlineTestService;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Write amplification through the endpoint: after the first autosave of an exam resolved the
+    // student and the answer key, autosaves issue no statement until the flush, which writes one
+    // row per student however often each of them autosaved
+    @Test
+    void autosavesOnlyTouchMemoryUntilTheFlush() {
+        int students = 20;
+        int autosavesPerStudent = 25;
+        OnlineTest test = new OnlineTest();
+        test.setTitle("Autosave");
+        test.setMaxMarks(10);
+        test = onlineTestRepository.save(test);
+        List<Long> questionIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            OnlineTestQuestion question = new OnlineTestQuestion();
+            question.setQuestionText("Q" + i);
+            question.setCorrectOption("A");
+            question.setTest(test);
+            questionIds.add(questionRepository.save(question).getId());
+        }
+        List<Users> users = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            users.add(student());
+            assertEquals(HttpStatus.OK, autosave(test, users.get(i), questionIds.get(0), "C").getStatusCode());
+        }
+        examDraftService.flush();
+
+        statistics.clear();
+        for (int round = 0; round < autosavesPerStudent; round++) {
+            for (Users user : users) {
+                assertEquals(HttpStatus.OK, autosave(test, user, questionIds.get(round % 10), round % 2 == 0 ? "A" : "B").getStatusCode());
+            }
+        }
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        assertEquals(students, examDraftService.flush());
+        assertEquals(students, draftRepository.findByTestId(test.getId()).size());
+        // Last autosave per question wins: round 24 wrote question 4, round 19 question 9
+        Long studentId = studentRepository.findIdByUserEmail(users.get(7).getEmail()).orElseThrow();
+        Map<Long, String> draft = examDraftService.getDraft(test.getId(), studentId);
+        assertEquals(10, draft.size());
+        assertEquals("A", draft.get(questionIds.get(4)));
+        assertEquals("B", draft.get(questionIds.get(9)));
+    }
+
+    // Each answer is visible to getDraft as soon as record returns, whether it is still buffered,
+    // in the batch being written, or committed
+    @Test
+    void readsDuringConcurrentFlushesNeverMissAnAnswer() throws Exception {
+        long testId = TEST_IDS.incrementAndGet();
+        long studentId = 1;
+        int answers = 400;
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Future<?> flusher = pool.submit(() -> {
+            while (running.get()) {
+                examDraftService.flush();
+            }
+            return null;
+        });
+        try {
+            for (long questionId = 1; questionId <= answers; questionId++) {
+                examDraftService.record(testId, studentId, Map.of(questionId, "C"));
+                Map<Long, String> draft = examDraftService.getDraft(testId, studentId);
+                assertEquals(questionId, draft.size(), "answers missing after question " + questionId);
+            }
+        } finally {
+            running.set(false);
+            flusher.get(30, TimeUnit.SECONDS);
+            pool.shutdownNow();
+        }
+        examDraftService.flush();
+        assertEquals(answers, examDraftService.getDraft(testId, studentId).size());
+    }
+
+    private ResponseEntity<?> autosave(OnlineTest test, Users user, Long questionId, String option) {
+        Principal principal = user::getEmail;
+        return onlineTestService.autosaveAnswers(test.getId(), principal,
+                new OnlineTestSubmissionRequest(List.of(new OnlineTestSubmissionRequest.AnswerDTO(questionId, option))));
+    }
+
+    private Users student() {
+        Users user = userRepository.save(TestFixtures.user("student", "STUDENT"));
+        studentRepository.save(TestFixtures.student(user));
+        return user;
+    }
+}
@@ -0,0 +1,203 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.models.OnlineTestSubmission;
+import com.learnix.models.Student;
+import com.learnix.repositories.OnlineTestDraftRepository;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+import com.learnix.repositories.StudentRepository;
+import com.learnix.repositories.UserRepository;
+
+// No close grace, so a timer is due exactly at the end time of its test
+@SpringBootTest(properties = "exam.timer.close-grace-seconds=0")
+@ActiveProfiles("test")
+class ExamTimerServiceTest {
+
+    @Autowired
+    private ExamTimerService examTimerService;
+
+    @Autowired
+    private ExamDraftService examDraftService;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    @Autowired
+    private OnlineTestDraftRepository draftRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private OnlineTest test;
+    private Long first;
+    private Long second;
+    private Long submitted;
+
+    // A published test that ended five minutes ago: two students only have drafts (one already
+    // flushed, one still buffered), a third submitted before the end and also left a draft
+    @BeforeEach
+    void setUp() {
+        test = new OnlineTest();
+        test.setTitle("Timed");
+        test.setMaxMarks(10);
+        test.setStartTime(LocalDateTime.now().minusHours(1));
+        test.setEndTime(LocalDateTime.now().minusMinutes(5));
+        test = onlineTestRepository.save(test);
+        Long[] questionIds = new Long[2];
+        String[] correct = { "A", "C" };
+        for (int i = 0; i < correct.length; i++) {
+            OnlineTestQuestion question = new OnlineTestQuestion();
+            question.setQuestionText("Q" + i);
+            question.setCorrectOption(correct[i]);
+            question.setTest(test);
+            questionIds[i] = questionRepository.save(question).getId();
+        }
+
+        first = student().getId();
+        second = student().getId();
+        Student submitter = student();
+        submitted = submitter.getId();
+
+        OnlineTestSubmission submission = new OnlineTestSubmission();
+        submission.setTest(test);
+        submission.setStudent(submitter);
+        submission.setScore(5);
+        submission.setTotalCorrect(1);
+        submissionRepository.save(submission);
+
+        examDraftService.record(test.getId(), first, Map.of(questionIds[0], "A", questionIds[1], "C"));
+        examDraftService.flush();
+        examDraftService.record(test.getId(), second, Map.of(questionIds[0], "B"));
+        examDraftService.record(test.getId(), submitted, Map.of(questionIds[0], "A", questionIds[1], "C"));
+    }
+
+    // Drafts become submissions graded like submitTest; the student who submitted keeps the
+    // attempt they sent and the draft buffer of the test is emptied
+    @Test
+    void closeTurnsDraftsIntoSubmissionsOnce() {
+        assertEquals(2, examTimerService.close(test.getId()));
+
+        OnlineTest closed = onlineTestRepository.findById(test.getId()).orElseThrow();
+        assertTrue(closed.getClosed());
+        assertNotNull(closed.getClosedAt());
+        assertFinalized();
+
+        // Closing twice changes nothing
+        assertEquals(0, examTimerService.close(test.getId()));
+        assertEquals(3, submissionRepository.countByTestId(test.getId()));
+    }
+
+    // After a restart loadAll registers the overdue test and the next tick closes it
+    @Test
+    void overdueTestLoadedOnRestartClosesOnTheNextTick() throws Exception {
+        assertTrue(examTimerService.loadAll() >= 1);
+
+        await(() -> isClosed() && draftRepository.findByTestId(test.getId()).isEmpty());
+        assertFinalized();
+    }
+
+    // A timer that fires before the (moved) end time re-registers for the new end instead of closing
+    @Test
+    void closeBeforeTheEndTimeWaitsForTheNewOne() throws Exception {
+        test.setEndTime(LocalDateTime.now().plusSeconds(2));
+        test = onlineTestRepository.save(test);
+
+        assertEquals(0, examTimerService.close(test.getId()));
+        assertFalse(isClosed());
+        assertEquals(3, examDraftService.getDrafts(test.getId()).size());
+
+        await(() -> isClosed() && draftRepository.findByTestId(test.getId()).isEmpty());
+        assertFinalized();
+    }
+
+    // Unpublished tests are neither registered nor closed, and keep their drafts
+    @Test
+    void unpublishedTestIsNeverClosed() {
+        test.setPublished(false);
+        test = onlineTestRepository.save(test);
+
+        examTimerService.register(test);
+        assertEquals(0, examTimerService.close(test.getId()));
+        assertFalse(isClosed());
+        assertEquals(1, submissionRepository.countByTestId(test.getId()));
+        assertEquals(3, examDraftService.getDrafts(test.getId()).size());
+    }
+
+    // The wheel only walks one lap after a pause longer than the wheel, which still reaches every
+    // slot: a timer due in five minutes fires when the clock jumps ten minutes ahead. The jump
+    // leaves this context's wheel ahead of the real clock, hence the fresh context afterwards.
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void pauseLongerThanTheWheelStillFiresDueTimers() throws Exception {
+        long now = ExamTimerService.currentTick();
+        examTimerService.register(test.getId(), null, LocalDateTime.now().plusMinutes(5));
+
+        examTimerService.tick(now + 600);
+
+        await(() -> isClosed() && draftRepository.findByTestId(test.getId()).isEmpty());
+        assertFinalized();
+    }
+
+    private void assertFinalized() {
+        Map<Long, OnlineTestSubmission> submissions = submissionRepository.findByTest(test).stream()
+                .collect(Collectors.toMap(s -> s.getStudent().getId(), Function.identity()));
+        assertEquals(3, submissions.size());
+        assertEquals(10, submissions.get(first).getScore());
+        assertEquals(2, submissions.get(first).getTotalCorrect());
+        assertEquals(0, submissions.get(second).getScore());
+        assertEquals(5, submissions.get(submitted).getScore());
+
+        assertTrue(draftRepository.findByTestId(test.getId()).isEmpty());
+        assertTrue(examDraftService.getDrafts(test.getId()).isEmpty());
+    }
+
+    private boolean isClosed() {
+        return Boolean.TRUE.equals(onlineTestRepository.findById(test.getId()).orElseThrow().getClosed());
+    }
+
+    // Timer actions run on their own thread; tick on the way so the test does not depend on the
+    // wheel's own one-second schedule
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Exam timer did not fire");
+            examTimerService.tick();
+            Thread.sleep(100);
+        }
+    }
+
+    private Student student() {
+        return studentRepository.save(TestFixtures.student(userRepository.save(TestFixtures.user("student", "STUDENT"))));
+    }
+}
@@ -0,0 +1,185 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestItemStats;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.repositories.OnlineTestItemStatsRepository;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ItemAnalysisServiceTest {
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @MockitoSpyBean
+    private OnlineTestItemStatsRepository statsRepository;
+
+    private OnlineTest test;
+    private AnswerKeyCache.AnswerKey key;
+
+    @BeforeEach
+    void setUp() {
+        test = new OnlineTest();
+        test.setTitle("Item analysis");
+        test.setMaxMarks(2);
+        test = onlineTestRepository.save(test);
+        List<OnlineTestQuestion> questions = new ArrayList<>();
+        for (String correct : new String[] { "A", "C" }) {
+            OnlineTestQuestion question = new OnlineTestQuestion();
+            question.setQuestionText("Q" + correct);
+            question.setCorrectOption(correct);
+            question.setTest(test);
+            questions.add(questionRepository.save(question));
+        }
+        key = AnswerKeyCache.AnswerKey.of(test, questions);
+    }
+
+    @Test
+    void concurrentRecordsAndFlushesLoseNoCounts() throws Exception {
+        int threads = 8;
+        int perThread = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        // Right on question 1 (A), wrong on question 2 (B instead of C)
+                        itemAnalysisService.record(test.getId(), key, new byte[] { 0, 1 }, 1);
+                    }
+                    return null;
+                }));
+            }
+            Future<?> flusher = pool.submit(() -> {
+                start.await();
+                while (recording.get()) {
+                    itemAnalysisService.flush();
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            recording.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        itemAnalysisService.flush();
+
+        Map<Long, OnlineTestItemStats> stats = loadStats();
+        long total = (long) threads * perThread;
+        OnlineTestItemStats first = stats.get(key.questionId(0));
+        OnlineTestItemStats second = stats.get(key.questionId(1));
+        assertEquals(total, first.getResponses());
+        assertEquals(total, first.getCorrectCount());
+        assertEquals(total, first.getOptionA());
+        assertEquals(total, first.getCorrectScoreSum());
+        assertEquals(total, second.getResponses());
+        assertEquals(0L, second.getCorrectCount());
+        assertEquals(total, second.getOptionB());
+    }
+
+    // A flush stuck in the database (here: held on its first query, which finds no counter rows
+    // yet) must not hold back the submissions that keep recording
+    @Test
+    void recordDoesNotWaitForARunningFlush() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return List.of();
+        }).when(statsRepository).findExistingQuestionIds(any());
+
+        itemAnalysisService.record(test.getId(), key, new byte[] { 0, 2 }, 2);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> flush = pool.submit(() -> itemAnalysisService.flush());
+            assertTrue(flushing.await(10, TimeUnit.SECONDS));
+
+            Future<?> record = pool.submit(() -> itemAnalysisService.record(test.getId(), key, new byte[] { 1, 2 }, 1));
+            record.get(10, TimeUnit.SECONDS);
+
+            release.countDown();
+            flush.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+        reset(statsRepository);
+        itemAnalysisService.flush();
+
+        Map<Long, OnlineTestItemStats> stats = loadStats();
+        assertEquals(2L, stats.get(key.questionId(0)).getResponses());
+        assertEquals(1L, stats.get(key.questionId(0)).getOptionB());
+        assertEquals(2L, stats.get(key.questionId(1)).getCorrectCount());
+    }
+
+    @Test
+    void failedFlushKeepsItsBatchForTheNextRun() {
+        itemAnalysisService.record(test.getId(), key, new byte[] { 0, 2 }, 2);
+        doThrow(new DataAccessResourceFailureException("database down"))
+                .when(statsRepository).addCounts(any(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+                        anyLong(), anyLong(), anyLong(), any());
+        assertThrows(DataAccessResourceFailureException.class, () -> itemAnalysisService.flush());
+
+        // Recorded while the database was down
+        itemAnalysisService.record(test.getId(), key, new byte[] { 1, 2 }, 1);
+        reset(statsRepository);
+        itemAnalysisService.flush();
+
+        Map<Long, OnlineTestItemStats> stats = loadStats();
+        assertEquals(2L, stats.get(key.questionId(0)).getResponses());
+        assertEquals(1L, stats.get(key.questionId(0)).getOptionB());
+        assertEquals(2L, stats.get(key.questionId(1)).getCorrectCount());
+        assertEquals(3L, stats.get(key.questionId(1)).getCorrectScoreSum());
+    }
+
+    private Map<Long, OnlineTestItemStats> loadStats() {
+        return statsRepository.findByTestId(test.getId()).stream()
+                .collect(Collectors.toMap(OnlineTestItemStats::getQuestionId, Function.identity()));
+    }
+}
@@ -0,0 +1,144 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestSubmission;
+import com.learnix.models.Student;
+import com.learnix.models.Users;
+import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+import com.learnix.repositories.StudentRepository;
+import com.learnix.repositories.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LeaderboardServiceTest {
+
+    // Submitted in this order: two pairs of tied scores, a single one and a zero
+    private static final int[] SCORES = { 80, 95, 80, 60, 95, 0 };
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private OnlineTest test;
+    private List<Student> students;
+
+    @BeforeEach
+    void setUp() {
+        test = new OnlineTest();
+        test.setTitle("Leaderboard");
+        test.setMaxMarks(100);
+        test = onlineTestRepository.save(test);
+
+        students = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        for (int i = 0; i < SCORES.length; i++) {
+            Users user = userRepository.save(TestFixtures.user("student " + i, "STUDENT"));
+            Student student = studentRepository.save(TestFixtures.student(user));
+            students.add(student);
+
+            OnlineTestSubmission submission = new OnlineTestSubmission();
+            submission.setTest(test);
+            submission.setStudent(student);
+            submission.setScore(SCORES[i]);
+            submission.setSubmittedAt(start.plusMinutes(i));
+            submissionRepository.save(submission);
+        }
+    }
+
+    // Tied scores share a rank and the next score skips past them; percentile is the share of
+    // submissions at or below the score
+    @Test
+    void tiesShareARankAndPercentilesCountEqualOrLower() {
+        assertRank(1, 95, 100.0, 1);
+        assertRank(4, 95, 100.0, 1);
+        assertRank(0, 80, 66.7, 3);
+        assertRank(2, 80, 66.7, 3);
+        assertRank(3, 60, 33.3, 5);
+        assertRank(5, 0, 16.7, 6);
+        assertEquals(SCORES.length, leaderboardService.getRank(test, students.get(0).getId()).get("submissions"));
+
+        // No submission, no rank
+        assertNull(leaderboardService.getRank(test, -1L));
+    }
+
+    // Highest score first, earlier submitter first within a score, cut at n
+    @Test
+    void topListsBestScoresInSubmissionOrder() {
+        List<Map<String, Object>> top = leaderboardService.getTop(test, 3);
+        assertTop(top, 1, 4, 0);
+        assertEquals(List.of(1L, 1L, 3L), top.stream().map(row -> row.get("rank")).toList());
+        assertEquals("student 1", top.get(0).get("studentName"));
+
+        List<Map<String, Object>> all = leaderboardService.getTop(test, 10);
+        assertTop(all, 1, 4, 0, 2, 3, 5);
+        assertEquals(6L, all.get(5).get("rank"));
+
+        assertTrue(leaderboardService.getTop(test, 0).isEmpty());
+    }
+
+    // A stored (re)submission moves the student on a loaded board; scores are clamped to the
+    // test's range and removed students leave the board
+    @Test
+    void scoreUpdatesMoveStudentsOnTheBoard() {
+        leaderboardService.getTop(test, 1);
+
+        leaderboardService.record(test.getId(), students.get(3).getId(), 100);
+        assertRank(3, 100, 100.0, 1);
+        assertRank(1, 95, 83.3, 2);
+        assertTop(leaderboardService.getTop(test, 2), 3, 1);
+
+        // Same score again keeps the submission order within the score
+        leaderboardService.record(test.getId(), students.get(1).getId(), 95);
+        assertTop(leaderboardService.getTop(test, 3), 3, 1, 4);
+
+        leaderboardService.record(test.getId(), students.get(5).getId(), 250);
+        assertRank(5, 100, 100.0, 1);
+        assertTop(leaderboardService.getTop(test, 2), 3, 5);
+
+        leaderboardService.removeStudent(students.get(5).getId());
+        assertNull(leaderboardService.getRank(test, students.get(5).getId()));
+        assertEquals(SCORES.length - 1, leaderboardService.getRank(test, students.get(0).getId()).get("submissions"));
+        assertRank(0, 80, 40.0, 4);
+    }
+
+    private void assertRank(int student, int score, double percentile, int rank) {
+        Map<String, Object> payload = leaderboardService.getRank(test, students.get(student).getId());
+        assertEquals(score, payload.get("score"));
+        assertEquals(rank, payload.get("rank"));
+        assertEquals(percentile, (Double) payload.get("percentile"), 0.001);
+    }
+
+    private void assertTop(List<Map<String, Object>> top, int... expectedStudents) {
+        assertEquals(expectedStudents.length, top.size());
+        for (int i = 0; i < expectedStudents.length; i++) {
+            assertEquals(students.get(expectedStudents[i]).getId(), top.get(i).get("studentId"));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.learnix.dto.OnlineTestSubmissionRequest;
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.models.OnlineTestSubmission;
+import com.learnix.models.Student;
+import com.learnix.models.Users;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+import com.learnix.repositories.StudentRepository;
+import com.learnix.repositories.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OnlineTestSubmitTest {
+
+    @Autowired
+    private OnlineTestService onlineTestService;
+
+    @Autowired
+    private SubmissionIngestService submissionIngestService;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private OnlineTest test;
+    private OnlineTestQuestion question;
+    private Users user;
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        test = new OnlineTest();
+        test.setTitle("Submit");
+        test.setMaxMarks(10);
+        test = onlineTestRepository.save(test);
+        question = new OnlineTestQuestion();
+        question.setQuestionText("Q");
+        question.setCorrectOption("A");
+        question.setTest(test);
+        question = questionRepository.save(question);
+
+        user = userRepository.save(TestFixtures.user("student", "STUDENT"));
+        student = studentRepository.save(TestFixtures.student(user));
+    }
+
+    // A double-clicked submit: exactly one attempt is stored, every other call is rejected
+    @Test
+    void concurrentSubmitsStoreOneAttempt() throws Exception {
+        int submits = 8;
+        Principal principal = user::getEmail;
+        OnlineTestSubmissionRequest request = new OnlineTestSubmissionRequest();
+        request.setAnswers(List.of(new OnlineTestSubmissionRequest.AnswerDTO(question.getId(), "A")));
+
+        ExecutorService pool = Executors.newFixedThreadPool(submits);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatusCode>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < submits; i++) {
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    return onlineTestService.submitTest(test.getId(), principal, request).getStatusCode();
+                }));
+            }
+            start.countDown();
+            int accepted = 0;
+            int rejected = 0;
+            for (Future<HttpStatusCode> call : calls) {
+                HttpStatusCode status = call.get(60, TimeUnit.SECONDS);
+                if (status == HttpStatus.OK) accepted++;
+                if (status == HttpStatus.BAD_REQUEST) rejected++;
+            }
+            assertEquals(1, accepted);
+            assertEquals(submits - 1, rejected);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1L, submissionRepository.countByTestId(test.getId()));
+    }
+
+    // Queued ingestion answers a stored attempt right away instead of accepting it and failing later
+    @Test
+    void queuedSubmitRejectsAStoredAttempt() {
+        submissionRepository.save(submission(10));
+        OnlineTestSubmissionRequest request = new OnlineTestSubmissionRequest();
+        request.setAnswers(List.of(new OnlineTestSubmissionRequest.AnswerDTO(question.getId(), "A")));
+
+        ReflectionTestUtils.setField(submissionIngestService, "enabled", true);
+        submissionIngestService.start();
+        try {
+            ResponseEntity<?> response = onlineTestService.submitTest(test.getId(), user::getEmail, request);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        } finally {
+            submissionIngestService.stop();
+            ReflectionTestUtils.setField(submissionIngestService, "enabled", false);
+        }
+        assertEquals(1L, submissionRepository.countByTestId(test.getId()));
+    }
+
+    // Rows stored twice before the unique key existed: the first attempt is kept
+    @Test
+    void removeDuplicateSubmissionsKeepsTheFirstAttempt() {
+        jdbcTemplate.execute("ALTER TABLE online_test_submission DROP CONSTRAINT uk_online_test_submission_test_student");
+        Long first;
+        try {
+            first = submissionRepository.save(submission(10)).getId();
+            submissionRepository.save(submission(0));
+            submissionRepository.save(submission(5));
+
+            assertEquals(2, onlineTestService.removeDuplicateSubmissions());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE online_test_submission ADD CONSTRAINT uk_online_test_submission_test_student "
+                    + "UNIQUE (test_id, student_id)");
+        }
+
+        List<Object[]> rows = submissionRepository.findScoreRowsByTestId(test.getId());
+        assertEquals(1, rows.size());
+        assertEquals(first, rows.get(0)[0]);
+        assertEquals(10, ((Number) rows.get(0)[1]).intValue());
+    }
+
+    private OnlineTestSubmission submission(int score) {
+        OnlineTestSubmission submission = new OnlineTestSubmission();
+        submission.setTest(test);
+        submission.setStudent(student);
+        submission.setScore(score);
+        submission.setTotalCorrect(score / 10);
+        return submission;
+    }
+}
@@ -0,0 +1,113 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.models.Course;
+import com.learnix.models.Payment;
+import com.learnix.models.Users;
+import com.learnix.repositories.CourseRepository;
+import com.learnix.repositories.PaymentRepository;
+import com.learnix.repositories.UserRepository;
+
+// Pages of three, so the six stale checkouts take two batches
+@SpringBootTest(properties = {
+        "payment.pending.ttl-minutes=60",
+        "payment.pending.expiry-batch-size=3" })
+@ActiveProfiles("test")
+class PaymentExpiryServiceTest {
+
+    @Autowired
+    private PaymentExpiryService paymentExpiryService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private TransactionTemplate transactionTemplate;
+
+    // Stale and fresh PENDING rows and stale SUCCESS rows interleaved by id; the first stale
+    // checkout is confirmed after its page was read, right before that page is expired
+    @Test
+    void onlyStalePendingPaymentsExpire() {
+        Users student = userRepository.save(TestFixtures.user("buyer", "STUDENT"));
+        Course course = new Course();
+        course.setTitle("Expiry");
+        course.setPrice(100.0);
+        Course saved = courseRepository.save(course);
+
+        LocalDateTime stale = LocalDateTime.now().minusHours(2);
+        LocalDateTime fresh = LocalDateTime.now().minusMinutes(5);
+        List<Payment> stalePending = new ArrayList<>();
+        List<Payment> others = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            switch (i % 4) {
+                case 1 -> others.add(payment(student, saved, "SUCCESS", stale));
+                case 3 -> others.add(payment(student, saved, "PENDING", fresh));
+                default -> stalePending.add(payment(student, saved, "PENDING", stale));
+            }
+        }
+        Long confirmed = stalePending.get(0).getId();
+
+        AtomicBoolean confirmLate = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (confirmLate.getAndSet(false)) {
+                jdbcTemplate.update("UPDATE payment SET status = 'SUCCESS' WHERE id = ?", confirmed);
+            }
+            return invocation.callRealMethod();
+        }).when(transactionTemplate).execute(any());
+
+        assertEquals(stalePending.size() - 1, paymentExpiryService.expireStalePayments());
+
+        for (Payment payment : stalePending) {
+            assertEquals(payment.getId().equals(confirmed) ? "SUCCESS" : "EXPIRED", status(payment));
+        }
+        for (Payment payment : others) {
+            assertEquals(payment.getStatus(), status(payment));
+        }
+
+        // Nothing left to expire
+        assertEquals(0, paymentExpiryService.expireStalePayments());
+    }
+
+    // createdAt is stamped on insert, so it is set afterwards
+    private Payment payment(Users student, Course course, String status, LocalDateTime createdAt) {
+        Payment payment = paymentRepository.save(Payment.builder()
+                .student(student)
+                .course(course)
+                .amount(course.getPrice())
+                .status(status)
+                .razorpayOrderId("order_" + UUID.randomUUID())
+                .build());
+        jdbcTemplate.update("UPDATE payment SET created_at = ? WHERE id = ?", createdAt, payment.getId());
+        return payment;
+    }
+
+    private String status(Payment payment) {
+        return paymentRepository.findById(payment.getId()).orElseThrow().getStatus();
+    }
+}
@@ -0,0 +1,335 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learnix.dto.StudentPaymentView;
+import com.learnix.models.Course;
+import com.learnix.models.CourseSales;
+import com.learnix.models.Enrollment;
+import com.learnix.models.Payment;
+import com.learnix.models.Users;
+import com.learnix.repositories.CourseEntitlementRepository;
+import com.learnix.repositories.CourseRepository;
+import com.learnix.repositories.EnrollmentRepository;
+import com.learnix.repositories.PaymentRepository;
+import com.learnix.repositories.UserRepository;
+import com.learnix.responseWrapper.MyResponseWrapper;
+
+@SpringBootTest(properties = "payment.gateway=stub")
+@ActiveProfiles("test")
+class PaymentServiceTest {
+
+    private static final int CONFIRMATIONS = 8;
+    private static final int SIBLING_ORDERS = 4;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private StubPaymentGateway paymentGateway;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseEntitlementRepository entitlementRepository;
+
+    @Autowired
+    private CourseSalesService courseSalesService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Users student;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        student = userRepository.save(TestFixtures.user("buyer", "STUDENT"));
+        course = new Course();
+        course.setTitle("Payments");
+        course.setPrice(499.0);
+        course = courseRepository.save(course);
+    }
+
+    // The webhook worker reads the payment, then the browser's verify commits, then the
+    // payment.failed event is applied with the PENDING copy: the payment stays SUCCESS
+    @Test
+    void lateFailureNeverDowngradesAConfirmedPayment() throws Exception {
+        String orderId = createOrder();
+        Map<String, String> checkout = paymentGateway.completeCheckout(orderId);
+
+        ExecutorService browser = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Payment stale = paymentRepository.findByRazorpayOrderId(orderId).orElseThrow();
+                assertEquals("PENDING", stale.getStatus());
+                try {
+                    HttpStatusCode verified = browser.submit(() -> paymentService.verifyPayment(orderId,
+                            checkout.get("razorpayPaymentId"), checkout.get("razorpaySignature")).getStatusCode())
+                            .get(30, TimeUnit.SECONDS);
+                    assertEquals(HttpStatus.OK, verified);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                assertFalse(paymentService.failPayment(stale, "pay_declined"));
+            });
+        } finally {
+            browser.shutdownNow();
+        }
+
+        Payment payment = paymentRepository.findByRazorpayOrderId(orderId).orElseThrow();
+        assertEquals("SUCCESS", payment.getStatus());
+        assertEquals(checkout.get("razorpayPaymentId"), payment.getRazorpayPaymentId());
+    }
+
+    @Test
+    void failureOfAPendingPaymentIsRecorded() {
+        String orderId = createOrder();
+        Payment pending = paymentRepository.findByRazorpayOrderId(orderId).orElseThrow();
+
+        assertTrue(paymentService.failPayment(pending, "pay_declined"));
+        assertFalse(paymentService.failPayment(pending, "pay_declined_again"));
+
+        Payment payment = paymentRepository.findByRazorpayOrderId(orderId).orElseThrow();
+        assertEquals("FAILED", payment.getStatus());
+        assertEquals("pay_declined", payment.getRazorpayPaymentId());
+    }
+
+    // The browser's verify and webhook confirmations of one order race each other
+    @Test
+    void concurrentConfirmationsOfOneOrderSellOnce() throws Exception {
+        String orderId = createOrder();
+        Map<String, String> checkout = paymentGateway.completeCheckout(orderId);
+
+        runTogether(i -> i % 2 == 0 ? verify(checkout) : confirmFromWebhook(checkout));
+
+        Payment payment = paymentRepository.findByRazorpayOrderId(orderId).orElseThrow();
+        assertEquals("SUCCESS", payment.getStatus());
+        assertSoldOnce(payment.getId());
+    }
+
+    // Several open attempts of one course (e.g. checkouts started in two tabs) all complete at
+    // once: one of them wins, the others end up CANCELLED
+    @Test
+    void concurrentConfirmationsOfSiblingOrdersSellOnce() throws Exception {
+        List<Map<String, String>> checkouts = new ArrayList<>();
+        for (int i = 0; i < SIBLING_ORDERS; i++) {
+            Payment attempt = paymentRepository.save(Payment.builder()
+                    .student(student)
+                    .course(course)
+                    .amount(course.getPrice())
+                    .status("PENDING")
+                    .razorpayOrderId("order_tab_" + UUID.randomUUID().toString().replace("-", ""))
+                    .build());
+            checkouts.add(paymentGateway.completeCheckout(attempt.getRazorpayOrderId()));
+        }
+
+        runTogether(i -> {
+            Map<String, String> checkout = checkouts.get(i % SIBLING_ORDERS);
+            return i < SIBLING_ORDERS ? verify(checkout) : confirmFromWebhook(checkout);
+        });
+
+        List<Payment> successful = paymentRepository.findByStudentAndCourse(student, course).stream()
+                .filter(p -> "SUCCESS".equals(p.getStatus()))
+                .toList();
+        assertEquals(1, successful.size());
+        assertSoldOnce(successful.get(0).getId());
+    }
+
+    // The admin payments page asks without size and lists every buyer; size pages the report
+    @Test
+    void buyersReportWithoutSizeListsEveryBuyer() {
+        List<Users> buyers = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            buyers.add(TestFixtures.user("buyer " + i, "STUDENT"));
+        }
+        userRepository.saveAll(buyers);
+        List<Payment> payments = new ArrayList<>();
+        for (Users buyer : buyers) {
+            payments.add(Payment.builder().student(buyer).course(course).amount(course.getPrice()).status("SUCCESS")
+                    .paidAt(LocalDateTime.now()).build());
+        }
+        paymentRepository.saveAll(payments);
+
+        assertEquals(60, buyersOf(null).size());
+        assertEquals(50, buyersOf(50).size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<?> buyersOf(Integer size) {
+        Object body = adminService.getCourseBuyers(course.getId(), null, size).getBody();
+        return (List<?>) ((Map<String, Object>) ((MyResponseWrapper) body).getData()).get("buyers");
+    }
+
+    // Per course the history shows its SUCCESS payment if it has one, else the latest PENDING
+    // (even when a FAILED attempt is newer), else the latest FAILED; cancelled and expired attempts
+    // never show. The totals cover the shown rows only.
+    @Test
+    void paymentHistoryPicksOneRowPerCourseWithWindowTotals() {
+        Course paid = newCourse("Paid");
+        Course pending = newCourse("Pending");
+        Course failed = newCourse("Failed");
+        Course abandoned = newCourse("Abandoned");
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+
+        attempt(paid, "FAILED", 100.0, start);
+        Payment success = attempt(paid, "SUCCESS", 100.0, start.plusHours(1));
+        attempt(paid, "PENDING", 100.0, start.plusHours(2));
+
+        attempt(pending, "PENDING", 200.0, start.plusHours(3));
+        Payment latestPending = attempt(pending, "PENDING", 200.0, start.plusHours(4));
+        attempt(pending, "FAILED", 200.0, start.plusHours(5));
+
+        attempt(failed, "FAILED", 300.0, start.plusHours(6));
+        Payment latestFailed = attempt(failed, "FAILED", 300.0, start.plusHours(7));
+
+        attempt(abandoned, "CANCELLED", 400.0, start.plusHours(8));
+        attempt(abandoned, "EXPIRED", 400.0, start.plusHours(9));
+
+        List<StudentPaymentView> history = paymentRepository.findPaymentHistory(student.getId());
+
+        // Newest first
+        assertEquals(List.of(latestFailed.getId(), latestPending.getId(), success.getId()),
+                history.stream().map(StudentPaymentView::getId).toList());
+        assertEquals(List.of("FAILED", "PENDING", "SUCCESS"), history.stream().map(StudentPaymentView::getStatus).toList());
+        assertEquals("Paid", history.get(2).getCourseTitle());
+        for (StudentPaymentView row : history) {
+            assertEquals(600.0, row.getTotalAmount(), 0.001);
+            assertEquals(100.0, row.getPaidAmount(), 0.001);
+            assertEquals(500.0, row.getPendingAmount(), 0.001);
+        }
+    }
+
+    @Test
+    void paymentHistoryWithOnlyCancelledAttemptsIsEmpty() {
+        attempt(course, "CANCELLED", 100.0, LocalDateTime.now());
+        assertTrue(paymentRepository.findPaymentHistory(student.getId()).isEmpty());
+    }
+
+    private Course newCourse(String title) {
+        Course created = new Course();
+        created.setTitle(title);
+        created.setPrice(1.0);
+        return courseRepository.save(created);
+    }
+
+    // createdAt is stamped on insert, so it is set afterwards to order the attempts
+    private Payment attempt(Course of, String status, double amount, LocalDateTime createdAt) {
+        Payment payment = paymentRepository.save(Payment.builder()
+                .student(student)
+                .course(of)
+                .amount(amount)
+                .status(status)
+                .razorpayOrderId("order_" + UUID.randomUUID())
+                .build());
+        jdbcTemplate.update("UPDATE payment SET created_at = ? WHERE id = ?", createdAt, payment.getId());
+        return payment;
+    }
+
+    // Exactly one SUCCESS attempt, every other one CANCELLED, and one paid enrollment, one
+    // entitlement and one sale for the student and course
+    private void assertSoldOnce(Long paymentId) {
+        for (Payment attempt : paymentRepository.findByStudentAndCourse(student, course)) {
+            assertEquals(attempt.getId().equals(paymentId) ? "SUCCESS" : "CANCELLED", attempt.getStatus());
+        }
+        List<Enrollment> enrollments = enrollmentRepository.findByCourse(course);
+        assertEquals(1, enrollments.size());
+        assertTrue(enrollments.get(0).getIsPaid());
+        assertEquals(1, entitlementRepository.findAll().stream()
+                .filter(e -> e.getStudentId().equals(student.getId()) && e.getCourseId().equals(course.getId()))
+                .count());
+        CourseSales sales = courseSalesService.getSales(course.getId()).orElseThrow();
+        assertEquals(1, sales.getBuyers());
+        assertEquals(course.getPrice(), sales.getRevenue(), 0.001);
+    }
+
+    // Start CONFIRMATIONS calls at the same moment and wait for all of them
+    private void runTogether(IntFunction<Callable<Object>> call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CONFIRMATIONS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONFIRMATIONS; i++) {
+                Callable<Object> task = call.apply(i);
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : calls) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Callable<Object> verify(Map<String, String> checkout) {
+        return () -> {
+            HttpStatusCode status = paymentService.verifyPayment(checkout.get("razorpayOrderId"),
+                    checkout.get("razorpayPaymentId"), checkout.get("razorpaySignature")).getStatusCode();
+            assertEquals(HttpStatus.OK, status);
+            return status;
+        };
+    }
+
+    // What the webhook worker does for payment.captured: read the payment in its own
+    // transaction and confirm it there
+    private Callable<Object> confirmFromWebhook(Map<String, String> checkout) {
+        return () -> transactionTemplate.execute(status -> paymentService.confirmPayment(
+                paymentRepository.findByRazorpayOrderId(checkout.get("razorpayOrderId")).orElseThrow(),
+                checkout.get("razorpayPaymentId"), null));
+    }
+
+    // The response wrapper is shared, so the order id is read back from the payment row
+    private String createOrder() {
+        assertEquals(HttpStatus.CREATED, paymentService.createOrder(course.getId(), student.getEmail()).getStatusCode());
+        return paymentRepository.findByStudentAndCourse(student, course).stream()
+                .filter(p -> "PENDING".equals(p.getStatus()))
+                .findFirst()
+                .orElseThrow()
+                .getRazorpayOrderId();
+    }
+}
@@ -0,0 +1,182 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.controllers.PaymentController;
+import com.learnix.models.Course;
+import com.learnix.models.Enrollment;
+import com.learnix.models.Payment;
+import com.learnix.models.PaymentWebhookEvent;
+import com.learnix.models.Users;
+import com.learnix.repositories.CourseRepository;
+import com.learnix.repositories.EnrollmentRepository;
+import com.learnix.repositories.PaymentRepository;
+import com.learnix.repositories.PaymentWebhookEventRepository;
+import com.learnix.repositories.UserRepository;
+
+@SpringBootTest(properties = "payment.gateway=stub")
+@ActiveProfiles("test")
+class PaymentWebhookServiceTest {
+
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+
+    @Autowired
+    private PaymentController paymentController;
+
+    @Autowired
+    private PaymentWebhookEventRepository eventRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseSalesService courseSalesService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${razorpay.webhook.secret}")
+    private String webhookSecret;
+
+    private Course course;
+    private Payment payment;
+
+    @BeforeEach
+    void setUp() {
+        Users student = userRepository.save(TestFixtures.user("buyer", "STUDENT"));
+        course = new Course();
+        course.setTitle("Webhooks");
+        course.setPrice(299.0);
+        course = courseRepository.save(course);
+        payment = paymentRepository.save(Payment.builder()
+                .student(student)
+                .course(course)
+                .amount(course.getPrice())
+                .status("PENDING")
+                .razorpayOrderId("order_" + UUID.randomUUID().toString().replace("-", ""))
+                .build());
+    }
+
+    @Test
+    void onlyTheExactSignedBodyIsAccepted() {
+        String body = event("payment.captured", "pay_1", 1700000000L);
+        String signature = sign(body);
+
+        assertTrue(paymentWebhookService.isValidSignature(body, signature));
+        assertTrue(paymentWebhookService.isValidSignature(body, " " + signature.toUpperCase() + " "));
+        assertFalse(paymentWebhookService.isValidSignature(body, null));
+        assertFalse(paymentWebhookService.isValidSignature(body, ""));
+        assertFalse(paymentWebhookService.isValidSignature(body, sign(body + " ")));
+        assertFalse(paymentWebhookService.isValidSignature(body.replace("pay_1", "pay_2"), signature));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, paymentController.paymentWebhook(body, "bad", "evt_unsigned").getStatusCode());
+        assertTrue(eventsOfOrder().isEmpty());
+    }
+
+    // Signed but not JSON: rejected as a bad request, nothing stored
+    @Test
+    void malformedSignedBodyIsABadRequest() {
+        String body = "{\"event\": \"payment.captured\", " + payment.getRazorpayOrderId();
+
+        assertEquals(HttpStatus.BAD_REQUEST, paymentController.paymentWebhook(body, sign(body), null).getStatusCode());
+        assertTrue(eventsOfOrder().isEmpty());
+    }
+
+    // Redeliveries are acknowledged without storing the event again, with or without the event id
+    // header (then the event type, payment id and created_at identify the event)
+    @Test
+    void redeliveredEventsAreStoredOnce() {
+        String body = event("payment.captured", "pay_1", 1700000000L);
+        String eventId = "evt_" + UUID.randomUUID();
+        assertTrue(paymentWebhookService.record(body, eventId));
+        assertFalse(paymentWebhookService.record(body, eventId));
+
+        String retried = event("payment.captured", "pay_2", 1700000100L);
+        assertTrue(paymentWebhookService.record(retried, null));
+        assertFalse(paymentWebhookService.record(retried, " "));
+        assertEquals("duplicate", ((Map<?, ?>) paymentController.paymentWebhook(retried, sign(retried), null)
+                .getBody()).get("status"));
+
+        // Same payment, later event: a different delivery
+        assertTrue(paymentWebhookService.record(event("payment.captured", "pay_2", 1700000200L), null));
+
+        List<PaymentWebhookEvent> stored = eventsOfOrder();
+        assertEquals(3, stored.size());
+        assertEquals("payment.captured:pay_2:1700000100", stored.get(1).getEventId());
+    }
+
+    // payment.failed processed after payment.captured, in the same batch or a later one, leaves the
+    // payment confirmed; a redelivered capture under a new id sells nothing twice
+    @Test
+    void lateFailureEventNeverUndoesACapture() {
+        paymentWebhookService.record(event("payment.captured", "pay_ok", 1700000000L), "evt_" + UUID.randomUUID());
+        paymentWebhookService.record(event("payment.failed", "pay_declined", 1700000001L), "evt_" + UUID.randomUUID());
+        paymentWebhookService.processPending();
+
+        paymentWebhookService.record(event("payment.failed", "pay_declined", 1700000002L), "evt_" + UUID.randomUUID());
+        paymentWebhookService.record(event("payment.captured", "pay_ok", 1700000003L), "evt_" + UUID.randomUUID());
+        paymentWebhookService.processPending();
+
+        for (PaymentWebhookEvent event : eventsOfOrder()) {
+            assertEquals(PaymentWebhookService.PROCESSED, event.getStatus());
+        }
+        Payment confirmed = paymentRepository.findById(payment.getId()).orElseThrow();
+        assertEquals("SUCCESS", confirmed.getStatus());
+        assertEquals("pay_ok", confirmed.getRazorpayPaymentId());
+
+        List<Enrollment> enrollments = enrollmentRepository.findByCourse(course);
+        assertEquals(1, enrollments.size());
+        assertTrue(enrollments.get(0).getIsPaid());
+        assertEquals(1, courseSalesService.getSales(course.getId()).orElseThrow().getBuyers());
+    }
+
+    private List<PaymentWebhookEvent> eventsOfOrder() {
+        return eventRepository.findAll().stream()
+                .filter(e -> payment.getRazorpayOrderId().equals(e.getOrderId()))
+                .sorted(Comparator.comparing(PaymentWebhookEvent::getId))
+                .toList();
+    }
+
+    // Trimmed Razorpay event: payload.payment.entity carries the payment and its order id
+    private String event(String type, String paymentId, long createdAt) {
+        return "{\"event\":\"" + type + "\",\"created_at\":" + createdAt + ",\"payload\":{\"payment\":{\"entity\":"
+                + "{\"id\":\"" + paymentId + "\",\"order_id\":\"" + payment.getRazorpayOrderId() + "\"}}}}";
+    }
+
+    private String sign(String body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
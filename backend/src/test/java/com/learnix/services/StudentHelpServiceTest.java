@@ -0,0 +1,131 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.learnix.models.StudentHelp;
+import com.learnix.models.Users;
+import com.learnix.repositories.StudentHelpRepository;
+import com.learnix.repositories.UserRepository;
+import com.learnix.responseWrapper.MyResponseWrapper;
+import com.learnix.specification.SpecificationUtils;
+import com.learnix.specification.StudentHelpSpecification;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StudentHelpServiceTest {
+
+    @Autowired
+    private StudentHelpService studentHelpService;
+
+    @Autowired
+    private StudentHelpRepository studentHelpRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Users student;
+
+    @BeforeEach
+    void setUp() {
+        student = userRepository.save(TestFixtures.user("asker", "STUDENT"));
+    }
+
+    // Tickets stored in mixed case before statuses were normalized show up under the filter
+    // once the startup backfill ran, and a second run changes nothing
+    @Test
+    void legacyStatusesMatchTheFilterAfterTheBackfill() {
+        for (String status : new String[] { "pending", "Pending", "PENDING", "resolved" }) {
+            studentHelpRepository.save(StudentHelp.builder().student(student).issue("help").status(status).build());
+        }
+
+        assertEquals(3, studentHelpService.normalizeStatuses());
+        assertEquals(0, studentHelpService.normalizeStatuses());
+
+        assertEquals(3, studentHelpRepository.count(SpecificationUtils.and(
+                StudentHelpSpecification.hasStatus("pending"), StudentHelpSpecification.keywordLike(student.getEmail()))));
+        assertEquals(1, studentHelpRepository.count(SpecificationUtils.and(
+                StudentHelpSpecification.hasStatus("RESOLVED"), StudentHelpSpecification.keywordLike(student.getEmail()))));
+    }
+
+    // The admin page asks without size or cursor and gets the whole queue; size pages it
+    @Test
+    void requestWithoutSizeReturnsEveryMatch() {
+        List<StudentHelp> tickets = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            tickets.add(StudentHelp.builder().student(student).issue("ticket " + i).build());
+        }
+        studentHelpRepository.saveAll(tickets);
+
+        Map<String, Object> all = queue(null);
+        assertEquals(60, ((List<?>) all.get("items")).size());
+        assertEquals(60L, all.get("matched"));
+        assertFalse((Boolean) all.get("hasMore"));
+
+        Map<String, Object> page = queue(50);
+        assertEquals(50, ((List<?>) page.get("items")).size());
+        assertTrue((Boolean) page.get("hasMore"));
+    }
+
+    // Tickets created in the same instant straddle every page boundary: following nextCursor
+    // visits each ticket exactly once, in (createdAt desc, id desc) order
+    @Test
+    void keysetPagesNeitherRepeatNorSkipTiedTimestamps() {
+        LocalDateTime tied = LocalDateTime.now().minusHours(1).withNano(0);
+        List<StudentHelp> tickets = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // Two older, five tied, one newer
+            LocalDateTime createdAt = i < 2 ? tied.minusMinutes(10 - i) : i < 7 ? tied : tied.plusMinutes(5);
+            tickets.add(StudentHelp.builder().student(student).issue("ticket " + i).createdAt(createdAt).build());
+        }
+        studentHelpRepository.saveAll(tickets);
+        tickets.sort(Comparator.comparing(StudentHelp::getCreatedAt).thenComparing(StudentHelp::getId).reversed());
+
+        List<Long> visited = new ArrayList<>();
+        LocalDateTime cursorCreatedAt = null;
+        Long cursorId = null;
+        int pages = 0;
+        while (true) {
+            Map<String, Object> page = queue(cursorCreatedAt, cursorId, 3);
+            for (Object item : (List<?>) page.get("items")) {
+                visited.add(((StudentHelp) item).getId());
+            }
+            pages++;
+            if (!(Boolean) page.get("hasMore")) {
+                break;
+            }
+            Map<?, ?> next = (Map<?, ?>) page.get("nextCursor");
+            cursorCreatedAt = (LocalDateTime) next.get("createdAt");
+            cursorId = (Long) next.get("id");
+        }
+
+        assertEquals(3, pages);
+        assertEquals(tickets.size(), new HashSet<>(visited).size());
+        assertEquals(tickets.stream().map(StudentHelp::getId).toList(), visited);
+    }
+
+    private Map<String, Object> queue(Integer size) {
+        return queue(null, null, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> queue(LocalDateTime cursorCreatedAt, Long cursorId, Integer size) {
+        Object body = studentHelpService.getAllHelpRequests(null, student.getEmail(), cursorCreatedAt, cursorId, size)
+                .getBody();
+        return (Map<String, Object>) ((MyResponseWrapper) body).getData();
+    }
+}
@@ -0,0 +1,28 @@
+package com.learnix.services;
+
+import java.util.UUID;
+
+import com.learnix.models.Student;
+import com.learnix.models.Users;
+
+// Unsaved entities shared by the service tests; every user gets a unique email, so tests can run
+// against the same database without colliding on the unique email column
+final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    static Users user(String name, String role) {
+        Users user = new Users();
+        user.setName(name);
+        user.setEmail(UUID.randomUUID() + "@learnix.test");
+        user.setRole(role);
+        return user;
+    }
+
+    static Student student(Users user) {
+        Student student = new Student();
+        student.setUser(user);
+        return student;
+    }
+}
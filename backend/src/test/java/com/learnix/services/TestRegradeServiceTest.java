@@ -0,0 +1,150 @@
+package com.learnix.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.learnix.models.OnlineTest;
+import com.learnix.models.OnlineTestAnswer;
+import com.learnix.models.OnlineTestQuestion;
+import com.learnix.models.OnlineTestSubmission;
+import com.learnix.models.Student;
+import com.learnix.repositories.OnlineTestQuestionRepository;
+import com.learnix.repositories.OnlineTestRepository;
+import com.learnix.repositories.OnlineTestSubmissionRepository;
+import com.learnix.repositories.StudentRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TestRegradeServiceTest {
+
+    @Autowired
+    private TestRegradeService testRegradeService;
+
+    @Autowired
+    private OnlineTestRepository onlineTestRepository;
+
+    @Autowired
+    private OnlineTestQuestionRepository questionRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @MockitoSpyBean
+    private OnlineTestSubmissionRepository submissionRepository;
+
+    private OnlineTest test;
+    private OnlineTestQuestion first;
+    private OnlineTestQuestion second;
+
+    @BeforeEach
+    void setUp() {
+        test = new OnlineTest();
+        test.setTitle("Regrade");
+        test.setMaxMarks(10);
+        test = onlineTestRepository.save(test);
+        first = question("A");
+        second = question("B");
+    }
+
+    @AfterEach
+    void restore() {
+        reset(submissionRepository);
+    }
+
+    // More submissions than one chunk: every one is regraded, and the grading runs on the
+    // regrade pool instead of the common fork/join pool
+    @Test
+    void regradesEverySubmissionAcrossChunks() {
+        int students = 2300;
+        List<OnlineTestSubmission> batch = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            // Half answered C on the first question, which is wrong until the key is corrected
+            batch.add(submission(i % 2 == 0 ? "C" : "A", "B"));
+        }
+        submissionRepository.saveAll(batch);
+
+        Set<String> gradingThreads = ConcurrentHashMap.newKeySet();
+        Map<String, Object> summary = testRegradeService.correctAnswer(test, first.getId(), "C");
+        Thread.getAllStackTraces().keySet().forEach(t -> {
+            if (t.getName().startsWith("test-regrade-")) gradingThreads.add(t.getName());
+        });
+
+        assertEquals(students, summary.get("submissions"));
+        assertEquals(students, summary.get("changed"));
+        assertEquals(students / 2, summary.get("scoreIncreased"));
+        assertEquals(students / 2, summary.get("scoreDecreased"));
+        assertEquals("DONE", testRegradeService.getProgress(test.getId()).get("status"));
+        assertFalse(gradingThreads.isEmpty());
+        // C answers now score full marks, A answers lost the first question
+        long correctTotal = 0;
+        for (Object[] row : submissionRepository.findScoreRowsByTestId(test.getId())) {
+            assertEquals(((Number) row[2]).intValue() * 5, ((Number) row[1]).intValue());
+            correctTotal += ((Number) row[2]).intValue();
+        }
+        assertEquals(students / 2 * 2 + students / 2, correctTotal);
+    }
+
+    // A submission stored after the snapshot was graded with the old key; the rescan fixes it
+    @Test
+    void rescansSubmissionsStoredAfterTheSnapshot() {
+        OnlineTestSubmission early = submissionRepository.save(submission("C", "B"));
+        // Stored after the snapshot id was taken, scored against the old key (first answer wrong)
+        submissionRepository.save(submission("C", "B"));
+        doReturn(early.getId()).when(submissionRepository).findMaxIdByTestId(test.getId());
+
+        Map<String, Object> summary = testRegradeService.correctAnswer(test, first.getId(), "C");
+
+        assertEquals(2, summary.get("submissions"));
+        List<Object[]> rows = submissionRepository.findScoreRowsByTestId(test.getId());
+        assertEquals(2, rows.size());
+        for (Object[] row : rows) {
+            assertEquals(2, ((Number) row[2]).intValue());
+            assertEquals(10, ((Number) row[1]).intValue());
+        }
+    }
+
+    private OnlineTestQuestion question(String correct) {
+        OnlineTestQuestion question = new OnlineTestQuestion();
+        question.setQuestionText("Q" + correct);
+        question.setCorrectOption(correct);
+        question.setTest(test);
+        return questionRepository.save(question);
+    }
+
+    // Graded against the original key (first = A, second = B)
+    private OnlineTestSubmission submission(String firstOption, String secondOption) {
+        OnlineTestSubmission submission = new OnlineTestSubmission();
+        submission.setTest(test);
+        submission.setStudent(studentRepository.save(new Student()));
+        int correct = 0;
+        for (Object[] pick : new Object[][] { { first, firstOption }, { second, secondOption } }) {
+            OnlineTestQuestion question = (OnlineTestQuestion) pick[0];
+            OnlineTestAnswer answer = new OnlineTestAnswer();
+            answer.setSubmission(submission);
+            answer.setQuestion(question);
+            answer.setSelectedOption((String) pick[1]);
+            answer.setCorrect(question.getCorrectOption().equals(pick[1]));
+            if (answer.getCorrect()) correct++;
+            submission.getAnswers().add(answer);
+        }
+        submission.setTotalCorrect(correct);
+        submission.setScore(OnlineTestService.calculateScore(correct, 2, 10));
+        return submission;
+    }
+}